@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 import pe.pucp.plg.dto.*;
 import pe.pucp.plg.service.SimulacionService;
 import pe.pucp.plg.service.SimulationManagerService;
@@ -59,7 +60,7 @@ public class SimulacionController {
     @GetMapping("/{simulationId}/snapshot")
     public ResponseEntity<SimulacionSnapshotDTO> getSnapshot(@PathVariable String simulationId) {
         try {
-            ExecutionContext context = simulationManagerService.getActiveSimulationContext();
+            ExecutionContext context = simulationManagerService.getSimulationContext(simulationId);
             if (context == null) {
                 throw new IllegalArgumentException("Simulación no encontrada con ID: " + simulationId);
             }
@@ -71,6 +72,18 @@ public class SimulacionController {
         }
     }
 
+    // ------------------------------------------------------------
+    // 6) Métricas de ruteo (caché de rutas) de una simulación específica
+    // ------------------------------------------------------------
+    @GetMapping("/{simulationId}/metricas")
+    public ResponseEntity<MetricasRuteoDTO> getMetricas(@PathVariable String simulationId) {
+        ExecutionContext context = simulationManagerService.getSimulationContext(simulationId);
+        if (context == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        return ResponseEntity.ok(MapperUtil.toMetricasRuteoDTO(context));
+    }
+
     @PostMapping("/{simulationId}/run")
     public ResponseEntity<Void> runSimulation(@PathVariable String simulationId) {
         simulacionService.ejecutarSimulacionCompleta(simulationId);
@@ -95,6 +108,24 @@ public class SimulacionController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/{simulationId}/pause")
+    public ResponseEntity<Void> pauseSimulation(@PathVariable String simulationId) {
+        simulationManagerService.pauseSimulation(simulationId);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/{simulationId}/resume")
+    public ResponseEntity<Void> resumeSimulation(@PathVariable String simulationId) {
+        simulationManagerService.resumeSimulation(simulationId);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/{simulationId}/speed")
+    public ResponseEntity<Void> setSimulationSpeed(@PathVariable String simulationId, @RequestBody SpeedRequest speedRequest) {
+        simulationManagerService.setSpeedOfSimulation(simulationId, speedRequest.getDelayMs());
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/{simulationId}/stop")
     public ResponseEntity<Void> stopSimulation(@PathVariable String simulationId) {
         simulacionService.detenerYLimpiarSimulacion(simulationId); 
@@ -107,6 +138,11 @@ public class SimulacionController {
         return ResponseEntity.ok(isActive);
     }
 
+    @GetMapping("/activas")
+    public ResponseEntity<Set<String>> getActiveSimulations() {
+        return ResponseEntity.ok(simulationManagerService.getSimulacionesActivas());
+    }
+
     @PostMapping("/{simulationId}/averia")
     public ResponseEntity<AveriaDTO> aplicarAveriaSim(@PathVariable String simulationId,@RequestBody AveriaDTO dto) {
         Averia nuevaAveria = simulacionService.registrarAveriaSimulacion(simulationId, dto);
@@ -0,0 +1,32 @@
+package pe.pucp.plg.dto;
+
+public class MetricasRuteoDTO {
+    private long aciertosCache;
+    private long fallosCache;
+    private double tasaAciertosCache;
+    private int rutasEnCache;
+    private long rutasDirectas;
+    private long busquedasAStar;
+    private double tasaRutasDirectas;
+
+    public long getAciertosCache() { return aciertosCache; }
+    public void setAciertosCache(long aciertosCache) { this.aciertosCache = aciertosCache; }
+
+    public long getFallosCache() { return fallosCache; }
+    public void setFallosCache(long fallosCache) { this.fallosCache = fallosCache; }
+
+    public double getTasaAciertosCache() { return tasaAciertosCache; }
+    public void setTasaAciertosCache(double tasaAciertosCache) { this.tasaAciertosCache = tasaAciertosCache; }
+
+    public int getRutasEnCache() { return rutasEnCache; }
+    public void setRutasEnCache(int rutasEnCache) { this.rutasEnCache = rutasEnCache; }
+
+    public long getRutasDirectas() { return rutasDirectas; }
+    public void setRutasDirectas(long rutasDirectas) { this.rutasDirectas = rutasDirectas; }
+
+    public long getBusquedasAStar() { return busquedasAStar; }
+    public void setBusquedasAStar(long busquedasAStar) { this.busquedasAStar = busquedasAStar; }
+
+    public double getTasaRutasDirectas() { return tasaRutasDirectas; }
+    public void setTasaRutasDirectas(double tasaRutasDirectas) { this.tasaRutasDirectas = tasaRutasDirectas; }
+}
@@ -0,0 +1,32 @@
+package pe.pucp.plg.dto;
+
+/** Progreso de una simulación sin interfaz: reemplaza a los snapshots de cada minuto. */
+public class ProgresoSimulacionDTO {
+    private String tiempoSimulado;     // Minuto simulado actual (ISO)
+    private int avance;                // Porcentaje de avance (0 a 100)
+    private int totalPedidosEntregados;
+    private double minutosPorSegundo;  // Minutos simulados por segundo real desde el inicio
+
+    public ProgresoSimulacionDTO(String tiempoSimulado, int avance, int totalPedidosEntregados, double minutosPorSegundo) {
+        this.tiempoSimulado = tiempoSimulado;
+        this.avance = avance;
+        this.totalPedidosEntregados = totalPedidosEntregados;
+        this.minutosPorSegundo = minutosPorSegundo;
+    }
+
+    public String getTiempoSimulado() {
+        return tiempoSimulado;
+    }
+
+    public int getAvance() {
+        return avance;
+    }
+
+    public int getTotalPedidosEntregados() {
+        return totalPedidosEntregados;
+    }
+
+    public double getMinutosPorSegundo() {
+        return minutosPorSegundo;
+    }
+}
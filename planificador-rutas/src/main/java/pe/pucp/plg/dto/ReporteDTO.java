@@ -4,11 +4,20 @@ public class ReporteDTO {
     private int totalPedidosEntregados;
     private double totalDistanciaRecorrida;
     private String pedidoColapso;
+    private long minutosSimulados;
+    private double minutosPorSegundo; // Rendimiento: minutos simulados por segundo real
 
     public ReporteDTO(int totalPedidosEntregados, double totalDistanciaRecorrida, String pedidoColapso) {
+        this(totalPedidosEntregados, totalDistanciaRecorrida, pedidoColapso, 0, 0.0);
+    }
+
+    public ReporteDTO(int totalPedidosEntregados, double totalDistanciaRecorrida, String pedidoColapso,
+                      long minutosSimulados, double minutosPorSegundo) {
         this.totalPedidosEntregados = totalPedidosEntregados;
         this.totalDistanciaRecorrida = totalDistanciaRecorrida;
         this.pedidoColapso = pedidoColapso;
+        this.minutosSimulados = minutosSimulados;
+        this.minutosPorSegundo = minutosPorSegundo;
     }
 
     public int getTotalPedidosEntregados() {
@@ -22,4 +31,12 @@ public class ReporteDTO {
     public String getPedidoColapso() {
         return pedidoColapso;
     }
+
+    public long getMinutosSimulados() {
+        return minutosSimulados;
+    }
+
+    public double getMinutosPorSegundo() {
+        return minutosPorSegundo;
+    }
 }
@@ -5,6 +5,11 @@ public class SimulationRequest {
     private String fechaInicio; // Formato "YYYY-MM-DD"
     private int duracionDias;   // Ej. 7 para simulación semanal
     private boolean esColapso;  // Indica si es una simulación de colapso
+    private String planificador; // Motor de rutas: "aco" (por defecto) o "alns"
+    private Integer islasAco;           // Colonias del ACO por islas (null = configuración)
+    private Integer intervaloMigracion; // Iteraciones entre migraciones de las islas (null = configuración)
+    private boolean avancePorEventos;   // Saltar los minutos sin eventos (sin snapshots intermedios)
+    private boolean sinInterfaz;        // Corrida por lotes: sin pausas ni snapshots, sólo progreso y KPIs
 
     public String getNombreSimulacion() {
         return nombreSimulacion;
@@ -37,4 +42,44 @@ public class SimulationRequest {
     public void setEsColapso(boolean esColapso) {
         this.esColapso = esColapso;
     }
+
+    public String getPlanificador() {
+        return planificador;
+    }
+
+    public void setPlanificador(String planificador) {
+        this.planificador = planificador;
+    }
+
+    public Integer getIslasAco() {
+        return islasAco;
+    }
+
+    public void setIslasAco(Integer islasAco) {
+        this.islasAco = islasAco;
+    }
+
+    public Integer getIntervaloMigracion() {
+        return intervaloMigracion;
+    }
+
+    public void setIntervaloMigracion(Integer intervaloMigracion) {
+        this.intervaloMigracion = intervaloMigracion;
+    }
+
+    public boolean isAvancePorEventos() {
+        return avancePorEventos;
+    }
+
+    public void setAvancePorEventos(boolean avancePorEventos) {
+        this.avancePorEventos = avancePorEventos;
+    }
+
+    public boolean isSinInterfaz() {
+        return sinInterfaz;
+    }
+
+    public void setSinInterfaz(boolean sinInterfaz) {
+        this.sinInterfaz = sinInterfaz;
+    }
 }
@@ -6,6 +6,7 @@ public enum EventType {
     SIMULATION_RUNNING,
     SIMULATION_ERROR,
     SIMULATION_COLLAPSED,
+    SIMULATION_PROGRESS,
     TRUCK_STATE_UPDATED,
     TRUCK_POSITION_UPDATED,
     ORDER_STATE_UPDATED,
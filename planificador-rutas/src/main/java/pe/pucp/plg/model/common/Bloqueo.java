@@ -18,15 +18,17 @@ public class Bloqueo {
     
     private LocalDateTime startTime;  // tiempo de inicio
     private LocalDateTime endTime;    // tiempo de fin (exclusivo)
+    // Ventana [minutoInicio, minutoFin) en minutos del reloj, para comparar sin LocalDateTime
+    private int minutoInicio, minutoFin;
     private final List<Point> nodes; // nodos extremos del bloqueo (poligonal abierta)
     private String description;
     private Estado lastKnownState = Estado.INACTIVO;
     private static final Pattern TIME_PATTERN = Pattern.compile("(\\d+)d(\\d+)h(\\d+)m");
 
     public Bloqueo(LocalDateTime startTime, LocalDateTime endTime, List<Point> nodes) {
-        this.startTime = startTime;
-        this.endTime = endTime;
         this.nodes = new ArrayList<>(nodes);
+        setStartTime(startTime);
+        setEndTime(endTime);
     }
 
     /** Construye un Bloqueo a partir de una línea de tu archivo:
@@ -55,6 +57,11 @@ public class Bloqueo {
         return !t.isBefore(startTime) && t.isBefore(endTime);
     }
 
+    /** ¿Está activo en ese minuto del reloj? */
+    public boolean isActiveAt(int minuto) {
+        return minuto >= minutoInicio && minuto < minutoFin;
+    }
+
     /** ¿Ese punto p está bloqueado en el tiempo t? */
     public boolean estaBloqueado(LocalDateTime t, Point p) {
         if (t.isBefore(startTime) || !t.isBefore(endTime)) return false;
@@ -117,11 +124,20 @@ public class Bloqueo {
     public String getDescription() {
         return description;
     }
+    public int getMinutoInicio() {
+        return minutoInicio;
+    }
+    public int getMinutoFin() {
+        return minutoFin;
+    }
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        // Techo: en minutos enteros, t >= startTime equivale a minuto(t) >= minutoInicio
+        this.minutoInicio = startTime == null ? RelojSimulacion.NUNCA : RelojSimulacion.minutoTecho(startTime);
     }
     public void setEndTime(LocalDateTime endTime) {
         this.endTime = endTime;
+        this.minutoFin = endTime == null ? RelojSimulacion.NUNCA : RelojSimulacion.minutoTecho(endTime);
     }
     
     public Estado getLastKnownState() {
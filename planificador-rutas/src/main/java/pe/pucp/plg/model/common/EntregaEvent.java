@@ -3,16 +3,23 @@ package pe.pucp.plg.model.common;
 import java.time.LocalDateTime;
 
 public class EntregaEvent {
-    public LocalDateTime time;   // tiempo de disparo
+    public final LocalDateTime time;   // tiempo de disparo
+    private final int minuto;          // minuto del reloj en que se dispara (techo de time)
     private final String camionId;   // Changed from CamionEstado camion
     private final Pedido pedido; // Changed to be final
     
     public EntregaEvent(LocalDateTime time, String camionId, Pedido pedido) {
         this.time = time;
+        this.minuto = RelojSimulacion.minutoTecho(time);
         this.camionId = camionId;
         this.pedido = pedido; 
     }
 
+    /** Minuto del reloj en que se dispara; con segundos sueltos, el siguiente. */
+    public int getMinuto() {
+        return minuto;
+    }
+
     // Getter for camionId
     public String getCamionId() {
         return camionId;
@@ -0,0 +1,251 @@
+package pe.pucp.plg.model.common;
+
+import java.awt.Point;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Índice precompilado de bloqueos sobre la cuadrícula del mapa.
+ * Para cada celda guarda sus intervalos de bloqueo [desde, hasta) en minutos,
+ * ordenados y fusionados, de modo que "¿(x,y) está bloqueado en t?" se responde
+ * con una búsqueda binaria y sin crear objetos.
+ * Es inmutable: cuando cambian los bloqueos cargados se construye uno nuevo.
+ */
+public final class IndiceBloqueos {
+
+    public static final IndiceBloqueos VACIO = construir(List.of());
+
+    private final int[] inicioCelda; // offsets por celda (longitud TOTAL_CELDAS + 1)
+    private final int[] desde;       // inicio de cada intervalo (incluido)
+    private final int[] hasta;       // fin de cada intervalo (excluido)
+
+    // Rectángulo envolvente y ventana [inicio, fin) de cada bloqueo, para consultas por zona
+    private final int[] bloqueoMinX, bloqueoMinY, bloqueoMaxX, bloqueoMaxY;
+    private final int[] bloqueoInicio, bloqueoFin;
+
+    // Tramos horizontales/verticales de todos los bloqueos, normalizados (x1 <= x2, y1 <= y2)
+    private final int[] tramoX1, tramoY1, tramoX2, tramoY2;
+    private final int[] tramoInicio, tramoFin;
+
+    private IndiceBloqueos(int[] inicioCelda, int[] desde, int[] hasta,
+                           int[] bloqueoMinX, int[] bloqueoMinY, int[] bloqueoMaxX, int[] bloqueoMaxY,
+                           int[] bloqueoInicio, int[] bloqueoFin, int[][] tramos) {
+        this.inicioCelda = inicioCelda;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.bloqueoMinX = bloqueoMinX;
+        this.bloqueoMinY = bloqueoMinY;
+        this.bloqueoMaxX = bloqueoMaxX;
+        this.bloqueoMaxY = bloqueoMaxY;
+        this.bloqueoInicio = bloqueoInicio;
+        this.bloqueoFin = bloqueoFin;
+        this.tramoX1 = tramos[0];
+        this.tramoY1 = tramos[1];
+        this.tramoX2 = tramos[2];
+        this.tramoY2 = tramos[3];
+        this.tramoInicio = tramos[4];
+        this.tramoFin = tramos[5];
+    }
+
+    /** Minuto absoluto (desde la época) de un instante; ver {@link RelojSimulacion#minuto}. */
+    public static int minuto(LocalDateTime t) {
+        return RelojSimulacion.minuto(t);
+    }
+
+    public static IndiceBloqueos construir(Collection<Bloqueo> bloqueos) {
+        int[] conteo = new int[Mapa.TOTAL_CELDAS + 1];
+
+        // 1) Contar cuántos intervalos caen en cada celda
+        for (Bloqueo b : bloqueos) {
+            recorrerCeldas(b, celda -> conteo[celda + 1]++);
+        }
+        for (int c = 0; c < Mapa.TOTAL_CELDAS; c++) {
+            conteo[c + 1] += conteo[c];
+        }
+
+        // 2) Llenar los intervalos crudos
+        int total = conteo[Mapa.TOTAL_CELDAS];
+        long[] crudos = new long[total];
+        int[] cursor = Arrays.copyOf(conteo, Mapa.TOTAL_CELDAS);
+        for (Bloqueo b : bloqueos) {
+            int d = minuto(b.getStartTime());
+            int h = minuto(b.getEndTime());
+            if (h <= d) continue;
+            recorrerCeldas(b, celda -> crudos[cursor[celda]++] = empaquetar(d, h));
+        }
+
+        // 3) Ordenar y fusionar por celda
+        int[] inicioCelda = new int[Mapa.TOTAL_CELDAS + 1];
+        int[] desde = new int[total];
+        int[] hasta = new int[total];
+        int n = 0;
+        for (int c = 0; c < Mapa.TOTAL_CELDAS; c++) {
+            inicioCelda[c] = n;
+            int ini = conteo[c], fin = cursor[c];
+            if (fin - ini > 1) Arrays.sort(crudos, ini, fin);
+            for (int k = ini; k < fin; k++) {
+                int d = (int) (crudos[k] >> 32);
+                int h = (int) crudos[k];
+                if (n > inicioCelda[c] && d <= hasta[n - 1]) {
+                    hasta[n - 1] = Math.max(hasta[n - 1], h);
+                } else {
+                    desde[n] = d;
+                    hasta[n] = h;
+                    n++;
+                }
+            }
+        }
+        inicioCelda[Mapa.TOTAL_CELDAS] = n;
+
+        // 4) Envolventes y ventanas por bloqueo
+        int nb = bloqueos.size();
+        int[] minX = new int[nb], minY = new int[nb], maxX = new int[nb], maxY = new int[nb];
+        int[] ini = new int[nb], fin = new int[nb];
+        int k = 0;
+        int[][] tramos = new int[6][16];
+        int nt = 0;
+        for (Bloqueo b : bloqueos) {
+            int d = minuto(b.getStartTime());
+            int h = minuto(b.getEndTime());
+            if (h <= d || b.getNodes().isEmpty()) continue;
+            List<Point> nodos = b.getNodes();
+            for (int i = 0; i < nodos.size() - 1; i++) {
+                Point a = nodos.get(i), q = nodos.get(i + 1);
+                if (a.x != q.x && a.y != q.y) continue;
+                if (nt == tramos[0].length) {
+                    for (int f = 0; f < tramos.length; f++) tramos[f] = Arrays.copyOf(tramos[f], nt * 2);
+                }
+                tramos[0][nt] = Math.min(a.x, q.x);
+                tramos[1][nt] = Math.min(a.y, q.y);
+                tramos[2][nt] = Math.max(a.x, q.x);
+                tramos[3][nt] = Math.max(a.y, q.y);
+                tramos[4][nt] = d;
+                tramos[5][nt] = h;
+                nt++;
+            }
+            minX[k] = minY[k] = Integer.MAX_VALUE;
+            maxX[k] = maxY[k] = Integer.MIN_VALUE;
+            for (Point p : b.getNodes()) {
+                minX[k] = Math.min(minX[k], p.x);
+                minY[k] = Math.min(minY[k], p.y);
+                maxX[k] = Math.max(maxX[k], p.x);
+                maxY[k] = Math.max(maxY[k], p.y);
+            }
+            ini[k] = d;
+            fin[k] = h;
+            k++;
+        }
+        return new IndiceBloqueos(inicioCelda, Arrays.copyOf(desde, n), Arrays.copyOf(hasta, n),
+                Arrays.copyOf(minX, k), Arrays.copyOf(minY, k), Arrays.copyOf(maxX, k), Arrays.copyOf(maxY, k),
+                Arrays.copyOf(ini, k), Arrays.copyOf(fin, k), recortar(tramos, nt));
+    }
+
+    /** ¿La celda (x,y) está bloqueada en el minuto indicado? */
+    public boolean estaBloqueado(int x, int y, int minuto) {
+        if (!Mapa.dentro(x, y)) return false;
+        int celda = Mapa.celda(x, y);
+        int lo = inicioCelda[celda], hi = inicioCelda[celda + 1] - 1;
+        // último intervalo con desde <= minuto
+        int encontrado = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (desde[mid] <= minuto) {
+                encontrado = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return encontrado >= 0 && minuto < hasta[encontrado];
+    }
+
+    public boolean estaBloqueado(int x, int y, LocalDateTime t) {
+        return estaBloqueado(x, y, minuto(t));
+    }
+
+    /**
+     * Primer minuto posterior a {@code minuto} en que empieza o termina algún bloqueo
+     * que toca el rectángulo [minX..maxX] x [minY..maxY]. Hasta ese minuto (excluido)
+     * el estado de todas las celdas del rectángulo es el mismo que en {@code minuto}.
+     *
+     * @return el minuto del próximo cambio, o Integer.MAX_VALUE si no hay ninguno
+     */
+    public int proximoCambio(int minX, int minY, int maxX, int maxY, int minuto) {
+        int proximo = Integer.MAX_VALUE;
+        for (int i = 0; i < bloqueoInicio.length; i++) {
+            if (bloqueoMaxX[i] < minX || bloqueoMinX[i] > maxX
+                    || bloqueoMaxY[i] < minY || bloqueoMinY[i] > maxY) {
+                continue;
+            }
+            if (bloqueoInicio[i] > minuto) {
+                proximo = Math.min(proximo, bloqueoInicio[i]);
+            } else if (bloqueoFin[i] > minuto) {
+                proximo = Math.min(proximo, bloqueoFin[i]);
+            }
+        }
+        return proximo;
+    }
+
+    /**
+     * ¿Se puede recorrer el tramo recto de (x1,y1) a (x2,y2) sin tocar un bloqueo?
+     * La celda (x1,y1) es la número {@code pasoInicial} de la ruta y la celda del paso j
+     * se ocupa entre los minutos {@code minuto + j} y {@code minuto + j + 1}.
+     * Se intersecta el tramo con los tramos de cada bloqueo en lugar de revisar celda por celda;
+     * el resultado es conservador (puede decir "no" aunque el paso final quedara libre).
+     */
+    public boolean tramoLibre(int x1, int y1, int x2, int y2, int pasoInicial, int minuto) {
+        int minX = Math.min(x1, x2), maxX = Math.max(x1, x2);
+        int minY = Math.min(y1, y2), maxY = Math.max(y1, y2);
+        for (int i = 0; i < tramoInicio.length; i++) {
+            int ix0 = Math.max(minX, tramoX1[i]), ix1 = Math.min(maxX, tramoX2[i]);
+            int iy0 = Math.max(minY, tramoY1[i]), iy1 = Math.min(maxY, tramoY2[i]);
+            if (ix0 > ix1 || iy0 > iy1) continue; // no se cruzan
+            // Pasos de la ruta que caen sobre el cruce
+            int pa = pasoInicial + Math.abs(ix0 - x1) + Math.abs(iy0 - y1);
+            int pb = pasoInicial + Math.abs(ix1 - x1) + Math.abs(iy1 - y1);
+            int primero = Math.min(pa, pb), ultimo = Math.max(pa, pb);
+            if (minuto + primero < tramoFin[i] && minuto + ultimo + 1 >= tramoInicio[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean estaVacio() {
+        return desde.length == 0;
+    }
+
+    private static int[][] recortar(int[][] columnas, int n) {
+        int[][] r = new int[columnas.length][];
+        for (int f = 0; f < columnas.length; f++) r[f] = Arrays.copyOf(columnas[f], n);
+        return r;
+    }
+
+    // Intervalo empaquetado en un long para ordenar por inicio sin objetos
+    private static long empaquetar(int desde, int hasta) {
+        return ((long) desde << 32) | (hasta & 0xFFFFFFFFL);
+    }
+
+    private interface VisitanteCelda {
+        void visitar(int celda);
+    }
+
+    /** Visita cada celda cubierta por la poligonal del bloqueo. */
+    private static void recorrerCeldas(Bloqueo b, VisitanteCelda visitante) {
+        List<Point> nodos = b.getNodes();
+        for (int i = 0; i < nodos.size() - 1; i++) {
+            Point a = nodos.get(i), q = nodos.get(i + 1);
+            if (a.x != q.x && a.y != q.y) continue; // sólo tramos horizontales o verticales
+            int dx = Integer.signum(q.x - a.x), dy = Integer.signum(q.y - a.y);
+            int x = a.x, y = a.y;
+            while (true) {
+                if (Mapa.dentro(x, y)) visitante.visitar(Mapa.celda(x, y));
+                if (x == q.x && y == q.y) break;
+                x += dx;
+                y += dy;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package pe.pucp.plg.model.common;
+
+/**
+ * Dimensiones de la cuadrícula de la ciudad y codificación de celdas como enteros.
+ * Una celda (x,y) se codifica como {@code x * (ALTO + 1) + y}.
+ */
+public final class Mapa {
+
+    public static final int ANCHO = 70; // x en [0, ANCHO]
+    public static final int ALTO = 50;  // y en [0, ALTO]
+    public static final int COLUMNAS = ANCHO + 1;
+    public static final int FILAS = ALTO + 1;
+    public static final int TOTAL_CELDAS = COLUMNAS * FILAS;
+
+    private Mapa() {}
+
+    public static boolean dentro(int x, int y) {
+        return x >= 0 && x <= ANCHO && y >= 0 && y <= ALTO;
+    }
+
+    public static int celda(int x, int y) {
+        return x * FILAS + y;
+    }
+
+    public static int x(int celda) {
+        return celda / FILAS;
+    }
+
+    public static int y(int celda) {
+        return celda % FILAS;
+    }
+}
@@ -1,22 +1,29 @@
 package pe.pucp.plg.model.common;
 
 import java.time.LocalDateTime;
+import java.util.function.Consumer;
 
 public class Pedido {
     String id;
     int x, y;
     LocalDateTime tiempoCreacion, tiempoLimite;
+    // tiempoLimite en minutos del reloj (ver RelojSimulacion), para comparar sin LocalDateTime
+    private int minutoLimite = RelojSimulacion.NUNCA;
     double volumen;
     boolean atendido = false;
     boolean descartado = false;
     boolean programado = false; 
     boolean enEntrega = false;
     private LocalDateTime horaEntregaProgramada;
+    // Registro que clasifica el pedido por estado (ver RegistroPedidos); se le avisa de cada
+    // cambio de estado o de plazo. Las copias no lo heredan.
+    private Consumer<Pedido> observador;
 
     public Pedido(String id, LocalDateTime tiempoCreacion, int x, int y, double volumen, LocalDateTime tiempoLimite) {
         this.id = id; this.tiempoCreacion = tiempoCreacion;
         this.x = x; this.y = y; this.volumen = volumen;
         this.tiempoLimite = tiempoLimite;
+        this.minutoLimite = RelojSimulacion.minutoONunca(tiempoLimite);
     }
 
     // Copy constructor
@@ -26,6 +33,7 @@ public class Pedido {
         this.y = original.y;
         this.tiempoCreacion = original.tiempoCreacion;
         this.tiempoLimite = original.tiempoLimite;
+        this.minutoLimite = original.minutoLimite;
         this.volumen = original.volumen;
         this.atendido = original.atendido;
         this.descartado = original.descartado;
@@ -38,6 +46,8 @@ public class Pedido {
     public int getY() { return y; }
     public double getVolumen() { return volumen; }
     public LocalDateTime getTiempoLimite() { return tiempoLimite; }
+    /** Minuto que contiene al límite; {@link RelojSimulacion#NUNCA} si no tiene. */
+    public int getMinutoLimite() { return minutoLimite; }
     public boolean isAtendido() { return atendido; }
     public boolean isDescartado() {
         return descartado;
@@ -47,13 +57,16 @@ public class Pedido {
     public void setTiempoCreacion(LocalDateTime tc) {this.tiempoCreacion = tc; }
     public void setDescartado(boolean descartado) {
         this.descartado = descartado;
+        avisar();
     }
     public void setTiempoLimite(LocalDateTime tiempoLimite) {
         this.tiempoLimite = tiempoLimite;
+        this.minutoLimite = RelojSimulacion.minutoONunca(tiempoLimite);
+        avisar();
     }
     // → marcar como atendido:
-    public void setProgramado(boolean programado) {this.programado = programado; }
-    public void setAtendido(boolean a) { this.atendido = a; }
+    public void setProgramado(boolean programado) {this.programado = programado; avisar(); }
+    public void setAtendido(boolean a) { this.atendido = a; avisar(); }
 
     public LocalDateTime getHoraEntregaProgramada() {
         return horaEntregaProgramada;
@@ -69,5 +82,16 @@ public class Pedido {
 
     public void setEnEntrega(boolean enEntrega) {
         this.enEntrega = enEntrega;
+        avisar();
+    }
+
+    public void setObservador(Consumer<Pedido> observador) {
+        this.observador = observador;
+    }
+
+    private void avisar() {
+        if (observador != null) {
+            observador.accept(this);
+        }
     }
 }
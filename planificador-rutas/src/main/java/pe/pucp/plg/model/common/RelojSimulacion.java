@@ -0,0 +1,74 @@
+package pe.pucp.plg.model.common;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Reloj de la simulación en minutos enteros. La simulación avanza de minuto en minuto, así
+ * que en los caminos calientes (plazos, disponibilidad de camiones, ventanas de bloqueo,
+ * eventos) basta comparar ints en lugar de {@link LocalDateTime}.
+ *
+ * Los minutos son absolutos (desde la época, en UTC), los mismos que ya usa
+ * {@link IndiceBloqueos}: un valor sirve para cualquier contexto sin saber su origen. Para
+ * hablar en minutos desde {@code fechaInicio} están {@link #transcurridos()} y
+ * {@link #desdeInicio}. A {@link LocalDateTime} sólo se vuelve para los DTOs y los logs.
+ */
+public final class RelojSimulacion {
+
+    /** Para campos opcionales ("sin límite" / "ya libre"): anterior a cualquier minuto real. */
+    public static final int NUNCA = Integer.MIN_VALUE;
+
+    private int origen;
+    private int ahora;
+
+    /** Minuto que contiene a t (redondeo hacia abajo). */
+    public static int minuto(LocalDateTime t) {
+        return (int) Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /** Primer minuto entero en o después de t (redondeo hacia arriba). */
+    public static int minutoTecho(LocalDateTime t) {
+        int m = minuto(t);
+        return t.getSecond() != 0 || t.getNano() != 0 ? m + 1 : m;
+    }
+
+    /** {@link #minuto}, o {@link #NUNCA} si t es null. */
+    public static int minutoONunca(LocalDateTime t) {
+        return t == null ? NUNCA : minuto(t);
+    }
+
+    /** El instante de un minuto absoluto. */
+    public static LocalDateTime instante(int minuto) {
+        return LocalDateTime.ofEpochSecond(minuto * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /** Fija el origen (medianoche de la fecha de inicio). */
+    public void setInicio(LocalDate fechaInicio) {
+        this.origen = fechaInicio == null ? 0 : minuto(fechaInicio.atStartOfDay());
+    }
+
+    public void fijar(LocalDateTime t) {
+        this.ahora = t == null ? 0 : minuto(t);
+    }
+
+    /** Minuto absoluto actual. */
+    public int ahora() {
+        return ahora;
+    }
+
+    /** Minutos desde el inicio de la simulación. */
+    public int transcurridos() {
+        return ahora - origen;
+    }
+
+    /** Minutos desde el inicio de la simulación hasta un minuto absoluto. */
+    public int desdeInicio(int minuto) {
+        return minuto - origen;
+    }
+
+    /** El minuto absoluto que está {@code desplazamiento} minutos después del inicio. */
+    public int minutoDesdeInicio(int desplazamiento) {
+        return origen + desplazamiento;
+    }
+}
@@ -0,0 +1,156 @@
+package pe.pucp.plg.model.context;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.awt.Point;
+
+import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Mapa;
+
+/**
+ * Caché LRU acotada de tramos (origen, destino) ya calculados por A*.
+ *
+ * Una ruta guardada en el minuto t0 se reutiliza en t1 mientras:
+ * - siga vigente el mismo índice de bloqueos,
+ * - la "época" de las regiones del corredor de la ruta no haya avanzado (la avanza
+ *   BlockageService al activar o terminar un bloqueo en esa zona), y
+ * - ningún inicio o fin de bloqueo en el corredor caiga entre t0 y t1 + largo de la ruta.
+ *
+ * El corredor es la zona por la que podría pasar cualquier ruta no más larga que la
+ * guardada: un bloqueo que termina fuera de la ruta pero dentro del corredor puede abrir
+ * un atajo, y la entrada deja de servir.
+ */
+public class CacheRutas {
+
+    public static final int CAPACIDAD = 4096;
+
+    // El mapa se divide en regiones cuadradas; cada una tiene su propia época
+    private static final int LADO_REGION = 10;
+    private static final int REGIONES_X = Mapa.COLUMNAS / LADO_REGION + 1;
+    private static final int REGIONES_Y = Mapa.FILAS / LADO_REGION + 1;
+
+    private static final class Entrada {
+        final int[] ruta;
+        final int minutoCalculo;
+        final int validoHasta; // primer minuto con un cambio de bloqueo en la zona
+        final int rx0, ry0, rx1, ry1; // regiones del corredor
+        final long firmaEpoca;
+
+        Entrada(int[] ruta, int minutoCalculo, int validoHasta, int rx0, int ry0, int rx1, int ry1, long firmaEpoca) {
+            this.ruta = ruta;
+            this.minutoCalculo = minutoCalculo;
+            this.validoHasta = validoHasta;
+            this.rx0 = rx0;
+            this.ry0 = ry0;
+            this.rx1 = rx1;
+            this.ry1 = ry1;
+            this.firmaEpoca = firmaEpoca;
+        }
+    }
+
+    private final long[] epocas = new long[REGIONES_X * REGIONES_Y];
+    private final Map<Integer, Entrada> entradas = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Entrada> eldest) {
+            return size() > CAPACIDAD;
+        }
+    };
+    private IndiceBloqueos indice;
+
+    /**
+     * Devuelve la ruta guardada para el tramo si sigue siendo válida al partir en
+     * {@code minuto}, o null si hay que recalcularla.
+     */
+    public synchronized int[] buscar(int origen, int destino, int minuto, IndiceBloqueos indiceActual) {
+        if (indiceActual != indice) {
+            entradas.clear();
+            indice = indiceActual;
+            return null;
+        }
+        Entrada e = entradas.get(clave(origen, destino));
+        if (e == null) {
+            return null;
+        }
+        if (minuto < e.minutoCalculo
+                || minuto + e.ruta.length >= e.validoHasta
+                || firma(e.rx0, e.ry0, e.rx1, e.ry1) != e.firmaEpoca) {
+            return null;
+        }
+        return e.ruta;
+    }
+
+    /** Guarda una ruta calculada con A* partiendo del origen en {@code minuto}. */
+    public synchronized void guardar(int origen, int destino, int minuto, int[] ruta, IndiceBloqueos indiceActual) {
+        if (indiceActual != indice) {
+            entradas.clear();
+            indice = indiceActual;
+        }
+        // Corredor origen-destino: cualquier ruta de largo <= el de la guardada cabe en la
+        // envolvente de ambos puntos ampliada en la mitad del rodeo (salir de celdas de ella
+        // cuesta 2e pasos). Un bloqueo que cambia ahí pudo haber descartado una alternativa
+        // más corta, así que también invalida la entrada. Margen de una celda.
+        int ox = Mapa.x(origen), oy = Mapa.y(origen), dx = Mapa.x(destino), dy = Mapa.y(destino);
+        int rodeo = (ruta.length - Math.abs(ox - dx) - Math.abs(oy - dy) + 1) / 2;
+        int minX = Math.max(0, Math.min(ox, dx) - rodeo - 1);
+        int minY = Math.max(0, Math.min(oy, dy) - rodeo - 1);
+        int maxX = Math.min(Mapa.ANCHO, Math.max(ox, dx) + rodeo + 1);
+        int maxY = Math.min(Mapa.ALTO, Math.max(oy, dy) + rodeo + 1);
+
+        int validoHasta = indiceActual.proximoCambio(minX, minY, maxX, maxY, minuto);
+        int rx0 = minX / LADO_REGION, ry0 = minY / LADO_REGION;
+        int rx1 = maxX / LADO_REGION, ry1 = maxY / LADO_REGION;
+        entradas.put(clave(origen, destino),
+                new Entrada(ruta, minuto, validoHasta, rx0, ry0, rx1, ry1, firma(rx0, ry0, rx1, ry1)));
+    }
+
+    /** Avanza la época de las regiones que toca el bloqueo (al activarse o terminar). */
+    public synchronized void avanzarEpoca(Bloqueo bloqueo) {
+        List<Point> nodos = bloqueo.getNodes();
+        if (nodos.isEmpty()) {
+            return;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Point p : nodos) {
+            minX = Math.min(minX, p.x);
+            minY = Math.min(minY, p.y);
+            maxX = Math.max(maxX, p.x);
+            maxY = Math.max(maxY, p.y);
+        }
+        int rx0 = Math.max(0, (minX - 1) / LADO_REGION), ry0 = Math.max(0, (minY - 1) / LADO_REGION);
+        int rx1 = Math.min(REGIONES_X - 1, (maxX + 1) / LADO_REGION);
+        int ry1 = Math.min(REGIONES_Y - 1, (maxY + 1) / LADO_REGION);
+        for (int rx = rx0; rx <= rx1; rx++) {
+            for (int ry = ry0; ry <= ry1; ry++) {
+                epocas[rx * REGIONES_Y + ry]++;
+            }
+        }
+    }
+
+    public synchronized void limpiar() {
+        entradas.clear();
+        indice = null;
+    }
+
+    public synchronized int tamanio() {
+        return entradas.size();
+    }
+
+    // Las épocas sólo crecen, así que la suma cambia si y sólo si cambió alguna
+    private long firma(int rx0, int ry0, int rx1, int ry1) {
+        long suma = 0;
+        for (int rx = rx0; rx <= rx1; rx++) {
+            for (int ry = ry0; ry <= ry1; ry++) {
+                suma += epocas[rx * REGIONES_Y + ry];
+            }
+        }
+        return suma;
+    }
+
+    private static Integer clave(int origen, int destino) {
+        return origen * Mapa.TOTAL_CELDAS + destino;
+    }
+}
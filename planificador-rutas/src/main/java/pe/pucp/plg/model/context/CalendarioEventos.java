@@ -0,0 +1,341 @@
+package pe.pucp.plg.model.context;
+
+import pe.pucp.plg.model.common.EntregaEvent;
+import pe.pucp.plg.model.common.RelojSimulacion;
+
+import java.time.LocalDateTime;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Eventos de entrega futuros en una rueda de tiempo de resolución de un minuto (todos los
+ * eventos caen en minutos enteros). Reemplaza a la PriorityQueue ordenada por tiempo:
+ * <ul>
+ *   <li>programar es O(1): el evento va a la cubeta de su minuto;</li>
+ *   <li>{@link #extraerHasta} saca de una vez todo lo vencido, recorriendo sólo las cubetas
+ *       ocupadas (un bit por cubeta);</li>
+ *   <li>cancelar los eventos de un camión o de un pedido es O(k) en los eventos cancelados,
+ *       gracias a los índices por camión y por pedido.</li>
+ * </ul>
+ * La rueda cubre {@value #MINUTOS_RUEDA} minutos desde el cursor; los eventos más lejanos
+ * esperan en un segundo nivel ordenado y bajan a la rueda a medida que avanza. Los que se
+ * programan para un minuto ya pasado quedan como atrasados, también ordenados por minuto, y
+ * salen primero en la siguiente extracción, como salían de la cola.
+ *
+ * Orden de disparo determinista: por minuto y, dentro del mismo minuto, por orden de
+ * programación.
+ */
+public class CalendarioEventos extends AbstractQueue<EntregaEvent> {
+
+    private static final int MINUTOS_RUEDA = 4096; // ~2,8 días
+    private static final int MASCARA = MINUTOS_RUEDA - 1;
+
+    /** Evento programado; se enlaza en la cubeta de su minuto. */
+    private static final class Nodo {
+        final EntregaEvent evento;
+        final long minuto;
+        Cubeta cubeta;
+        Nodo anterior, siguiente;
+
+        Nodo(EntregaEvent evento, long minuto) {
+            this.evento = evento;
+            this.minuto = minuto;
+        }
+    }
+
+    /** Lista doblemente enlazada de los eventos de un minuto, en orden de programación. */
+    private static final class Cubeta {
+        Nodo primero, ultimo;
+
+        void agregar(Nodo n) {
+            n.cubeta = this;
+            n.anterior = ultimo;
+            n.siguiente = null;
+            if (ultimo == null) primero = n; else ultimo.siguiente = n;
+            ultimo = n;
+        }
+
+        void quitar(Nodo n) {
+            if (n.anterior == null) primero = n.siguiente; else n.anterior.siguiente = n.siguiente;
+            if (n.siguiente == null) ultimo = n.anterior; else n.siguiente.anterior = n.anterior;
+            n.anterior = n.siguiente = null;
+            n.cubeta = null;
+        }
+
+        boolean vacia() { return primero == null; }
+    }
+
+    private final Cubeta[] rueda = new Cubeta[MINUTOS_RUEDA];
+    private final long[] ocupadas = new long[MINUTOS_RUEDA / 64];
+    // Minutos >= cursor + MINUTOS_RUEDA (o todos, antes de la primera extracción)
+    private final TreeMap<Long, Cubeta> lejanos = new TreeMap<>();
+    // Programados para un minuto anterior al cursor, por minuto
+    private final TreeMap<Long, Cubeta> atrasados = new TreeMap<>();
+
+    // Primer minuto aún no extraído; la rueda cubre [cursor, cursor + MINUTOS_RUEDA)
+    private long cursor;
+    private boolean iniciado;
+
+    private final Map<String, Set<Nodo>> porCamion = new HashMap<>();
+    private final Map<String, Set<Nodo>> porPedido = new HashMap<>();
+    private int tamano;
+
+    public CalendarioEventos() {
+        for (int i = 0; i < MINUTOS_RUEDA; i++) {
+            rueda[i] = new Cubeta();
+        }
+    }
+
+    @Override
+    public boolean offer(EntregaEvent evento) {
+        Nodo n = new Nodo(evento, evento.getMinuto());
+        ubicar(n);
+        porCamion.computeIfAbsent(evento.getCamionId(), k -> new LinkedHashSet<>()).add(n);
+        if (evento.getPedido() != null) {
+            porPedido.computeIfAbsent(evento.getPedido().getId(), k -> new LinkedHashSet<>()).add(n);
+        }
+        tamano++;
+        return true;
+    }
+
+    /**
+     * Saca, en orden de disparo, todos los eventos con tiempo ≤ t (incluidos los atrasados)
+     * y deja el cursor en el minuto siguiente.
+     */
+    public List<EntregaEvent> extraerHasta(LocalDateTime t) {
+        return extraerHasta(RelojSimulacion.minuto(t));
+    }
+
+    /** {@link #extraerHasta(LocalDateTime)} con t en minutos del reloj. */
+    public List<EntregaEvent> extraerHasta(int minuto) {
+        long hasta = minuto;
+        List<EntregaEvent> vencidos = new ArrayList<>();
+        if (!iniciado) {
+            iniciado = true;
+            cursor = hasta + 1;
+            // Todo lo anterior al cursor pasa a atrasados, en orden; el resto baja a la rueda
+            bajarLejanos();
+        }
+        while (!atrasados.isEmpty()) {
+            vaciarEn(atrasados.firstEntry().getValue(), vencidos);
+        }
+        while (cursor <= hasta) {
+            long fin = Math.min(hasta, cursor + MINUTOS_RUEDA - 1);
+            for (long m = siguienteOcupado(cursor, fin); m >= 0; m = siguienteOcupado(m + 1, fin)) {
+                vaciarEn(rueda[(int) (m & MASCARA)], vencidos);
+                limpiarBit(m);
+            }
+            cursor = fin + 1;
+            bajarLejanos();
+        }
+        return vencidos;
+    }
+
+    /** Cancela todos los eventos del camión; los devuelve en orden de programación. */
+    public List<EntregaEvent> cancelarCamion(String camionId) {
+        return cancelar(porCamion.get(camionId), false);
+    }
+
+    /** Cancela sólo los eventos de retorno (sin pedido) del camión. */
+    public List<EntregaEvent> cancelarRetornos(String camionId) {
+        return cancelar(porCamion.get(camionId), true);
+    }
+
+    /** Cancela los eventos de los pedidos con esos IDs. */
+    public List<EntregaEvent> cancelarPedidos(Collection<String> pedidoIds) {
+        List<EntregaEvent> cancelados = new ArrayList<>();
+        for (String id : pedidoIds) {
+            cancelados.addAll(cancelar(porPedido.get(id), false));
+        }
+        return cancelados;
+    }
+
+    @Override
+    public EntregaEvent poll() {
+        Nodo n = primerNodo();
+        if (n == null) return null;
+        quitar(n);
+        return n.evento;
+    }
+
+    @Override
+    public EntregaEvent peek() {
+        Nodo n = primerNodo();
+        return n == null ? null : n.evento;
+    }
+
+    @Override
+    public int size() {
+        return tamano;
+    }
+
+    @Override
+    public void clear() {
+        for (Nodo n : nodos()) {
+            quitar(n);
+        }
+    }
+
+    /** Recorre en orden de disparo; admite remove(). */
+    @Override
+    public Iterator<EntregaEvent> iterator() {
+        Iterator<Nodo> it = nodos().iterator();
+        return new Iterator<>() {
+            Nodo actual;
+
+            @Override
+            public boolean hasNext() { return it.hasNext(); }
+
+            @Override
+            public EntregaEvent next() {
+                actual = it.next();
+                return actual.evento;
+            }
+
+            @Override
+            public void remove() {
+                if (actual == null || actual.cubeta == null) throw new IllegalStateException();
+                quitar(actual);
+                actual = null;
+            }
+        };
+    }
+
+    // ------------------------------------------------------------------
+
+    private void ubicar(Nodo n) {
+        if (!iniciado || n.minuto >= cursor + MINUTOS_RUEDA) {
+            lejanos.computeIfAbsent(n.minuto, k -> new Cubeta()).agregar(n);
+        } else if (n.minuto < cursor) {
+            atrasados.computeIfAbsent(n.minuto, k -> new Cubeta()).agregar(n);
+        } else {
+            rueda[(int) (n.minuto & MASCARA)].agregar(n);
+            fijarBit(n.minuto);
+        }
+    }
+
+    /** Pasa a la rueda (o a atrasados) los lejanos que ya caen antes de cursor + MINUTOS_RUEDA. */
+    private void bajarLejanos() {
+        while (!lejanos.isEmpty() && lejanos.firstKey() < cursor + MINUTOS_RUEDA) {
+            Cubeta c = lejanos.pollFirstEntry().getValue();
+            for (Nodo n = c.primero; n != null; ) {
+                Nodo sig = n.siguiente;
+                c.quitar(n);
+                ubicar(n);
+                n = sig;
+            }
+        }
+    }
+
+    private void vaciarEn(Cubeta c, List<EntregaEvent> destino) {
+        for (Nodo n = c.primero; n != null; ) {
+            Nodo sig = n.siguiente;
+            destino.add(n.evento);
+            quitar(n);
+            n = sig;
+        }
+    }
+
+    private List<EntregaEvent> cancelar(Set<Nodo> nodos, boolean soloRetornos) {
+        if (nodos == null || nodos.isEmpty()) return List.of();
+        List<EntregaEvent> cancelados = new ArrayList<>();
+        for (Nodo n : new ArrayList<>(nodos)) {
+            if (soloRetornos && n.evento.getPedido() != null) continue;
+            cancelados.add(n.evento);
+            quitar(n);
+        }
+        return cancelados;
+    }
+
+    private void quitar(Nodo n) {
+        Cubeta c = n.cubeta;
+        c.quitar(n);
+        if (c.vacia()) {
+            if (rueda[(int) (n.minuto & MASCARA)] == c) {
+                limpiarBit(n.minuto);
+            } else if (lejanos.get(n.minuto) == c) {
+                lejanos.remove(n.minuto);
+            } else if (atrasados.get(n.minuto) == c) {
+                atrasados.remove(n.minuto);
+            }
+        }
+        desindexar(porCamion, n.evento.getCamionId(), n);
+        if (n.evento.getPedido() != null) {
+            desindexar(porPedido, n.evento.getPedido().getId(), n);
+        }
+        tamano--;
+    }
+
+    private static void desindexar(Map<String, Set<Nodo>> indice, String clave, Nodo n) {
+        Set<Nodo> nodos = indice.get(clave);
+        if (nodos != null && nodos.remove(n) && nodos.isEmpty()) {
+            indice.remove(clave);
+        }
+    }
+
+    private Nodo primerNodo() {
+        if (!atrasados.isEmpty()) return atrasados.firstEntry().getValue().primero;
+        if (iniciado) {
+            long m = siguienteOcupado(cursor, cursor + MINUTOS_RUEDA - 1);
+            if (m >= 0) return rueda[(int) (m & MASCARA)].primero;
+        }
+        return lejanos.isEmpty() ? null : lejanos.firstEntry().getValue().primero;
+    }
+
+    /** Todos los nodos en orden de disparo (copia, para poder quitar mientras se recorre). */
+    private List<Nodo> nodos() {
+        List<Nodo> todos = new ArrayList<>(tamano);
+        for (Cubeta c : atrasados.values()) {
+            agregarNodos(c, todos);
+        }
+        if (iniciado) {
+            long fin = cursor + MINUTOS_RUEDA - 1;
+            for (long m = siguienteOcupado(cursor, fin); m >= 0; m = siguienteOcupado(m + 1, fin)) {
+                agregarNodos(rueda[(int) (m & MASCARA)], todos);
+            }
+        }
+        for (Cubeta c : lejanos.values()) {
+            agregarNodos(c, todos);
+        }
+        return todos;
+    }
+
+    private static void agregarNodos(Cubeta c, List<Nodo> destino) {
+        for (Nodo n = c.primero; n != null; n = n.siguiente) {
+            destino.add(n);
+        }
+    }
+
+    private void fijarBit(long minuto) {
+        int i = (int) (minuto & MASCARA);
+        ocupadas[i >>> 6] |= 1L << i;
+    }
+
+    private void limpiarBit(long minuto) {
+        int i = (int) (minuto & MASCARA);
+        ocupadas[i >>> 6] &= ~(1L << i);
+    }
+
+    /** Primer minuto en [desde, hasta] con cubeta ocupada, o -1. Salta de 64 en 64 cubetas. */
+    private long siguienteOcupado(long desde, long hasta) {
+        long m = desde;
+        while (m <= hasta) {
+            int i = (int) (m & MASCARA);
+            long palabra = ocupadas[i >>> 6] >>> (i & 63);
+            if (palabra != 0) {
+                long encontrado = m + Long.numberOfTrailingZeros(palabra);
+                return encontrado <= hasta ? encontrado : -1;
+            }
+            m += 64 - (i & 63);
+        }
+        return -1;
+    }
+}
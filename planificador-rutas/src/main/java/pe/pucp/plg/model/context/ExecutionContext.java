@@ -1,10 +1,11 @@
 package pe.pucp.plg.model.context;
 
 import pe.pucp.plg.model.common.Bloqueo;
-import pe.pucp.plg.model.common.EntregaEvent;
+import pe.pucp.plg.model.common.IndiceBloqueos;
 import pe.pucp.plg.model.common.Pedido;
 import pe.pucp.plg.model.common.Ruta;
 import pe.pucp.plg.model.common.Averia;
+import pe.pucp.plg.model.common.RelojSimulacion;
 import pe.pucp.plg.model.state.CamionEstado;
 import pe.pucp.plg.model.state.TanqueDinamico;
 
@@ -19,20 +20,22 @@ public class ExecutionContext {
     public String generateUniquePedidoId() {
         return String.valueOf(pedidoSeq.getAndIncrement());
     }
-    // 1) Estados de la flota
+    // 1) Estados de la flota, e índice ID de camión → posición en la lista
     private List<CamionEstado> camiones = new ArrayList<>();
+    private final Map<String, Integer> posicionCamion = new HashMap<>();
 
-    // 2) Tanques intermedios
+    // 2) Tanques intermedios, e índice celda → tanque
     private List<TanqueDinamico> tanques = new ArrayList<>();
+    private final Map<Long, TanqueDinamico> tanquePorCelda = new HashMap<>();
 
-    // 3) Pedidos (históricos + pendientes)
-    private List<Pedido> pedidos = new ArrayList<>();
+    // 3) Pedidos (históricos + pendientes), indexados por ID
+    private RegistroPedidos pedidos = new RegistroPedidos();
 
     // 4) Bloqueos cargados
     private NavigableMap<LocalDateTime, List<Bloqueo>> bloqueosPorTiempo = new TreeMap<>();
 
     // 5) Eventos de entrega futuros (se programan con tiempo de disparo)
-    private Queue<EntregaEvent> eventosEntrega = new PriorityQueue<>(Comparator.comparing(ev -> ev.time));
+    private CalendarioEventos eventosEntrega = new CalendarioEventos();
 
     // 6) Mapa: tiempo → lista de pedidos que llegan ese tiempo
     private NavigableMap<LocalDateTime, List<Pedido>> pedidosPorTiempo = new TreeMap<>();
@@ -63,6 +66,7 @@ public class ExecutionContext {
 
     // 14) Fecha de inicio de la simulación
     private LocalDate fechaInicio;
+    private final RelojSimulacion reloj = new RelojSimulacion();
 
     // 15) Duración de la simulación en días
     private int duracionDias;
@@ -74,6 +78,38 @@ public class ExecutionContext {
 
     private List<Bloqueo> bloqueosPorDia = new ArrayList<>();
 
+    // Índice por celda de bloqueosPorDia (se reconstruye al cargar bloqueos)
+    private volatile IndiceBloqueos indiceBloqueos;
+
+    // Caché de tramos ya calculados y contadores del ruteo
+    private final CacheRutas cacheRutas = new CacheRutas();
+    private final MetricasRuteo metricasRuteo = new MetricasRuteo();
+
+    // Feromonas del ACO que se conservan entre replanificaciones
+    private final MemoriaFeromonas memoriaFeromonas = new MemoriaFeromonas();
+
+    // Motor de planificación de la simulación ("aco" | "alns") y último plan aplicado, por
+    // ids (camión → pedidos en orden), para que el siguiente pueda repararlo
+    private String planificador = "aco";
+    private Map<String, List<String>> planAnterior = new HashMap<>();
+
+    // ACO por islas pedido por la simulación: colonias e iteraciones entre migraciones
+    // (0 = lo configurado en aco.islas / aco.migracion)
+    private int islasAco;
+    private int intervaloMigracion;
+
+    // Avance por eventos: saltar los minutos en que sólo se mueven camiones
+    private boolean avancePorEventos;
+
+    // Sin interfaz (lotes): sin pausas entre pasos ni snapshots; sólo progreso y reporte final
+    private boolean sinInterfaz;
+
+    // Minutos desde la última replanificación periódica (ver OrchestratorService)
+    private int contadorReplan;
+
+    // Planificación en segundo plano aún no aplicada (modo asíncrono), o null
+    private PlanificacionPendiente planificacionPendiente;
+
     // PARA EL COLAPSO
 
     private boolean ignorarColapso = false;
@@ -104,19 +140,123 @@ public class ExecutionContext {
     public void setBloqueosPorTiempo(NavigableMap<LocalDateTime, List<Bloqueo>> bloqueosPorTiempo) { this.bloqueosPorTiempo = bloqueosPorTiempo; }
 
     public List<Bloqueo> getBloqueosPorDia() { return bloqueosPorDia; }
-    public void setBloqueosPorDia(List<Bloqueo> bloqueosPorDia) { this.bloqueosPorDia = bloqueosPorDia; }
+    public void setBloqueosPorDia(List<Bloqueo> bloqueosPorDia) {
+        this.bloqueosPorDia = bloqueosPorDia;
+        this.indiceBloqueos = null;
+    }
+
+    /** Índice de bloqueos del día; si aún no se construyó, se construye ahora. */
+    public IndiceBloqueos getIndiceBloqueos() {
+        IndiceBloqueos indice = indiceBloqueos;
+        if (indice == null) {
+            indice = reconstruirIndiceBloqueos();
+        }
+        return indice;
+    }
+
+    /** Debe llamarse cada vez que se agregan o eliminan bloqueos de bloqueosPorDia. */
+    public IndiceBloqueos reconstruirIndiceBloqueos() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(new ArrayList<>(bloqueosPorDia));
+        this.indiceBloqueos = indice;
+        return indice;
+    }
+
+    public CacheRutas getCacheRutas() { return cacheRutas; }
+    public MetricasRuteo getMetricasRuteo() { return metricasRuteo; }
+    public MemoriaFeromonas getMemoriaFeromonas() { return memoriaFeromonas; }
+
+    public String getPlanificador() { return planificador; }
+    public void setPlanificador(String planificador) { this.planificador = planificador; }
+
+    public Map<String, List<String>> getPlanAnterior() { return planAnterior; }
+    public void setPlanAnterior(Map<String, List<String>> planAnterior) { this.planAnterior = planAnterior; }
+
+    public int getIslasAco() { return islasAco; }
+    public void setIslasAco(int islasAco) { this.islasAco = islasAco; }
+
+    public int getIntervaloMigracion() { return intervaloMigracion; }
+    public void setIntervaloMigracion(int intervaloMigracion) { this.intervaloMigracion = intervaloMigracion; }
+
+    public boolean isAvancePorEventos() { return avancePorEventos; }
+    public void setAvancePorEventos(boolean avancePorEventos) { this.avancePorEventos = avancePorEventos; }
+
+    public boolean isSinInterfaz() { return sinInterfaz; }
+    public void setSinInterfaz(boolean sinInterfaz) { this.sinInterfaz = sinInterfaz; }
+
+    public int getContadorReplan() { return contadorReplan; }
+    public void setContadorReplan(int contadorReplan) { this.contadorReplan = contadorReplan; }
+
+    public PlanificacionPendiente getPlanificacionPendiente() { return planificacionPendiente; }
+    public void setPlanificacionPendiente(PlanificacionPendiente planificacionPendiente) { this.planificacionPendiente = planificacionPendiente; }
+
+    /** Cancela la planificación en segundo plano, si hay una, y libera el espacio. */
+    public void cancelarPlanificacionPendiente() {
+        PlanificacionPendiente pendiente = planificacionPendiente;
+        if (pendiente != null) {
+            pendiente.cancelar();
+            planificacionPendiente = null;
+        }
+    }
 
     public List<CamionEstado> getCamiones() { return camiones; }
-    public void setCamiones(List<CamionEstado> camiones) { this.camiones = camiones; }
+    public void setCamiones(List<CamionEstado> camiones) {
+        this.camiones = camiones;
+        indexarCamiones();
+    }
 
     public List<TanqueDinamico> getTanques() { return tanques; }
-    public void setTanques(List<TanqueDinamico> tanques) { this.tanques = tanques; }
+    public void setTanques(List<TanqueDinamico> tanques) {
+        this.tanques = tanques;
+        indexarTanques();
+    }
+
+    public RegistroPedidos getPedidos() { return pedidos; }
+    public void setPedidos(Collection<Pedido> pedidos) { this.pedidos = new RegistroPedidos(pedidos); }
+
+    /** El pedido activo con ese ID, o null. */
+    public Pedido getPedido(String id) { return pedidos.get(id); }
+
+    /**
+     * El camión con ese ID, o null. O(1); si la lista cambió por fuera desde el último
+     * setCamiones (camiones añadidos, reordenados o reemplazados), el fallo se detecta en la
+     * posición indexada y se reindexa.
+     */
+    public CamionEstado getCamion(String id) {
+        CamionEstado c = camionEnPosicion(id);
+        if (c == null) {
+            indexarCamiones();
+            c = camionEnPosicion(id);
+        }
+        return c;
+    }
+
+    private CamionEstado camionEnPosicion(String id) {
+        Integer i = posicionCamion.get(id);
+        if (i == null || i >= camiones.size()) return null;
+        CamionEstado c = camiones.get(i);
+        return c.getPlantilla().getId().equals(id) ? c : null;
+    }
 
-    public List<Pedido> getPedidos() { return pedidos; }
-    public void setPedidos(List<Pedido> pedidos) { this.pedidos = pedidos; }
+    private void indexarCamiones() {
+        posicionCamion.clear();
+        for (int i = 0; i < camiones.size(); i++) {
+            posicionCamion.putIfAbsent(camiones.get(i).getPlantilla().getId(), i);
+        }
+    }
+
+    private void indexarTanques() {
+        tanquePorCelda.clear();
+        for (TanqueDinamico t : tanques) {
+            tanquePorCelda.putIfAbsent(celda(t.getPosX(), t.getPosY()), t);
+        }
+    }
 
-    public Queue<EntregaEvent> getEventosEntrega() { return eventosEntrega; }
-    public void setEventosEntrega(Queue<EntregaEvent> eventosEntrega) { this.eventosEntrega = eventosEntrega; }
+    private static long celda(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public CalendarioEventos getEventosEntrega() { return eventosEntrega; }
+    public void setEventosEntrega(CalendarioEventos eventosEntrega) { this.eventosEntrega = eventosEntrega; }
 
     public NavigableMap<LocalDateTime, List<Pedido>> getPedidosPorTiempo() { return pedidosPorTiempo; }
     public void setPedidosPorTiempo(NavigableMap<LocalDateTime, List<Pedido>> pedidosPorTiempo) { this.pedidosPorTiempo = pedidosPorTiempo; }
@@ -140,7 +280,13 @@ public class ExecutionContext {
     public void setDepositoY(int depositoY) { this.depositoY = depositoY; }
 
     public LocalDateTime getCurrentTime() { return currentTime; }
-    public void setCurrentTime(LocalDateTime currentTime) { this.currentTime = currentTime; }
+    public void setCurrentTime(LocalDateTime currentTime) {
+        this.currentTime = currentTime;
+        reloj.fijar(currentTime);
+    }
+
+    /** Reloj en minutos enteros, sincronizado con currentTime y fechaInicio. */
+    public RelojSimulacion getReloj() { return reloj; }
 
     public int getMaxTime() { return maxTime; }
     public void setMaxTime(int maxTime) { this.maxTime = maxTime; }
@@ -152,7 +298,10 @@ public class ExecutionContext {
     public void setRutas(List<Ruta> rutas) { this.rutas = rutas; }
     
     public LocalDate getFechaInicio() { return fechaInicio; }
-    public void setFechaInicio(LocalDate fechaInicio) { this.fechaInicio = fechaInicio; }
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+        reloj.setInicio(fechaInicio);
+    }
     
     public int getDuracionDias() { return duracionDias; }
     public void setDuracionDias(int duracionDias) { this.duracionDias = duracionDias; }
@@ -160,11 +309,12 @@ public class ExecutionContext {
     public boolean isIgnorarColapso() { return ignorarColapso; }
     public void setIgnorarColapso(boolean ignorarColapso) { this.ignorarColapso = ignorarColapso; }
 
+    /** El tanque en la celda (x, y), o null. Los tanques no se mueven: el índice es fijo. */
     public TanqueDinamico obtenerTanquePorPosicion(int x, int y) {
-        return tanques.stream()
-                .filter(t -> t.getPosX() == x && t.getPosY() == y)
-                .findFirst()
-                .orElse(null);
+        if (tanquePorCelda.size() != tanques.size()) {
+            indexarTanques();
+        }
+        return tanquePorCelda.get(celda(x, y));
     }
 
     public List<Bloqueo> getBloqueosActivos() {
@@ -0,0 +1,62 @@
+package pe.pucp.plg.model.context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Feromonas del ACO que sobreviven entre replanificaciones de una misma simulación,
+ * por par (pedido, camión). Cada corrida del planificador arranca desde aquí en lugar
+ * de desde cero y, al terminar, guarda su matriz final.
+ *
+ * Los valores se guardan normalizados (media 1 en la corrida que los escribió), así que
+ * son comparables con el valor inicial 1.0 de los pares nuevos.
+ *
+ * También guarda el coste por pedido servido de la mejor solución de la última corrida,
+ * para medir cuánto vale el arranque en caliente de la siguiente.
+ */
+public class MemoriaFeromonas {
+
+    private final Map<String, Map<String, Double>> porPedido = new HashMap<>();
+    private double costePorPedido = Double.NaN;
+
+    /** Feromona guardada para el par, o {@code porDefecto} si no hay. */
+    public synchronized double obtener(String camionId, String pedidoId, double porDefecto) {
+        Map<String, Double> fila = porPedido.get(pedidoId);
+        if (fila == null) {
+            return porDefecto;
+        }
+        return fila.getOrDefault(camionId, porDefecto);
+    }
+
+    /** ¿Alguna corrida anterior ya aprendió algo sobre este pedido? */
+    public synchronized boolean conoce(String pedidoId) {
+        return porPedido.containsKey(pedidoId);
+    }
+
+    public synchronized void guardar(String camionId, String pedidoId, double tau) {
+        porPedido.computeIfAbsent(pedidoId, k -> new HashMap<>()).put(camionId, tau);
+    }
+
+    /** Descarta lo aprendido sobre un pedido que ya se entregó o se descartó. */
+    public synchronized void olvidarPedido(String pedidoId) {
+        porPedido.remove(pedidoId);
+    }
+
+    /** Coste por pedido servido de la última mejor solución, o NaN si no hay. */
+    public synchronized double getCostePorPedido() {
+        return costePorPedido;
+    }
+
+    public synchronized void setCostePorPedido(double costePorPedido) {
+        this.costePorPedido = costePorPedido;
+    }
+
+    public synchronized int pedidosConocidos() {
+        return porPedido.size();
+    }
+
+    public synchronized void limpiar() {
+        porPedido.clear();
+        costePorPedido = Double.NaN;
+    }
+}
@@ -0,0 +1,39 @@
+package pe.pucp.plg.model.context;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores del cálculo de rutas de una simulación.
+ * Se actualizan desde varios hilos, por eso usan LongAdder.
+ */
+public class MetricasRuteo {
+
+    private final LongAdder aciertosCache = new LongAdder();
+    private final LongAdder fallosCache = new LongAdder();
+    private final LongAdder rutasDirectas = new LongAdder();
+    private final LongAdder busquedasAStar = new LongAdder();
+
+    public void registrarAciertoCache() { aciertosCache.increment(); }
+    public void registrarFalloCache() { fallosCache.increment(); }
+    public void registrarRutaDirecta() { rutasDirectas.increment(); }
+    public void registrarBusquedaAStar() { busquedasAStar.increment(); }
+
+    public long getAciertosCache() { return aciertosCache.sum(); }
+    public long getFallosCache() { return fallosCache.sum(); }
+    public long getRutasDirectas() { return rutasDirectas.sum(); }
+    public long getBusquedasAStar() { return busquedasAStar.sum(); }
+
+    /** Fracción de consultas resueltas por la caché de rutas (0 si no hubo consultas). */
+    public double getTasaAciertosCache() {
+        long aciertos = getAciertosCache();
+        long total = aciertos + getFallosCache();
+        return total == 0 ? 0.0 : (double) aciertos / total;
+    }
+
+    /** Fracción de tramos resueltos con una ruta en L, sin correr A* (0 si no hubo tramos). */
+    public double getTasaRutasDirectas() {
+        long directas = getRutasDirectas();
+        long total = directas + getBusquedasAStar();
+        return total == 0 ? 0.0 : (double) directas / total;
+    }
+}
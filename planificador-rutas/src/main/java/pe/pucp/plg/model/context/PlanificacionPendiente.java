@@ -0,0 +1,39 @@
+package pe.pucp.plg.model.context;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.Ruta;
+
+/**
+ * Planificación de rutas que corre en segundo plano mientras la simulación sigue avanzando.
+ * Las rutas devueltas indexan sus pedidos según {@link #getPedidos()}, la lista fijada al
+ * lanzar el cálculo; se aplican en el siguiente minuto después de conciliarlas con el
+ * estado real.
+ */
+public class PlanificacionPendiente {
+
+    private final Future<List<Ruta>> resultado;
+    private final List<Pedido> pedidos;
+    private final LocalDateTime tiempoBase;
+
+    public PlanificacionPendiente(Future<List<Ruta>> resultado, List<Pedido> pedidos, LocalDateTime tiempoBase) {
+        this.resultado = resultado;
+        this.pedidos = List.copyOf(pedidos);
+        this.tiempoBase = tiempoBase;
+    }
+
+    public Future<List<Ruta>> getResultado() { return resultado; }
+    public List<Pedido> getPedidos() { return pedidos; }
+    public LocalDateTime getTiempoBase() { return tiempoBase; }
+
+    public boolean estaLista() {
+        return resultado.isDone();
+    }
+
+    public void cancelar() {
+        resultado.cancel(true);
+    }
+}
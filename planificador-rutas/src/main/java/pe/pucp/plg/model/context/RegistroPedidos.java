@@ -0,0 +1,321 @@
+package pe.pucp.plg.model.context;
+
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
+
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Pedidos de un contexto, indexados por ID. Se recorren en orden de llegada (como la lista
+ * que reemplaza), pero buscar y quitar un pedido es O(1) en lugar de O(n).
+ *
+ * Además los clasifica por {@link Estado}, que se deriva de los flags del pedido y se
+ * actualiza cuando el pedido avisa de un cambio (ver {@link Pedido#setObservador}):
+ * <ul>
+ *   <li>los pendientes se mantienen ordenados por plazo (y llegada), que es justo el orden
+ *       en que se toman los candidatos a planificar;</li>
+ *   <li>un montículo por plazo de los que pueden colapsar (ni entregados, ni descartados,
+ *       ni en entrega) hace que detectar un colapso sea mirar la cima. Es perezoso: las
+ *       entradas que dejaron de valer se descartan al llegar arriba.</li>
+ * </ul>
+ * Así el costo por minuto depende de los pedidos que cambian, no del total acumulado. Los
+ * plazos se comparan como minutos del reloj ({@link Pedido#getMinutoLimite()}); un pedido sin
+ * límite va al final y nunca vence.
+ *
+ * Los IDs son únicos dentro de un contexto (la memoria de feromonas ya los usa como clave);
+ * añadir otro pedido con un ID en uso es un error.
+ */
+public class RegistroPedidos extends AbstractCollection<Pedido> {
+
+    /** Estado de un pedido en su ciclo de vida, según sus flags. */
+    public enum Estado {
+        /** Sin programar (candidato a planificar). */
+        PENDIENTE,
+        PROGRAMADO,
+        EN_ENTREGA,
+        ENTREGADO,
+        DESCARTADO;
+
+        static Estado de(Pedido p) {
+            if (p.isDescartado()) return DESCARTADO;
+            if (p.isAtendido()) return ENTREGADO;
+            if (!p.isProgramado()) return PENDIENTE;
+            return p.isEnEntrega() ? EN_ENTREGA : PROGRAMADO;
+        }
+    }
+
+    private static final class Entrada {
+        final Pedido pedido;
+        final long llegada;
+        Estado estado;
+        // Plazo con el que está ordenada en el conjunto de pendientes
+        int plazo;
+        // Su entrada vigente en el montículo, o null; las demás que queden son viejas
+        Plazo vigilado;
+
+        Entrada(Pedido pedido, long llegada) {
+            this.pedido = pedido;
+            this.llegada = llegada;
+        }
+    }
+
+    /**
+     * Copia del plazo al entrar al montículo. Vale sólo mientras sea la vigente de su entrada
+     * (por identidad): ir y volver a un plazo deja dos copias iguales y sólo una debe vencer.
+     */
+    private record Plazo(int plazo, long llegada, Entrada entrada) { }
+
+    /** Plazo sin límite: después de cualquier minuto. */
+    private static final int SIN_PLAZO = Integer.MAX_VALUE;
+
+    private final Map<String, Entrada> porId = new LinkedHashMap<>();
+    private final Map<Estado, Set<Entrada>> porEstado = new EnumMap<>(Estado.class);
+    private final PriorityQueue<Plazo> plazos = new PriorityQueue<>(
+            Comparator.comparingInt(Plazo::plazo).thenComparingLong(Plazo::llegada));
+    private long llegadas;
+
+    public RegistroPedidos() {
+        for (Estado e : Estado.values()) {
+            porEstado.put(e, e == Estado.PENDIENTE
+                    ? new TreeSet<>(Comparator.<Entrada>comparingInt(en -> en.plazo)
+                            .thenComparingLong(en -> en.llegada))
+                    : new LinkedHashSet<>());
+        }
+    }
+
+    public RegistroPedidos(Collection<? extends Pedido> pedidos) {
+        this();
+        addAll(pedidos);
+    }
+
+    /** El pedido con ese ID, o null si no está. */
+    public Pedido get(String id) {
+        Entrada e = porId.get(id);
+        return e == null ? null : e.pedido;
+    }
+
+    public boolean containsId(String id) {
+        return porId.containsKey(id);
+    }
+
+    /**
+     * Pendientes (sin programar) creados antes de t, ordenados por plazo y, a igual plazo,
+     * por llegada.
+     */
+    public List<Pedido> pendientesPorPlazo(LocalDateTime t) {
+        List<Pedido> pendientes = new ArrayList<>();
+        for (Entrada e : porEstado.get(Estado.PENDIENTE)) {
+            if (e.pedido.getTiempoCreacion().isBefore(t)) {
+                pendientes.add(e.pedido);
+            }
+        }
+        return pendientes;
+    }
+
+    /** Pedidos en ese estado (vista de sólo lectura). */
+    public Collection<Pedido> enEstado(Estado estado) {
+        return Collections.unmodifiableCollection(new AbstractCollection<>() {
+            @Override
+            public Iterator<Pedido> iterator() {
+                Iterator<Entrada> it = porEstado.get(estado).iterator();
+                return new Iterator<>() {
+                    @Override public boolean hasNext() { return it.hasNext(); }
+                    @Override public Pedido next() { return it.next().pedido; }
+                };
+            }
+
+            @Override
+            public int size() {
+                return porEstado.get(estado).size();
+            }
+        });
+    }
+
+    /**
+     * Minuto del plazo más próximo entre los pedidos que pueden colapsar, o
+     * {@link Integer#MAX_VALUE} si no hay.
+     */
+    public int proximoPlazo() {
+        Plazo cima = cimaValida();
+        return cima == null ? SIN_PLAZO : cima.plazo();
+    }
+
+    public List<Pedido> vencidos(LocalDateTime t) {
+        return vencidos(RelojSimulacion.minuto(t));
+    }
+
+    /**
+     * Saca del montículo los pedidos que pueden colapsar con plazo anterior al minuto y los
+     * devuelve en orden de llegada. No los quita del registro.
+     */
+    public List<Pedido> vencidos(int minuto) {
+        List<Entrada> vencidas = new ArrayList<>();
+        for (Plazo cima = cimaValida(); cima != null && minuto > cima.plazo(); cima = cimaValida()) {
+            plazos.poll();
+            cima.entrada().vigilado = null;
+            vencidas.add(cima.entrada());
+        }
+        vencidas.sort(Comparator.comparingLong(e -> e.llegada));
+        List<Pedido> pedidos = new ArrayList<>(vencidas.size());
+        for (Entrada e : vencidas) {
+            pedidos.add(e.pedido);
+        }
+        return pedidos;
+    }
+
+    @Override
+    public boolean add(Pedido pedido) {
+        Entrada previa = porId.get(pedido.getId());
+        if (previa != null) {
+            if (previa.pedido != pedido) {
+                throw new IllegalStateException("Ya hay otro pedido con ID " + pedido.getId());
+            }
+            return false;
+        }
+        Entrada e = new Entrada(pedido, llegadas++);
+        porId.put(pedido.getId(), e);
+        clasificar(e);
+        pedido.setObservador(this::estadoCambiado);
+        return true;
+    }
+
+    /** Quita el pedido (por identidad, como hacía la lista). */
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Pedido pedido)) {
+            return false;
+        }
+        Entrada e = porId.get(pedido.getId());
+        if (e == null || e.pedido != pedido) {
+            return false;
+        }
+        quitar(e);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Pedido pedido)) {
+            return false;
+        }
+        Entrada e = porId.get(pedido.getId());
+        return e != null && e.pedido == pedido;
+    }
+
+    @Override
+    public Iterator<Pedido> iterator() {
+        Iterator<Entrada> it = porId.values().iterator();
+        return new Iterator<>() {
+            Entrada actual;
+
+            @Override
+            public boolean hasNext() { return it.hasNext(); }
+
+            @Override
+            public Pedido next() {
+                actual = it.next();
+                return actual.pedido;
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                desclasificar(actual);
+                actual = null;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return porId.size();
+    }
+
+    @Override
+    public void clear() {
+        for (Entrada e : new ArrayList<>(porId.values())) {
+            quitar(e);
+        }
+    }
+
+    // ------------------------------------------------------------------
+
+    private void estadoCambiado(Pedido pedido) {
+        Entrada e = porId.get(pedido.getId());
+        if (e == null || e.pedido != pedido) {
+            return; // ya no es de este registro
+        }
+        Estado estado = Estado.de(pedido);
+        if (estado != e.estado || (estado == Estado.PENDIENTE && plazoDe(pedido) != e.plazo)) {
+            porEstado.get(e.estado).remove(e);
+            clasificar(e);
+        } else {
+            vigilarPlazo(e);
+        }
+    }
+
+    private void clasificar(Entrada e) {
+        e.estado = Estado.de(e.pedido);
+        e.plazo = plazoDe(e.pedido);
+        porEstado.get(e.estado).add(e);
+        vigilarPlazo(e);
+    }
+
+    /** Entra (otra vez) al montículo si puede colapsar y no está, o si cambió de plazo. */
+    private void vigilarPlazo(Entrada e) {
+        int plazo = plazoDe(e.pedido);
+        if (puedeColapsar(e.pedido) && (e.vigilado == null || plazo != e.vigilado.plazo())) {
+            e.vigilado = new Plazo(plazo, e.llegada, e);
+            plazos.add(e.vigilado);
+        }
+    }
+
+    private Plazo cimaValida() {
+        Plazo cima;
+        while ((cima = plazos.peek()) != null) {
+            Entrada e = cima.entrada();
+            if (cima == e.vigilado && porId.get(e.pedido.getId()) == e && puedeColapsar(e.pedido)
+                    && cima.plazo() != SIN_PLAZO && cima.plazo() == plazoDe(e.pedido)) {
+                return cima;
+            }
+            plazos.poll();
+            if (cima == e.vigilado) {
+                e.vigilado = null;
+            }
+        }
+        return null;
+    }
+
+    private static int plazoDe(Pedido p) {
+        return p.getTiempoLimite() == null ? SIN_PLAZO : p.getMinutoLimite();
+    }
+
+    private static boolean puedeColapsar(Pedido p) {
+        return !p.isAtendido() && !p.isDescartado() && !p.isEnEntrega();
+    }
+
+    private void quitar(Entrada e) {
+        porId.remove(e.pedido.getId());
+        desclasificar(e);
+    }
+
+    private void desclasificar(Entrada e) {
+        porEstado.get(e.estado).remove(e);
+        e.vigilado = null; // su entrada en el montículo se descarta al llegar a la cima
+        e.pedido.setObservador(null);
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
 import pe.pucp.plg.model.template.CamionTemplate;
 
 public class CamionEstado {
@@ -36,6 +37,10 @@ public class CamionEstado {
      * Se mantiene separado de tiempoLibre (recargas/servicios programados).
      */
     private LocalDateTime tiempoLibreAveria; 
+    // tiempoLibre y tiempoLibreAveria en minutos del reloj, redondeados hacia arriba: libre en
+    // el minuto m si m >= minutoLibre. RelojSimulacion.NUNCA cuando el tiempo es null.
+    private int minutoLibre = RelojSimulacion.NUNCA;
+    private int minutoLibreAveria = RelojSimulacion.NUNCA;
     private LocalDateTime tiempoInicioAveria; // Nuevo: instante en que inicia la avería
     private boolean enRetorno = false; 
     private TruckStatus status = TruckStatus.AVAILABLE;
@@ -81,8 +86,8 @@ public class CamionEstado {
         this.pasoActual = 0;
         this.reabastecerEnTanque = null;
         this.status = TruckStatus.AVAILABLE; 
-        this.tiempoLibre = null;
-        this.tiempoLibreAveria = null; 
+        setTiempoLibre(null);
+        setTiempoLibreAveria(null);
     }
 
     public CamionEstado(CamionEstado original) {
@@ -102,8 +107,8 @@ public class CamionEstado {
         this.pasoActual = original.pasoActual;
         this.reabastecerEnTanque = (original.reabastecerEnTanque != null) ? new TanqueDinamico(original.reabastecerEnTanque) : null;
         this.status = original.status;
-        this.tiempoLibre = original.tiempoLibre;
-        this.tiempoLibreAveria = original.tiempoLibreAveria;
+        setTiempoLibre(original.tiempoLibre);
+        setTiempoLibreAveria(original.tiempoLibreAveria);
         this.tipoAveriaActual = original.tipoAveriaActual;
     }
     
@@ -120,7 +125,12 @@ public class CamionEstado {
     public TruckStatus getStatus() { return status; }
     public LocalDateTime getTiempoLibre() { return tiempoLibre; }
     public LocalDateTime getTiempoLibreAveria() { return tiempoLibreAveria; }
-    public void setTiempoLibreAveria(LocalDateTime nuevo) { this.tiempoLibreAveria = nuevo; }
+    public void setTiempoLibreAveria(LocalDateTime nuevo) {
+        this.tiempoLibreAveria = nuevo;
+        this.minutoLibreAveria = techo(nuevo);
+    }
+    public int getMinutoLibre() { return minutoLibre; }
+    public int getMinutoLibreAveria() { return minutoLibreAveria; }
     public LocalDateTime getRetHora() { return retHora; }
     public int getRetStartX() { return retStartX; }
     public int getRetStartY() { return retStartY; }
@@ -141,7 +151,10 @@ public class CamionEstado {
     // Setters for cloned instances used by ACOPlanner
     public void setCapacidadDisponible(double nuevaCapacidad) { this.capacidadDisponible = nuevaCapacidad; }
     public void setCombustibleDisponible(double nuevoCombustible) { this.combustibleActual = nuevoCombustible; }
-    public void setTiempoLibre(LocalDateTime nuevoTiempoLibre) { this.tiempoLibre = nuevoTiempoLibre; }
+    public void setTiempoLibre(LocalDateTime nuevoTiempoLibre) {
+        this.tiempoLibre = nuevoTiempoLibre;
+        this.minutoLibre = techo(nuevoTiempoLibre);
+    }
     public void setX(int x) { this.x = x; }
     public void setY(int y) { this.y = y; }   
     public void setStatus(TruckStatus newStatus) { this.status = newStatus; }
@@ -191,9 +204,23 @@ public class CamionEstado {
     }
 
     public boolean estaLibre(LocalDateTime tiempoActual) {
-        return (this.status == TruckStatus.AVAILABLE)
-           && (this.tiempoLibre == null || !this.tiempoLibre.isAfter(tiempoActual))
-           && (this.tiempoLibreAveria == null || !this.tiempoLibreAveria.isAfter(tiempoActual));
+        return estaLibre(RelojSimulacion.minuto(tiempoActual));
+    }
+
+    /** ¿Disponible en ese minuto del reloj? */
+    public boolean estaLibre(int minuto) {
+        return this.status == TruckStatus.AVAILABLE
+           && minutoLibre <= minuto
+           && minutoLibreAveria <= minuto;
+    }
+
+    /** ¿Sin avería pendiente en ese minuto del reloj? */
+    public boolean libreDeAveria(int minuto) {
+        return minutoLibreAveria <= minuto;
+    }
+
+    private static int techo(LocalDateTime t) {
+        return t == null ? RelojSimulacion.NUNCA : RelojSimulacion.minutoTecho(t);
     }
 
     public void recargarCombustible() { 
@@ -214,6 +241,28 @@ public class CamionEstado {
     moverA(next);
 }
 
+    /**
+     * Equivale a {@code n} llamadas a {@link #avanzarUnPaso} (o menos, si la ruta se acaba):
+     * el consumo se acumula paso a paso para que el resultado sea idéntico.
+     * @return los pasos avanzados
+     */
+    public int avanzarPasos(int n) {
+        int pasos = Math.min(n, rutaActual.size());
+        if (pasos <= 0) return 0;
+        double pesoTotal = CamionTemplate.getPesoTara() + (getCapacidadDisponible() * CamionTemplate.getPesoCargoPorM3());
+        double gasto = pesoTotal / 180.0;
+        for (int i = 0; i < pasos; i++) {
+            consumoAcumulado += gasto;
+            combustibleActual -= gasto;
+            combustibleGastado += gasto;
+        }
+        pasoActual += pasos;
+        Point destino = rutaActual.get(pasos - 1);
+        rutaActual.subList(0, pasos).clear();
+        moverA(destino);
+        return pasos;
+    }
+
     public void moverA(Point p) {
         x = p.x;
         y = p.y;
@@ -232,8 +281,8 @@ public class CamionEstado {
         history.clear();
         reabastecerEnTanque = null;
         status = TruckStatus.AVAILABLE;
-        tiempoLibre = null;
-        tiempoLibreAveria = null;
+        setTiempoLibre(null);
+        setTiempoLibreAveria(null);
         enRetorno = false;
         enTaller = false; // Reiniciar estado de taller
     }
@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 
 import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.RelojSimulacion;
 import pe.pucp.plg.model.context.ExecutionContext;
 
 @Service
@@ -26,6 +27,7 @@ public class BlockageService {
         if (bloqueosQueInicianAhora != null) {
             for (Bloqueo b : bloqueosQueInicianAhora) {
                 contexto.addBloqueoActivo(b);
+                contexto.getCacheRutas().avanzarEpoca(b);
                 b.setLastKnownState(Bloqueo.Estado.ACTIVO);
                 System.out.printf("🚧 Bloqueo activado: %s%n", b.getDescription());
             }
@@ -34,10 +36,12 @@ public class BlockageService {
         // 2. Revisar la lista de activos (que siempre es pequeña) para desactivar los que terminaron
         // Esta parte de tu lógica ya era eficiente y se mantiene.
         List<Bloqueo> bloqueosActivos = new ArrayList<>(contexto.getBloqueosActivos());
+        int minutoActual = RelojSimulacion.minuto(tiempoActual);
         for (Bloqueo b : bloqueosActivos) {
-            if (!b.isActiveAt(tiempoActual)) {
+            if (!b.isActiveAt(minutoActual)) {
                 if (b.getLastKnownState() == Bloqueo.Estado.ACTIVO) {
                     contexto.removeBloqueoActivo(b);
+                    contexto.getCacheRutas().avanzarEpoca(b);
                     b.setLastKnownState(Bloqueo.Estado.TERMINADO);
                     System.out.printf("✅ Bloqueo finalizado: %s%n", b.getDescription());
                 }
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Service;
 
 import pe.pucp.plg.model.common.EntregaEvent;
 import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
 import pe.pucp.plg.model.context.ExecutionContext;
 import pe.pucp.plg.model.state.CamionEstado;
 import pe.pucp.plg.model.state.TanqueDinamico;
@@ -31,13 +32,10 @@ public class DeliveryEventService {
     public void triggerScheduledDeliveries(LocalDateTime tiempoActual, ExecutionContext contexto) {
 
         List<EntregaEvent> nuevosEventos = new ArrayList<>();
+        int minutoActual = RelojSimulacion.minuto(tiempoActual);
 
-        // Mientras haya eventos en la cola Y el siguiente evento sea para AHORA
-        while (!contexto.getEventosEntrega().isEmpty() && 
-            !contexto.getEventosEntrega().peek().time.isAfter(tiempoActual)) {
-
-            // Saca el evento de la cola
-            EntregaEvent ev = contexto.getEventosEntrega().poll();
+        // Saca de una vez todos los eventos vencidos (los de AHORA y algún atrasado), en orden
+        for (EntregaEvent ev : contexto.getEventosEntrega().extraerHasta(minutoActual)) {
             // ——— 2) Log de procesamiento de cada evento ——————————
             System.out.printf(
                 "⌛ Procesando EntregaEvent → camión=%s pedido=%s programado para %s%n",
@@ -45,8 +43,8 @@ public class DeliveryEventService {
                 ev.getPedido() != null ? ev.getPedido().getId() : "RETORNO",
                 ev.time
             );
-            // Compara el valor del tiempo, no la referencia del objeto
-            if (!ev.time.equals(tiempoActual)) {
+            // Sólo los de este minuto; los atrasados se descartan
+            if (ev.getMinuto() != minutoActual) {
                 continue;
             }
 
@@ -95,6 +93,7 @@ public class DeliveryEventService {
                 double antes = camion.getCapacidadDisponible();
                 camion.setCapacidadDisponible(antes - pedido.getVolumen());
                 pedido.setAtendido(true); 
+                contexto.getMemoriaFeromonas().olvidarPedido(pedido.getId());
                 contexto.setTotalPedidosEntregados(contexto.getTotalPedidosEntregados() + 1);
                 // Eliminar pedido de la lista de pedidos
                 contexto.getPedidos().remove(pedido);
@@ -14,9 +14,7 @@ public class FleetService {
     private final int TIEMPO_SERVICIO = 15;
 
     public CamionEstado findCamion(String camionId, ExecutionContext estado) {
-        return estado.getCamiones().stream()
-                .filter(c -> c.getPlantilla().getId().equals(camionId))
-                .findFirst().orElse(null);
+        return estado.getCamion(camionId);
     }
 
     public void avanzar(ExecutionContext contexto, LocalDateTime tiempoActual) {
@@ -52,14 +50,12 @@ public class FleetService {
                     c.setCombustibleDisponible(c.getPlantilla().getCapacidadCombustible()); 
                     c.setTiempoLibre(tiempoActual.plusMinutes(TIEMPO_SERVICIO));
                     c.getPedidosCargados().clear();
-                    for(TanqueDinamico t : contexto.getTanques()) {
-                        if (t.getPosX() == c.getX() && t.getPosY() == c.getY()) {
-                            if(t.equals(contexto.getTanques().get(0))) {
-                                c.setTiempoLibre(tiempoActual);
-                            }
-                            c.setTanqueOrigen(t);
-                            break;
+                    TanqueDinamico t = contexto.obtenerTanquePorPosicion(c.getX(), c.getY());
+                    if (t != null) {
+                        if(t.equals(contexto.getTanques().get(0))) {
+                            c.setTiempoLibre(tiempoActual);
                         }
+                        c.setTanqueOrigen(t);
                     }
                 }
                 continue;
@@ -76,6 +72,18 @@ public class FleetService {
         }
     }
 
-    
+    /**
+     * Lo mismo que {@code minutos} llamadas a {@link #avanzar} en minutos sin eventos: sólo se
+     * mueven los camiones en ruta. Quien llama garantiza que ningún camión en retorno termina
+     * su ruta en ese tramo (ver {@link NextEventService}).
+     */
+    public void avanzarMinutos(ExecutionContext contexto, int minutos) {
+        for (CamionEstado c : contexto.getCamiones()) {
+            if (c.getStatus() == CamionEstado.TruckStatus.DELIVERING || c.getStatus() == CamionEstado.TruckStatus.RETURNING) {
+                int pasos = c.avanzarPasos(minutos);
+                contexto.setTotalDistanciaRecorrida(contexto.getTotalDistanciaRecorrida() + pasos);
+            }
+        }
+    }
 
 }
\ No newline at end of file
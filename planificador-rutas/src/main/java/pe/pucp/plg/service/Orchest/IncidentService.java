@@ -14,6 +14,7 @@ import java.util.Map;
 import pe.pucp.plg.model.common.Averia;
 import pe.pucp.plg.model.common.EntregaEvent;
 import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
 import pe.pucp.plg.model.context.ExecutionContext;
 import pe.pucp.plg.model.state.CamionEstado;
 
@@ -33,6 +34,7 @@ public class IncidentService {
         
         // Determinar el turno actual
         String turnoActual = turnoDeDateTime(tiempoActual);
+        int minutoActual = RelojSimulacion.minuto(tiempoActual);
         
         // Si cambió el turno, limpiar estados de averías anteriores
         if (!turnoActual.equals(contexto.getTurnoAnterior())) {
@@ -65,7 +67,7 @@ public class IncidentService {
                 }
             } else {
 
-                if (c != null && (c.getTiempoLibreAveria() == null || !c.getTiempoLibreAveria().isAfter(tiempoActual))){
+                if (c != null && c.libreDeAveria(minutoActual)){
 
                     if (aplicarAveria(c, datoaveria, tiempoActual, turnoActual, contexto, key)) {
                         replanificar = true;
@@ -99,7 +101,7 @@ public class IncidentService {
             }
 
             // Si el camión está disponible o su tiempo libre ha expirado
-            if (c != null && (c.getTiempoLibreAveria() == null || !c.getTiempoLibreAveria().isAfter(tiempoActual))) {
+            if (c != null && c.libreDeAveria(minutoActual)) {
                 it.remove();
                 // Restaurar estado del camión tras reparación
                 // Reiniciar estado de taller para futuras averías
@@ -242,14 +244,9 @@ public class IncidentService {
      * Remueve todos los eventos de entrega pendientes para un camión específico.
      */
     private void removerEventosEntregaDeCamion(String camionId, ExecutionContext contexto) {
-        Iterator<EntregaEvent> itEv = contexto.getEventosEntrega().iterator();
-        while (itEv.hasNext()) {
-            EntregaEvent ev = itEv.next();
-            if (ev.getCamionId().equals(camionId)) {
-                if (ev.getPedido() != null) {
-                    ev.getPedido().setProgramado(false); // Liberar el pedido
-                }
-                itEv.remove();
+        for (EntregaEvent ev : contexto.getEventosEntrega().cancelarCamion(camionId)) {
+            if (ev.getPedido() != null) {
+                ev.getPedido().setProgramado(false); // Liberar el pedido
             }
         }
     }
@@ -0,0 +1,120 @@
+package pe.pucp.plg.service.Orchest;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import pe.pucp.plg.model.common.Averia;
+import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.EntregaEvent;
+import pe.pucp.plg.model.common.RelojSimulacion;
+import pe.pucp.plg.model.context.ExecutionContext;
+import pe.pucp.plg.model.state.CamionEstado;
+
+/**
+ * Calcula el siguiente minuto en que {@code stepOneMinute} hace algo más que mover camiones
+ * un paso: entregas, pedidos nuevos, bloqueos que empiezan o terminan, cambio de turno o de
+ * día, mantenimientos, averías, retornos que llegan, pedidos que vencen y replanificación
+ * periódica. Los minutos anteriores se pueden saltar de golpe con
+ * {@link FleetService#avanzarMinutos}.
+ *
+ * Ante la duda se elige el minuto más próximo: parar de más sólo cuesta un paso normal.
+ */
+@Service
+public class NextEventService {
+
+    private static final int MINUTOS_TURNO = 480;
+    private static final int MINUTOS_DIA = 1440;
+
+    private final FleetService fleetService;
+
+    @Autowired
+    public NextEventService(FleetService fleetService) {
+        this.fleetService = fleetService;
+    }
+
+    /**
+     * @param minutosHastaReplan minutos hasta que el contador de replanificación periódica llegue
+     *                           a su intervalo
+     * @return el siguiente minuto con algo que procesar; como pronto, {@code tiempoActual + 1}
+     */
+    public LocalDateTime proximoInstante(ExecutionContext contexto, LocalDateTime tiempoActual, int minutosHastaReplan) {
+        // Todo en minutos del reloj; sólo el resultado vuelve a LocalDateTime
+        int ahora = RelojSimulacion.minuto(tiempoActual);
+        int siguiente = ahora + 1;
+
+        // Planificación asíncrona en curso: su resultado se aplica en cuanto termine
+        if (contexto.getPlanificacionPendiente() != null) {
+            return RelojSimulacion.instante(siguiente);
+        }
+
+        int proximo = ahora + Math.max(1, minutosHastaReplan);
+
+        // Cambio de turno (T1/T2/T3) y medianoche: averías, recarga de tanques, datos del día
+        int minutoDelDia = Math.floorMod(ahora, MINUTOS_DIA);
+        int inicioDia = ahora - minutoDelDia;
+        proximo = Math.min(proximo, inicioDia + (minutoDelDia / MINUTOS_TURNO + 1) * MINUTOS_TURNO);
+
+        // Mantenimiento del primer minuto de la simulación
+        if (contexto.getFechaInicio() != null) {
+            int primerMinuto = contexto.getReloj().minutoDesdeInicio(1);
+            if (primerMinuto > ahora) proximo = Math.min(proximo, primerMinuto);
+        }
+
+        EntregaEvent evento = contexto.getEventosEntrega().peek();
+        if (evento != null) proximo = Math.min(proximo, evento.getMinuto());
+
+        LocalDateTime pedidoNuevo = contexto.getPedidosPorTiempo().higherKey(tiempoActual);
+        if (pedidoNuevo != null) proximo = Math.min(proximo, RelojSimulacion.minutoTecho(pedidoNuevo));
+
+        LocalDateTime bloqueoNuevo = contexto.getBloqueosPorTiempo().higherKey(tiempoActual);
+        if (bloqueoNuevo != null) proximo = Math.min(proximo, RelojSimulacion.minutoTecho(bloqueoNuevo));
+        for (Bloqueo b : contexto.getBloqueosActivos()) {
+            if (b.getLastKnownState() == Bloqueo.Estado.ACTIVO) proximo = Math.min(proximo, b.getMinutoFin());
+        }
+
+        // Colapso: el primer minuto posterior al límite de un pedido sin atender
+        int plazo = contexto.getPedidos().proximoPlazo();
+        if (plazo != Integer.MAX_VALUE) proximo = Math.min(proximo, plazo + 1);
+
+        for (CamionEstado c : contexto.getCamiones()) {
+            // Retorno: llega el minuto siguiente a su último paso
+            if (c.getStatus() == CamionEstado.TruckStatus.RETURNING) {
+                proximo = Math.min(proximo, ahora + c.getRutaActual().size() + 1);
+            }
+            // Fin de una avería
+            if (c.getTiempoLibreAveria() != null) proximo = Math.min(proximo, c.getMinutoLibreAveria());
+            // Avería de archivo: el minuto en que llega al paso sorteado
+            Integer punto = contexto.getPuntosAveria().get(c.getPlantilla().getId());
+            if (punto != null && c.getStatus() == CamionEstado.TruckStatus.DELIVERING) {
+                int faltan = punto - c.getPasoActual();
+                if (faltan >= 1 && faltan <= c.getRutaActual().size()) {
+                    proximo = Math.min(proximo, ahora + faltan);
+                }
+            }
+        }
+
+        // Traslado al taller de los camiones con avería T2/T3
+        for (String camionId : contexto.getCamionesInhabilitados()) {
+            CamionEstado c = fleetService.findCamion(camionId, contexto);
+            if (c == null || c.isEnTaller() || c.getTiempoInicioAveria() == null) continue;
+            int inicioAveria = RelojSimulacion.minutoTecho(c.getTiempoInicioAveria());
+            if ("T2".equals(c.getTipoAveriaActual())) proximo = Math.min(proximo, inicioAveria + 121);
+            if ("T3".equals(c.getTipoAveriaActual())) proximo = Math.min(proximo, inicioAveria + 241);
+        }
+
+        // Averías manuales del turno aún sin aplicar: se aplican en cuanto el camión esté libre
+        String turno = minutoDelDia < MINUTOS_TURNO ? "T1" : minutoDelDia < 2 * MINUTOS_TURNO ? "T2" : "T3";
+        for (Map.Entry<String, Averia> entry : contexto.getAveriasPorTurno().getOrDefault(turno, Map.of()).entrySet()) {
+            if (entry.getValue().isFromFile() || contexto.getAveriasAplicadas().contains(turno + "_" + entry.getKey())) continue;
+            CamionEstado c = fleetService.findCamion(entry.getKey(), contexto);
+            if (c != null && c.libreDeAveria(ahora)) {
+                return RelojSimulacion.instante(siguiente);
+            }
+        }
+
+        return RelojSimulacion.instante(Math.max(proximo, siguiente));
+    }
+}
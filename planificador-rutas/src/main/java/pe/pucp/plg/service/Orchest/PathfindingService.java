@@ -2,6 +2,7 @@ package pe.pucp.plg.service.Orchest;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -16,8 +17,12 @@ import org.springframework.stereotype.Service;
 
 import java.awt.Point;
 
-import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Mapa;
+import pe.pucp.plg.model.common.RelojSimulacion;
+import pe.pucp.plg.model.context.CacheRutas;
 import pe.pucp.plg.model.context.ExecutionContext;
+import pe.pucp.plg.service.algorithm.GridAStar;
 
 @Service
 public class PathfindingService {
@@ -43,7 +48,94 @@ public class PathfindingService {
         }
     }
     
+    /**
+     * Busca una ruta con A* considerando los bloqueos vigentes en cada minuto de llegada.
+     * Dentro del mapa prueba primero una ruta directa en L y, si no está libre, usa el
+     * motor primitivo {@link GridAStar}; fuera de él recurre
+     * a la búsqueda basada en objetos.
+     *
+     * @return la ruta sin el punto de partida, o null si no existe
+     */
     public List<Point> findPathAStar(Point start, Point end, LocalDateTime startTime, ExecutionContext estado) {
+        if (!Mapa.dentro(start.x, start.y) || !Mapa.dentro(end.x, end.y)) {
+            return findPathAStarObjetos(start, end, IndiceBloqueos.minuto(startTime), estado);
+        }
+        int[] celdas = buscarCeldas(start.x, start.y, end.x, end.y,
+                IndiceBloqueos.minuto(startTime), estado.getIndiceBloqueos(), estado);
+        return celdas != null ? aPuntos(celdas) : null;
+    }
+
+    /**
+     * Tiempos de viaje (en minutos) desde un origen hacia varios destinos con una sola búsqueda
+     * que respeta los bloqueos en cada minuto de llegada. Da los mismos tiempos que
+     * {@link #findPathAStar} para cada destino por separado.
+     *
+     * @return un tiempo por destino, en el mismo orden; -1 si no hay ruta
+     */
+    public int[] tiemposDesde(Point origen, List<Point> destinos, LocalDateTime tiempoInicial, ExecutionContext estado) {
+        return tiemposUnoAMuchos(origen, destinos, tiempoInicial, estado, false);
+    }
+
+    /**
+     * Variante inversa: tiempos de viaje desde varios orígenes (p. ej. los camiones) hacia un
+     * mismo destino (p. ej. un pedido) con una sola búsqueda que parte del destino.
+     * Como se recorre al revés, los bloqueos se evalúan con el estado de {@code tiempoInicial};
+     * sirve para elegir candidatos, y la ruta definitiva se construye con {@link #findPathAStar}.
+     *
+     * @return un tiempo por origen, en el mismo orden; -1 si no hay ruta
+     */
+    public int[] tiemposHacia(Point destino, List<Point> origenes, LocalDateTime tiempoInicial, ExecutionContext estado) {
+        return tiemposUnoAMuchos(destino, origenes, tiempoInicial, estado, true);
+    }
+
+    private int[] tiemposUnoAMuchos(Point fuente, List<Point> puntos, LocalDateTime tiempoInicial,
+                                    ExecutionContext estado, boolean inversa) {
+        int[] tiempos = new int[puntos.size()];
+        if (!Mapa.dentro(fuente.x, fuente.y)) {
+            // Fuera del mapa no hay índice por celdas: se resuelve tramo por tramo
+            for (int i = 0; i < puntos.size(); i++) {
+                Point q = puntos.get(i);
+                List<Point> ruta = inversa ? findPathAStar(q, fuente, tiempoInicial, estado)
+                                           : findPathAStar(fuente, q, tiempoInicial, estado);
+                tiempos[i] = ruta != null ? ruta.size() : -1;
+            }
+            return tiempos;
+        }
+        int[] objetivos = new int[puntos.size()];
+        int enMapa = 0;
+        for (Point q : puntos) {
+            if (Mapa.dentro(q.x, q.y)) objetivos[enMapa++] = Mapa.celda(q.x, q.y);
+        }
+        int[] distancias = new int[enMapa];
+        GridAStar.distancias(fuente.x, fuente.y, IndiceBloqueos.minuto(tiempoInicial), inversa,
+                estado.getIndiceBloqueos(), Arrays.copyOf(objetivos, enMapa), distancias);
+        int k = 0;
+        for (int i = 0; i < puntos.size(); i++) {
+            Point q = puntos.get(i);
+            if (Mapa.dentro(q.x, q.y)) {
+                tiempos[i] = distancias[k++];
+            } else {
+                List<Point> ruta = inversa ? findPathAStar(q, fuente, tiempoInicial, estado)
+                                           : findPathAStar(fuente, q, tiempoInicial, estado);
+                tiempos[i] = ruta != null ? ruta.size() : -1;
+            }
+        }
+        return tiempos;
+    }
+
+    /** Ruta en L si está libre; si no, A*. */
+    private int[] buscarCeldas(int sx, int sy, int ex, int ey, int minuto, IndiceBloqueos indice, ExecutionContext estado) {
+        int[] celdas = GridAStar.rutaDirecta(sx, sy, ex, ey, minuto, indice);
+        if (celdas != null) {
+            estado.getMetricasRuteo().registrarRutaDirecta();
+            return celdas;
+        }
+        estado.getMetricasRuteo().registrarBusquedaAStar();
+        return GridAStar.buscar(sx, sy, ex, ey, minuto, indice);
+    }
+
+    private List<Point> findPathAStarObjetos(Point start, Point end, int minutoInicio, ExecutionContext estado) {
+        IndiceBloqueos indice = estado.getIndiceBloqueos();
         PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingInt(node -> node.fCost));
         Set<Point> closedSet = new HashSet<>();
         Map<Point, Node> allNodes = new HashMap<>();
@@ -62,7 +154,7 @@ public class PathfindingService {
             closedSet.add(currentNode.position);
 
             for (Point neighborPos : getNeighbors(currentNode.position)) {
-                LocalDateTime tiempoLlegadaVecino = startTime.plusMinutes(currentNode.gCost + 1);
+                int tiempoLlegadaVecino = minutoInicio + currentNode.gCost + 1;
 
                 // 1. ¿El vecino que estamos evaluando es el destino final?
                 boolean esDestinoFinal = neighborPos.equals(end);
@@ -71,8 +163,8 @@ public class PathfindingService {
                 boolean enElPuntoDePartidaOriginal = currentNode.position.equals(start);
 
                 // 3. El movimiento hacia el vecino está bloqueado si el vecino está bloqueado...
-                boolean movimientoBloqueado = isBlockedMove(neighborPos.x, neighborPos.y, tiempoLlegadaVecino, estado) ||
-                                            (isBlockedMove(currentNode.position.x, currentNode.position.y, tiempoLlegadaVecino, estado) && !enElPuntoDePartidaOriginal);
+                boolean movimientoBloqueado = indice.estaBloqueado(neighborPos.x, neighborPos.y, tiempoLlegadaVecino) ||
+                                            (indice.estaBloqueado(currentNode.position.x, currentNode.position.y, tiempoLlegadaVecino) && !enElPuntoDePartidaOriginal);
 
                 // 4. La condición final completa para ignorar un vecino:
                 if (closedSet.contains(neighborPos) || (movimientoBloqueado && !esDestinoFinal)) {
@@ -98,17 +190,16 @@ public class PathfindingService {
         return null; // No path found
     }
 
-    private int manhattanDistance(Point a, Point b) {
-        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
+    private List<Point> aPuntos(int[] celdas) {
+        List<Point> ruta = new ArrayList<>(celdas.length);
+        for (int celda : celdas) {
+            ruta.add(new Point(Mapa.x(celda), Mapa.y(celda)));
+        }
+        return ruta;
     }
 
-    private boolean isBlockedMove(int x, int y, LocalDateTime t, ExecutionContext estado) {
-        for (Bloqueo b : estado.getBloqueosPorDia()) { 
-            if (b.isActiveAt(t) && b.estaBloqueado(t, new Point(x, y))) {
-                return true;
-            }
-        }
-        return false;
+    private int manhattanDistance(Point a, Point b) {
+        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
     }
 
     
@@ -125,19 +216,54 @@ public class PathfindingService {
      * @return Lista de puntos que forman la ruta
      */
     public List<Point> buildManhattanPath(int x1, int y1, int x2, int y2, LocalDateTime tiempoInicial, ExecutionContext estado) {
+        return buildManhattanPath(x1, y1, x2, y2, IndiceBloqueos.minuto(tiempoInicial), estado);
+    }
+
+    /** Igual que {@link #buildManhattanPath(int, int, int, int, LocalDateTime, ExecutionContext)}, con el inicio en minutos del reloj. */
+    public List<Point> buildManhattanPath(int x1, int y1, int x2, int y2, int minutoInicial, ExecutionContext estado) {
         if (x1 == x2 && y1 == y2) {
             return Collections.emptyList();
         }
-        List<Point> path = new ArrayList<>();
-        path = findPathAStar(new Point(x1, y1), new Point(x2, y2), tiempoInicial, estado);
+        List<Point> path;
+        if (Mapa.dentro(x1, y1) && Mapa.dentro(x2, y2)) {
+            path = buscarConCache(x1, y1, x2, y2, minutoInicial, estado);
+        } else {
+            path = findPathAStarObjetos(new Point(x1, y1), new Point(x2, y2), minutoInicial, estado);
+        }
         if (path == null || path.isEmpty()) {
             System.err.printf("Error: No hay ruta de (%d,%d) a (%d,%d) en %s debido a bloqueos%n", 
-                    x1, y1, x2, y2, tiempoInicial);
+                    x1, y1, x2, y2, RelojSimulacion.instante(minutoInicial));
             return Collections.emptyList();
         }
         return path;
     }
 
+    /** Resuelve el tramo con la caché de rutas del contexto; si no sirve, corre A* y guarda el resultado. */
+    private List<Point> buscarConCache(int x1, int y1, int x2, int y2, int minuto, ExecutionContext estado) {
+        IndiceBloqueos indice = estado.getIndiceBloqueos();
+        CacheRutas cache = estado.getCacheRutas();
+        int origen = Mapa.celda(x1, y1), destino = Mapa.celda(x2, y2);
+
+        int[] celdas = GridAStar.rutaDirecta(x1, y1, x2, y2, minuto, indice);
+        if (celdas != null) {
+            estado.getMetricasRuteo().registrarRutaDirecta();
+            return aPuntos(celdas);
+        }
+        celdas = cache.buscar(origen, destino, minuto, indice);
+        if (celdas != null) {
+            estado.getMetricasRuteo().registrarAciertoCache();
+            return aPuntos(celdas);
+        }
+        estado.getMetricasRuteo().registrarFalloCache();
+        estado.getMetricasRuteo().registrarBusquedaAStar();
+        celdas = GridAStar.buscar(x1, y1, x2, y2, minuto, indice);
+        if (celdas == null) {
+            return null;
+        }
+        cache.guardar(origen, destino, minuto, celdas, indice);
+        return aPuntos(celdas);
+    }
+
     private List<Point> getNeighbors(Point p) {
         List<Point> neighbors = new ArrayList<>();
         neighbors.add(new Point(p.x + 1, p.y));
@@ -1,21 +1,32 @@
 package pe.pucp.plg.service.Orchest;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.awt.Point;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
 import pe.pucp.plg.model.common.EntregaEvent;
 import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
 import pe.pucp.plg.model.common.Ruta;
 import pe.pucp.plg.model.context.ExecutionContext;
+import pe.pucp.plg.model.context.PlanificacionPendiente;
 import pe.pucp.plg.model.state.CamionEstado;
 import pe.pucp.plg.model.state.TanqueDinamico;
-import pe.pucp.plg.service.algorithm.ACOPlanner;
+import pe.pucp.plg.service.algorithm.PlanificadorPorRegiones;
+import pe.pucp.plg.service.algorithm.ProblemaPlanificacion;
+import pe.pucp.plg.service.algorithm.RoutePlanner;
+import pe.pucp.plg.service.algorithm.MatrizTiempos;
 
 @Service
 public class PlanningService {
@@ -23,16 +34,46 @@ public class PlanningService {
     private final PathfindingService pathfindingService;
     private final FleetService fleetService;
     private final IncidentService incidentService;
-    private final ACOPlanner acoPlanner;
+    // Motores de planificación disponibles, por nombre; cada simulación elige el suyo
+    private final Map<String, RoutePlanner> motores = new LinkedHashMap<>();
+    // Instancias grandes: se resuelven por regiones en paralelo
+    private final PlanificadorPorRegiones regiones;
 
     private final int TIEMPO_SERVICIO = 15;
 
+    // Modo asíncrono: el motor corre en otro hilo mientras la simulación sigue avanzando, y
+    // su resultado se aplica en el siguiente minuto (ver aplicarPlanificacionPendiente).
+    // Urgentes y desvíos se resuelven igual en el momento. Un hilo por planificación para que
+    // las simulaciones concurrentes no esperen unas a otras (cada contexto tiene a lo sumo una).
+    private final boolean asincrona;
+    private final ExecutorService planificador;
+
     @Autowired
-    public PlanningService(PathfindingService pathfindingService, FleetService fleetService, IncidentService incidentService, ACOPlanner acoPlanner) {
+    public PlanningService(PathfindingService pathfindingService, FleetService fleetService, IncidentService incidentService, List<RoutePlanner> planificadores,
+                           PlanificadorPorRegiones regiones,
+                           @Value("${planificacion.asincrona:false}") boolean asincrona) {
         this.pathfindingService = pathfindingService;
         this.fleetService = fleetService;
         this.incidentService = incidentService;
-        this.acoPlanner = acoPlanner;
+        this.regiones = regiones;
+        for (RoutePlanner motor : planificadores) {
+            if (motores.put(motor.nombre(), motor) != null) {
+                throw new IllegalStateException("Dos planificadores con el nombre " + motor.nombre());
+            }
+        }
+        this.asincrona = asincrona;
+        this.planificador = asincrona ? Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "planificador-rutas");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
     }
 
     public LocalDateTime replanificar(ExecutionContext contexto, List<CamionEstado> flotaEstado, List<Pedido> candidatos, LocalDateTime tiempoActual, boolean replanificar) {
@@ -45,17 +86,22 @@ public class PlanningService {
                 return tiempoActual;
             }
             System.out.println("Se está replanificando...");
+            // Una planificación en segundo plano aún sin aplicar queda obsoleta: se recalcula
+            contexto.cancelarPlanificacionPendiente();
+
+            // Tiempos reales camión→pedido y pedido→pedido, una sola vez por replanificación
+            MatrizTiempos tiempos = MatrizTiempos.construir(contexto.getCamiones(), candidatos, tiempoActual, contexto.getIndiceBloqueos());
 
             // A) cancelar y desprogramar — sólo si hay camiones
             Set<String> ids = candidatos.stream().map(Pedido::getId).collect(Collectors.toSet());
-            contexto.getEventosEntrega().removeIf(ev -> ev.getPedido()!=null && ids.contains(ev.getPedido().getId()));
+            contexto.getEventosEntrega().cancelarPedidos(ids);
             candidatos.forEach(p -> {
                 p.setProgramado(false);
                 p.setHoraEntregaProgramada(null);
                 });
 
             // 1) Asigna urgentes (≤ 2h) vía método
-            asignarPedidosUrgentes(candidatos, contexto, tiempoActual);
+            asignarPedidosUrgentes(candidatos, contexto, tiempoActual, tiempos);
 
             // 2) Elimina los urgentes de candidatos
             candidatos.removeIf(p -> p.isProgramado());
@@ -64,12 +110,13 @@ public class PlanningService {
             for (Pedido p : candidatos) {
                 CamionEstado mejor = null;
                 int mejorDist = Integer.MAX_VALUE;
-                // Encuentra el mejor camión para desvío
+                // Encuentra el mejor camión para desvío (tiempo real al pedido, con bloqueos)
                 for (CamionEstado c : contexto.getCamiones()) {
                     if (c.getStatus() == CamionEstado.TruckStatus.UNAVAILABLE || c.getStatus() == CamionEstado.TruckStatus.BREAKDOWN || c.getStatus() == CamionEstado.TruckStatus.MAINTENANCE) continue;
                     if (c.getCapacidadDisponible() < p.getVolumen()) continue;
-                    int dist = Math.abs(c.getX() - p.getX()) + Math.abs(c.getY() - p.getY());
-                    if (esDesvioValido(c, p, tiempoActual, contexto) && dist < mejorDist) {
+                    int dist = tiempos.tiempo(c, p);
+                    if (dist < 0) continue; // sin ruta
+                    if (esDesvioValido(c, p, dist, tiempoActual, contexto) && dist < mejorDist) {
                         mejor = c;
                         mejorDist = dist;
                     }
@@ -124,9 +171,7 @@ public class PlanningService {
 
                         // 4) Limpiar eventos previos sin capturar 'mejor' en el lambda
                         final String camionId = mejor.getPlantilla().getId();
-                        contexto.getEventosEntrega().removeIf(ev ->
-                                ev.getCamionId().equals(camionId)
-                        );
+                        contexto.getEventosEntrega().cancelarCamion(camionId);
 
                         // 5) Programar un EntregaEvent para cada parada, en orden
                         scheduleTime = tiempoActual;
@@ -159,12 +204,10 @@ public class PlanningService {
 
                         // SI ESTABA RETURNING
                         if(mejor.getStatus() == CamionEstado.TruckStatus.RETURNING && mejor.getTanqueDestinoRecarga() != null) {
-                            for(TanqueDinamico t : contexto.getTanques()) {
-                                if (t.getPosX() == mejor.getTanqueDestinoRecarga().getPosX() &&
-                                    t.getPosY() == mejor.getTanqueDestinoRecarga().getPosY()) {
-                                    t.setDisponible(t.getDisponible() + mejor.getPlantilla().getCapacidadCarga() - mejor.getCapacidadDisponible());
-                                    break;
-                                }
+                            TanqueDinamico t = contexto.obtenerTanquePorPosicion(mejor.getTanqueDestinoRecarga().getPosX(),
+                                    mejor.getTanqueDestinoRecarga().getPosY());
+                            if (t != null) {
+                                t.setDisponible(t.getDisponible() + mejor.getPlantilla().getCapacidadCarga() - mejor.getCapacidadDisponible());
                             }
                             mejor.setEnRetorno(false);
                             mejor.setReabastecerEnTanque(null);
@@ -196,8 +239,7 @@ public class PlanningService {
 
                         // limpiar TODOS los eventos pendientes de este camión
                         CamionEstado cam = mejor;
-                        contexto.getEventosEntrega()
-                                .removeIf(ev -> ev.getCamionId().equals(cam.getPlantilla().getId()));
+                        contexto.getEventosEntrega().cancelarCamion(cam.getPlantilla().getId());
 
                         // programar SOLO el evento de llegada al pedido desviado
                         contexto.getEventosEntrega()
@@ -211,66 +253,238 @@ public class PlanningService {
             }
 
 
-            // C) El resto va al ACO habitual
+            // C) El resto va al motor de planificación de la simulación (ACO por defecto)
             if (!sinAsignar.isEmpty()) {
                 /*System.out.printf("📦 ACO recibe pedidos sin asignar: %s%n",
                         sinAsignar.stream().map(Pedido::getId).collect(Collectors.toList()));*/
                 sinAsignar.removeIf(p -> p.isProgramado() || p.isAtendido());
-                List<Ruta> rutas = acoPlanner.planificarRutas(sinAsignar, flotaEstado, tiempoActual, contexto);
+                if (asincrona) {
+                    lanzarPlanificacion(contexto, flotaEstado, sinAsignar, tiempoActual, tiempos);
+                    return tiempoActual;
+                }
+                List<Ruta> rutas = regiones.planificar(motor(contexto), problema(contexto, flotaEstado, sinAsignar, tiempoActual, tiempos));
 
-                aplicarRutas(tiempoActual, rutas, sinAsignar, contexto);
+                aplicarRutas(tiempoActual, rutas, sinAsignar, contexto, tiempos);
                 contexto.setRutas(rutas);
+                recordarPlan(contexto, rutas, sinAsignar);
             }
         }   
         return tiempoActual;
     }
+    /** Motor elegido para la simulación. */
+    private RoutePlanner motor(ExecutionContext contexto) {
+        RoutePlanner motor = motores.get(contexto.getPlanificador());
+        if (motor == null) {
+            throw new IllegalStateException("Planificador desconocido: " + contexto.getPlanificador() + " (disponibles: " + motores.keySet() + ")");
+        }
+        return motor;
+    }
+
+    /** Nombres de los motores disponibles, para validar la solicitud de una simulación. */
+    public Set<String> getPlanificadores() {
+        return Collections.unmodifiableSet(motores.keySet());
+    }
+
+    private ProblemaPlanificacion problema(ExecutionContext contexto, List<CamionEstado> flotaEstado, List<Pedido> pedidos,
+                                           LocalDateTime tiempoActual, MatrizTiempos tiempos) {
+        return new ProblemaPlanificacion(pedidos, flotaEstado, tiempoActual, tiempos,
+                contexto.getMemoriaFeromonas(), contexto.getPlanAnterior(),
+                contexto.getIslasAco(), contexto.getIntervaloMigracion());
+    }
+
+    /** Guarda, por ids, el plan aplicado, para que el siguiente lo pueda reparar en lugar de empezar de cero. */
+    private void recordarPlan(ExecutionContext contexto, List<Ruta> rutas, List<Pedido> pedidos) {
+        Map<String, List<String>> plan = new HashMap<>();
+        for (Ruta r : rutas) {
+            List<String> ids = new ArrayList<>(r.getPedidoIds().size());
+            for (int idx : r.getPedidoIds()) ids.add(pedidos.get(idx).getId());
+            plan.put(r.getCamionId(), ids);
+        }
+        contexto.setPlanAnterior(plan);
+    }
+
+    /**
+     * Lanza el motor en segundo plano sobre una foto fija ({@link ProblemaPlanificacion}): los
+     * clones de la flota, la lista de pedidos (sólo se leen sus datos fijos) y la matriz de
+     * tiempos ya calculada.
+     */
+    private void lanzarPlanificacion(ExecutionContext contexto, List<CamionEstado> flotaEstado, List<Pedido> pedidos,
+                                     LocalDateTime tiempoActual, MatrizTiempos tiempos) {
+        if (pedidos.isEmpty()) {
+            return;
+        }
+        RoutePlanner motor = motor(contexto);
+        ProblemaPlanificacion problema = problema(contexto, flotaEstado, pedidos, tiempoActual, tiempos);
+        contexto.setPlanificacionPendiente(new PlanificacionPendiente(
+                planificador.submit(() -> regiones.planificar(motor, problema)),
+                problema.getPedidos(), tiempoActual));
+        System.out.printf("🧵 [%s] Planificación en segundo plano lanzada en t=%s con %d pedidos%n",
+                motor.nombre().toUpperCase(), tiempoActual, pedidos.size());
+    }
+
+    /**
+     * Si la planificación en segundo plano terminó, la concilia con el estado actual y la
+     * aplica. Debe llamarse en el hilo de la simulación, al inicio de la fase de planificación
+     * del minuto.
+     * <ul>
+     *   <li>Se quitan de las rutas los pedidos ya entregados, descartados o programados por
+     *       otra vía (urgentes, desvíos) mientras se calculaba.</li>
+     *   <li>Se descartan las rutas de camiones que ya no pueden operar (avería, mantenimiento,
+     *       en desvío); sus pedidos quedan pendientes para la próxima replanificación.</li>
+     *   <li>Se recorta cada ruta a los pedidos que aún caben en la capacidad y el combustible
+     *       reales y cuyo plazo sigue alcanzándose desde donde está ahora el camión, con el
+     *       mismo criterio que los planificadores (cada tramo, desde el nodo anterior, llega
+     *       antes del límite del pedido). Los pedidos quitados quedan pendientes.</li>
+     *   <li>La distancia y el consumo de cada ruta se recalculan con las posiciones actuales
+     *       (los del plan salían de la foto), y las rutas se aplican con esa misma matriz.</li>
+     * </ul>
+     */
+    public void aplicarPlanificacionPendiente(ExecutionContext contexto, LocalDateTime tiempoActual) {
+        PlanificacionPendiente pendiente = contexto.getPlanificacionPendiente();
+        if (pendiente == null || !pendiente.estaLista()) {
+            return;
+        }
+        contexto.setPlanificacionPendiente(null);
+
+        List<Ruta> rutas;
+        try {
+            rutas = pendiente.getResultado().get();
+        } catch (CancellationException e) {
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            System.err.printf("❌ [Planificador] Falló la planificación en segundo plano de t=%s: %s%n",
+                    pendiente.getTiempoBase(), e.getCause());
+            return;
+        }
+
+        // 1) Pedidos que siguen pendientes, con su nuevo índice
+        List<Pedido> foto = pendiente.getPedidos();
+        List<Pedido> vigentes = new ArrayList<>(foto.size());
+        int[] nuevoIndice = new int[foto.size()];
+        int descartados = 0;
+        for (int i = 0; i < foto.size(); i++) {
+            Pedido p = foto.get(i);
+            if (p.isAtendido() || p.isDescartado() || p.isProgramado()) {
+                nuevoIndice[i] = -1;
+                descartados++;
+                continue;
+            }
+            nuevoIndice[i] = vigentes.size();
+            vigentes.add(p);
+        }
+        if (vigentes.isEmpty()) {
+            return;
+        }
+
+        // 2) Reparar las rutas contra la flota real y el minuto actual, con una matriz de
+        //    tiempos desde las posiciones de ahora
+        MatrizTiempos tiempos = MatrizTiempos.construir(contexto.getCamiones(), vigentes, tiempoActual, contexto.getIndiceBloqueos());
+        int minutoActual = RelojSimulacion.minuto(tiempoActual);
+        int fueraDePlazo = 0;
+        List<Ruta> reparadas = new ArrayList<>(rutas.size());
+        for (Ruta r : rutas) {
+            CamionEstado real = fleetService.findCamion(r.getCamionId(), contexto);
+            if (real == null
+                    || real.getStatus() == CamionEstado.TruckStatus.UNAVAILABLE
+                    || real.getStatus() == CamionEstado.TruckStatus.BREAKDOWN
+                    || real.getStatus() == CamionEstado.TruckStatus.MAINTENANCE
+                    || real.getPedidoDesvio() != null) {
+                descartados += r.getPedidoIds().size();
+                continue;
+            }
+            int fila = tiempos.filaCamion(real.getPlantilla().getId());
+            double tara = real.getPlantilla().getTara() / 1000.0;
+            double disponible = real.getCapacidadDisponible();
+            double combustible = real.getCombustibleActual();
+            Ruta reparada = new Ruta(r.getCamionId());
+            List<Integer> ids = new ArrayList<>(r.getPedidoIds().size());
+            int anterior = -1; // columna del último pedido que se mantiene; -1: el camión
+            for (int idx : r.getPedidoIds()) {
+                int nuevo = nuevoIndice[idx];
+                if (nuevo < 0) continue;
+                Pedido p = vigentes.get(nuevo);
+                int col = tiempos.columnaPedido(p.getId());
+                int dist = anterior < 0 ? tiempos.camionAPedido(fila, col) : tiempos.pedidoAPedido(anterior, col);
+                if (dist < 0 || MatrizTiempos.minutosViaje(dist) > p.getMinutoLimite() - minutoActual) {
+                    fueraDePlazo++;
+                    continue;
+                }
+                // Mismo modelo de consumo que los planificadores
+                double galones = dist * (tara + p.getVolumen() * 0.5) / 180.0;
+                if (p.getVolumen() > disponible || galones > combustible) {
+                    descartados++;
+                    continue;
+                }
+                disponible -= p.getVolumen();
+                combustible -= galones;
+                reparada.distancia += dist;
+                reparada.consumo += galones;
+                anterior = col;
+                ids.add(nuevo);
+            }
+            reparada.setPedidoIds(ids);
+            reparadas.add(reparada);
+        }
+
+        System.out.printf("🔄 [Planificador] Plan de t=%s aplicado en t=%s: %d rutas, %d asignaciones descartadas en la conciliación (%d fuera de plazo)%n",
+                pendiente.getTiempoBase(), tiempoActual, reparadas.size(), descartados + fueraDePlazo, fueraDePlazo);
+        aplicarRutas(tiempoActual, reparadas, vigentes, contexto, tiempos);
+        contexto.setRutas(reparadas);
+        recordarPlan(contexto, reparadas, vigentes);
+    }
+
     private void asignarPedidosUrgentes(List<Pedido> candidatos,
                                         ExecutionContext contexto,
-                                        LocalDateTime tiempoActual) {
-        // 1) Filtrar pedidos urgentes (≤ 2 h restantes)
+                                        LocalDateTime tiempoActual,
+                                        MatrizTiempos tiempos) {
+        // 1) Filtrar pedidos urgentes (≤ 2 h restantes, en horas enteras: menos de 3 h)
+        int minutoActual = RelojSimulacion.minuto(tiempoActual);
         List<Pedido> urgentes = candidatos.stream()
-                .filter(p -> Duration.between(tiempoActual, p.getTiempoLimite()).toHours() <= 2)
+                .filter(p -> p.getMinutoLimite() - minutoActual < 3 * 60)
                 .collect(Collectors.toList());
 
-        // 2) Para cada urgente, encontrar el camión con menor tiempo de viaje real
+        // 2) Para cada urgente, encontrar el camión con menor tiempo de viaje real.
+        //    Los tiempos de todos los camiones salen de la matriz de la replanificación;
+        //    la ruta real se construye sólo para el elegido (o el siguiente, si no hubiera ruta).
         for (Pedido p : urgentes) {
             CamionEstado mejorCamion = null;
             List<Point> mejorRuta = null;
             int mejorTiempo = Integer.MAX_VALUE;
 
+            Point destino = new Point(p.getX(), p.getY());
+            List<CamionEstado> candidatosCamion = new ArrayList<>();
             for (CamionEstado c : contexto.getCamiones()) {
                 // Sólo camiones libres y con suficiente capacidad
                 if (c.getStatus() != CamionEstado.TruckStatus.AVAILABLE) continue;
                 if (c.getCapacidadDisponible() < p.getVolumen()) continue;
-                if (!esDesvioValido(c, p, tiempoActual, contexto)) continue;
+                if (!esDesvioValido(c, p, tiempos.tiempo(c, p), tiempoActual, contexto)) continue;
+                candidatosCamion.add(c);
+            }
+            // El más rápido primero; a igual tiempo, el orden de la flota
+            candidatosCamion.sort(Comparator.comparingInt(c -> tiempos.tiempo(c, p)));
 
+            for (CamionEstado c : candidatosCamion) {
                 // -- CASO ESPECIAL: mismo punto --
-                Point origen  = new Point(c.getX(), c.getY());
-                Point destino = new Point(p.getX(), p.getY());
+                Point origen = new Point(c.getX(), c.getY());
                 List<Point> ruta;
-                int travelTime;
                 if (origen.equals(destino)) {
                     // Pedido en el almacén, no hay desplazamiento
-                    ruta       = Collections.emptyList();
-                    travelTime = 0;
+                    ruta = Collections.emptyList();
                 } else {
                     // Ruta normal con A* (considera bloqueos)
-                    ruta = pathfindingService.findPathAStar(
-                            origen, destino, tiempoActual, contexto
-                    );
+                    ruta = pathfindingService.findPathAStar(origen, destino, tiempoActual, contexto);
                     if (ruta == null) {
-                        // no hay ruta válida; saltamos este camión
+                        // no hay ruta válida; probamos el siguiente camión
                         continue;
                     }
-                    travelTime = ruta.size();
-                }
-
-                // Comparar y quedarnos con el camión más rápido
-                if (travelTime < mejorTiempo) {
-                    mejorTiempo = travelTime;
-                    mejorCamion = c;
-                    mejorRuta   = ruta;
                 }
+                mejorCamion = c;
+                mejorRuta = ruta;
+                mejorTiempo = ruta.size();
+                break;
             }
 
             // 3) Si encontramos un camión, programar la entrega urgente
@@ -297,7 +511,7 @@ public class PlanningService {
             }
         }
     }
-    public void aplicarRutas(LocalDateTime tiempoActual, List<Ruta> rutas, List<Pedido> activos, ExecutionContext contexto) {
+    public void aplicarRutas(LocalDateTime tiempoActual, List<Ruta> rutas, List<Pedido> activos, ExecutionContext contexto, MatrizTiempos tiempos) {
         rutas.removeIf(r -> r.getPedidoIds() == null || r.getPedidoIds().isEmpty());
         if (rutas.isEmpty()) {
             // Fallback: para cada pedido pendiente, busca el camión disponible más cercano
@@ -307,8 +521,8 @@ public class PlanningService {
                 for (CamionEstado c : contexto.getCamiones()) {
                     if (c.getStatus() != CamionEstado.TruckStatus.AVAILABLE) continue;
                     if (c.getCapacidadDisponible() < p.getVolumen()) continue;
-                    int d = Math.abs(c.getX() - p.getX()) + Math.abs(c.getY() - p.getY());
-                    if (d < distMin) {
+                    int d = tiempos.tiempo(c, p);
+                    if (d >= 0 && d < distMin) {
                         distMin = d;
                         mejor = c;
                     }
@@ -323,6 +537,8 @@ public class PlanningService {
                     } else {
                         path = pathfindingService.buildManhattanPath(mejor.getX(), mejor.getY(), p.getX(), p.getY(), tiempoActual, contexto);
                     }
+                    // Sin ruta real (bloqueos): no se programa; se reintenta en la próxima replanificación
+                    if (minutosTramo(path, mejor.getX(), mejor.getY(), p.getX(), p.getY()) < 0) continue;
 
                     mejor.setRuta(path);    
                     mejor.setPasoActual(0);
@@ -366,15 +582,12 @@ public class PlanningService {
             if (deliveringOrReturning) {
                 // 1) Si venía retornando, cancela el evento de retorno y limpia estado
                 if (camion.getStatus() == CamionEstado.TruckStatus.RETURNING) {
-                    for(TanqueDinamico t : contexto.getTanques()) {
-                        if (t.getPosX() == camion.getTanqueDestinoRecarga().getPosX() &&
-                            t.getPosY() == camion.getTanqueDestinoRecarga().getPosY()) {
-                            t.setDisponible(t.getDisponible() + camion.getPlantilla().getCapacidadCarga() - camion.getCapacidadDisponible());
-                            break;
-                        }
+                    TanqueDinamico t = contexto.obtenerTanquePorPosicion(camion.getTanqueDestinoRecarga().getPosX(),
+                            camion.getTanqueDestinoRecarga().getPosY());
+                    if (t != null) {
+                        t.setDisponible(t.getDisponible() + camion.getPlantilla().getCapacidadCarga() - camion.getCapacidadDisponible());
                     }
-                    contexto.getEventosEntrega()
-                            .removeIf(ev -> ev.getCamionId().equals(camion.getPlantilla().getId()) && ev.getPedido() == null);
+                    contexto.getEventosEntrega().cancelarRetornos(camion.getPlantilla().getId());
                     camion.setEnRetorno(false);
                     camion.setStatus(CamionEstado.TruckStatus.AVAILABLE);
                     camion.getRutaActual().clear();
@@ -392,11 +605,6 @@ public class PlanningService {
                     if (p.getVolumen() > camion.getCapacidadDisponible()) {
                         continue;
                     }
-                    if (!esDesvioValido(camion, p, tiempoActual, contexto)) continue;
-
-                    // — reservo espacio —
-                    camion.setCapacidadDisponible(camion.getCapacidadDisponible() - p.getVolumen());
-
                     // — construyo sólo el tramo de desvío con chequeo “misma posición” —
                     Point origen  = new Point(camion.getX(), camion.getY());
                     Point destino = new Point(p.getX(),      p.getY());
@@ -413,8 +621,13 @@ public class PlanningService {
                                 contexto
                         );
                     }
+                    int tramo = minutosTramo(caminoDesvio, camion.getX(), camion.getY(), p.getX(), p.getY());
+                    if (!esDesvioValido(camion, p, tramo, tiempoActual, contexto)) continue;
+
+                    // — reservo espacio —
+                    camion.setCapacidadDisponible(camion.getCapacidadDisponible() - p.getVolumen());
 
-                    if (caminoDesvio != null && camion.getStatus() != CamionEstado.TruckStatus.BREAKDOWN && camion.getStatus() != CamionEstado.TruckStatus.MAINTENANCE) {
+                    if (camion.getStatus() != CamionEstado.TruckStatus.BREAKDOWN && camion.getStatus() != CamionEstado.TruckStatus.MAINTENANCE) {
                         // 1) Reemplaza la ruta actual por el tramo de desvío
                         camion.getRutaActual().clear();
                         camion.getRutaActual().addAll(caminoDesvio);
@@ -543,8 +756,8 @@ public class PlanningService {
             for (CamionEstado c : contexto.getCamiones()) {
                 if (c.getStatus() != CamionEstado.TruckStatus.AVAILABLE) continue;
                 if (c.getCapacidadDisponible() < p.getVolumen()) continue;
-                int d = Math.abs(c.getX() - p.getX()) + Math.abs(c.getY() - p.getY());
-                if (d < distMin) {
+                int d = tiempos.tiempo(c, p);
+                if (d >= 0 && d < distMin) {
                     distMin = d;
                     mejor = c;
                 }
@@ -564,6 +777,7 @@ public class PlanningService {
                             tiempoActual, contexto
                     );
                 }
+                if (minutosTramo(path, mejor.getX(), mejor.getY(), p.getX(), p.getY()) < 0) continue;
 
                 mejor.setRuta(path);
                 mejor.setPasoActual(0);
@@ -586,7 +800,11 @@ public class PlanningService {
     // ------------------------------------------------------------
     // Métodos privados auxiliares copiados de ACOPlanner original
     // ------------------------------------------------------------
-    private boolean esDesvioValido(CamionEstado c, Pedido p, LocalDateTime tiempoActual, ExecutionContext contexto) {
+    /**
+     * @param tiempoPrimerTramo minutos del camión al nuevo pedido (tomados de la matriz
+     *                          de tiempos), o -1 si no hay ruta
+     */
+    private boolean esDesvioValido(CamionEstado c, Pedido p, int tiempoPrimerTramo, LocalDateTime tiempoActual, ExecutionContext contexto) {
         // 1) Capacidad real remanente = total – lo ya en rutaPendiente
         double capacidadTotal = c.getCapacidadDisponible();
         double volumenEnRuta = c.getPedidosCargados().stream()
@@ -594,16 +812,14 @@ public class PlanningService {
                 .sum();
         double disponible = capacidadTotal - volumenEnRuta;
 
-        // 2) Simular tiempos
-        LocalDateTime hora = tiempoActual;
+        // 2) Simular tiempos (en minutos del reloj)
+        int hora = RelojSimulacion.minuto(tiempoActual);
         int prevX = c.getX(), prevY = c.getY();
 
         // — Primer tramo: al nuevo pedido —
-        List<Point> pathToNew = pathfindingService.buildManhattanPath(prevX, prevY, p.getX(), p.getY(), hora, contexto);
-        if (pathToNew == null) return false;
-        hora = hora.plusMinutes(pathToNew.size());
-        hora = hora.plusMinutes(TIEMPO_SERVICIO);
-        if (hora.isAfter(p.getTiempoLimite())) return false;
+        if (tiempoPrimerTramo < 0) return false;
+        hora += tiempoPrimerTramo + TIEMPO_SERVICIO;
+        if (hora > p.getMinutoLimite()) return false;
 
         // 3) Chequeo de capacidad para el nuevo pedido
         if (disponible < p.getVolumen()) return false;
@@ -614,10 +830,10 @@ public class PlanningService {
         // — Ahora los pedidos que ya estaba llevando —
         for (Pedido orig : c.getPedidosCargados()) {
             List<Point> pathSeg = pathfindingService.buildManhattanPath(prevX, prevY, orig.getX(), orig.getY(), hora, contexto);
-            if (pathSeg == null) return false;
-            hora = hora.plusMinutes(pathSeg.size());
-            hora = hora.plusMinutes(TIEMPO_SERVICIO);
-            if (hora.isAfter(orig.getTiempoLimite())) return false;
+            int tramo = minutosTramo(pathSeg, prevX, prevY, orig.getX(), orig.getY());
+            if (tramo < 0) return false;
+            hora += tramo + TIEMPO_SERVICIO;
+            if (hora > orig.getMinutoLimite()) return false;
 
             disponible -= orig.getVolumen();
             if (disponible < 0) return false;
@@ -628,10 +844,18 @@ public class PlanningService {
         return true;
     }
 
+    /**
+     * Minutos de un tramo ya construido, o -1 si no hay ruta: buildManhattanPath devuelve una
+     * lista vacía tanto para la misma celda como cuando los bloqueos cierran el paso.
+     */
+    private static int minutosTramo(List<Point> camino, int x1, int y1, int x2, int y2) {
+        return camino.isEmpty() && (x1 != x2 || y1 != y2) ? -1 : camino.size();
+    }
+
     private int posicionOptimaDeInsercion(CamionEstado c, Pedido pNuevo, LocalDateTime tiempoActual, ExecutionContext contexto) {
         List<Pedido> originales = c.getPedidosCargados();
         int mejorIdx = originales.size();
-        LocalDateTime mejorHoraEntrega = LocalDateTime.MAX;
+        int mejorHoraEntrega = Integer.MAX_VALUE;
 
         // Capacidad y posición de arranque reales del camión
         double capacidadOriginal = c.getCapacidadDisponible();
@@ -640,7 +864,7 @@ public class PlanningService {
         // Probar cada posible posición de inserción
         for (int idx = 0; idx <= originales.size(); idx++) {
             double disponible = capacidadOriginal;
-            LocalDateTime hora = tiempoActual;
+            int hora = RelojSimulacion.minuto(tiempoActual);
             int simX = x0, simY = y0;
 
             // Montamos la lista de pedidos en el orden de prueba
@@ -657,11 +881,11 @@ public class PlanningService {
                     break;
                 }
                 // 2) Tiempo de viaje = número de pasos
-                hora = hora.plusMinutes(path.size());
+                hora += path.size();
                 // 3) Tiempo de servicio (descarga)
-                hora = hora.plusMinutes(TIEMPO_SERVICIO);
+                hora += TIEMPO_SERVICIO;
                 // 4) Comprobar deadline
-                if (hora.isAfter(q.getTiempoLimite())) {
+                if (hora > q.getMinutoLimite()) {
                     valido = false;
                     break;
                 }
@@ -677,7 +901,7 @@ public class PlanningService {
             }
 
             // Si democrático y acaba antes (mejor horaEntrega), guardamos índice
-            if (valido && hora.isBefore(mejorHoraEntrega)) {
+            if (valido && hora < mejorHoraEntrega) {
                 mejorHoraEntrega = hora;
                 mejorIdx = idx;
             }
@@ -8,7 +8,6 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -68,6 +67,8 @@ public class SimulationStateService {
                 replanificar = true;
             }
         }
+        // Recompilar el índice de bloqueos con los del nuevo día (y sin los ya vencidos)
+        contexto.reconstruirIndiceBloqueos();
         maintenanceService.clearMaintenance(contexto);
     }
 
@@ -120,22 +121,19 @@ public class SimulationStateService {
 
     public boolean hayColapso(ExecutionContext contexto, LocalDateTime tiempoActual) {
         // ----------------------------------------------
-        // 6) Comprobar colapso: pedidos vencidos
-        Iterator<Pedido> itP = contexto.getPedidos().iterator();
-        boolean haColapsado = false;
-        while (itP.hasNext()) {
-            Pedido p = itP.next();
-            if (!p.isAtendido() && !p.isDescartado() && !p.isEnEntrega() && (tiempoActual.isAfter(p.getTiempoLimite().plusMinutes(2)) || tiempoActual.isAfter(p.getTiempoLimite()))) {
-                /*System.out.printf("💥 Colapso en t+%d, pedido %d incumplido%n",
-                        tiempoActual, p.getId());*/
-                // Marca y elimina para no repetir el colapso
-                contexto.setPedidoColapso(p.getId() + " (" + p.getX() + "," + p.getY() + ")");
-                p.setDescartado(true);
-                itP.remove();
-                haColapsado = true;
-            }
+        // 6) Comprobar colapso: pedidos sin entregar ni en entrega con el plazo ya vencido
+        // (la cima del montículo de plazos del registro)
+        List<Pedido> vencidos = contexto.getPedidos().vencidos(tiempoActual);
+        for (Pedido p : vencidos) {
+            /*System.out.printf("💥 Colapso en t+%d, pedido %d incumplido%n",
+                    tiempoActual, p.getId());*/
+            // Marca y elimina para no repetir el colapso
+            contexto.setPedidoColapso(p.getId() + " (" + p.getX() + "," + p.getY() + ")");
+            p.setDescartado(true);
+            contexto.getMemoriaFeromonas().olvidarPedido(p.getId());
+            contexto.getPedidos().remove(p);
         }
-        return haColapsado;
+        return !vencidos.isEmpty();
         
     }
 
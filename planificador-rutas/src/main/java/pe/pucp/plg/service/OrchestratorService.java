@@ -12,6 +12,7 @@ import pe.pucp.plg.service.Orchest.DeliveryEventService;
 import pe.pucp.plg.service.Orchest.FleetService;
 import pe.pucp.plg.service.Orchest.IncidentService;
 import pe.pucp.plg.service.Orchest.MaintenanceService;
+import pe.pucp.plg.service.Orchest.NextEventService;
 import pe.pucp.plg.service.Orchest.PathfindingService;
 import pe.pucp.plg.service.Orchest.PlanningService;
 import pe.pucp.plg.service.Orchest.SimulationStateService;
@@ -19,6 +20,7 @@ import pe.pucp.plg.service.algorithm.ACOPlanner;
 import pe.pucp.plg.util.MapperUtil;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,11 +37,11 @@ public class OrchestratorService {
     private final PathfindingService pathfindingService;
     private final ACOPlanner acoPlanner;
     private final EventPublisherService eventPublisher;
+    private final NextEventService nextEventService;
 
+    // Replanificación periódica cada tantos minutos; el contador va en cada contexto
     private static final int INTERVALO_REPLAN = 50; 
 
-    private int countReplan = 0;
-
     @Autowired 
     public OrchestratorService(
         SimulationStateService stateService,
@@ -51,7 +53,8 @@ public class OrchestratorService {
         PlanningService planningService,
         EventPublisherService eventPublisher,
         PathfindingService pathfindingService,
-        ACOPlanner acoPlanner
+        ACOPlanner acoPlanner,
+        NextEventService nextEventService
     ) {
         this.stateService = stateService;
         this.incidentService = incidentService;
@@ -63,7 +66,31 @@ public class OrchestratorService {
         this.eventPublisher = eventPublisher;
         this.pathfindingService = pathfindingService;
         this.acoPlanner = acoPlanner;
-        this.countReplan = 0;
+        this.nextEventService = nextEventService;
+    }
+
+    /**
+     * Avance por eventos: los minutos en que sólo se mueven camiones se saltan de una vez y el
+     * siguiente minuto con algo que procesar se ejecuta con {@link #stepOneMinute}. El estado
+     * queda igual que avanzando minuto a minuto; sólo no se publican los snapshots de los
+     * minutos saltados.
+     * @param limite último minuto a procesar
+     * @return el nuevo tiempo, o null si la simulación colapsó (igual que stepOneMinute)
+     */
+    public LocalDateTime avanzarHastaProximoEvento(ExecutionContext contexto, String simulationId, LocalDateTime limite) {
+        LocalDateTime tiempoActual = contexto.getCurrentTime();
+        int hastaReplan = INTERVALO_REPLAN - contexto.getContadorReplan() % INTERVALO_REPLAN;
+        LocalDateTime proximo = nextEventService.proximoInstante(contexto, tiempoActual, hastaReplan);
+        if (proximo.isAfter(limite)) {
+            proximo = limite;
+        }
+        int saltados = (int) ChronoUnit.MINUTES.between(tiempoActual, proximo) - 1;
+        if (saltados > 0) {
+            fleetService.avanzarMinutos(contexto, saltados);
+            contexto.setContadorReplan(contexto.getContadorReplan() + saltados);
+            contexto.setCurrentTime(tiempoActual.plusMinutes(saltados));
+        }
+        return stepOneMinute(contexto, simulationId);
     }
 
     /**
@@ -84,7 +111,8 @@ public class OrchestratorService {
         if (esMediaNoche) {
             stateService.accionesMediaNoche(contexto, tiempoActual, replanificar);
         }
-        countReplan++;
+        int countReplan = contexto.getContadorReplan() + 1;
+        contexto.setContadorReplan(countReplan);
 
         maintenanceService.processMaintenances(contexto, tiempoActual);
 
@@ -105,7 +133,7 @@ public class OrchestratorService {
         if ((countReplan % INTERVALO_REPLAN == 0 || countReplan == INTERVALO_REPLAN) && !replanificar) { 
             System.out.println("Replanificando");   
             replanificar = true;
-            countReplan = 0;
+            contexto.setContadorReplan(0);
         }
 
         if(stateService.hayColapso(contexto, tiempoActual) && !contexto.isIgnorarColapso()) {
@@ -118,6 +146,9 @@ public class OrchestratorService {
         // 7) Averías por turno (T1, T2, T3)
         replanificar |= incidentService.procesarAverias(contexto, tiempoActual);
 
+        // 7b) Aplicar, ya conciliada, la planificación en segundo plano si terminó
+        planningService.aplicarPlanificacionPendiente(contexto, tiempoActual);
+
         // 8) Construir estado “ligero” de la flota disponible para ACO
         List<CamionEstado> flotaEstado = contexto.getCamiones().stream()
                 .filter(c -> c.getStatus() != CamionEstado.TruckStatus.UNAVAILABLE
@@ -140,30 +171,32 @@ public class OrchestratorService {
         }
 
         // 9) Determinar candidatos a replanificar
-        List<Pedido> pendientes = contexto.getPedidos().stream()
-                .filter(p -> !p.isAtendido() && !p.isDescartado() && !p.isProgramado() && p.getTiempoCreacion().isBefore(tiempoActual))
-                .collect(Collectors.toList());
-        pendientes.sort(Comparator.comparing(Pedido::getTiempoLimite));
-        List<Pedido> candidatos = pendientes;
-        System.out.printf(
-                "⏲️ Replanificando en t=%s → camionesDisponibles=%d, pedidosPendientes=%d%n",
-                tiempoActual,
-                flotaEstado.size(),
-                candidatos.size()
-        );
+        // (los pendientes del registro, ya ordenados por plazo)
+        List<Pedido> candidatos = contexto.getPedidos().pendientesPorPlazo(tiempoActual);
+        if (!contexto.isSinInterfaz()) {
+            System.out.printf(
+                    "⏲️ Replanificando en t=%s → camionesDisponibles=%d, pedidosPendientes=%d%n",
+                    tiempoActual,
+                    flotaEstado.size(),
+                    candidatos.size()
+            );
+        }
         // 10) Replanificación ACO si procede
         planningService.replanificar(contexto, flotaEstado, candidatos, tiempoActual, replanificar);
-        System.out.printf(
-                "⏲️  stepOneMinute t=%s → flotaDisponibles=%d, pedidosPendientes=%d, replan=%s%n",
-                tiempoActual,
-                flotaEstado.size(),
-                candidatos.size(),
-                replanificar
-        );
         stateService.actualizarPedidosPorTanque(contexto);
 
-        EventDTO estadoActual = EventDTO.of(EventType.SNAPSHOT, MapperUtil.toSnapshotDTO(contexto));
-        eventPublisher.publicarEventoSimulacion(simulationId, estadoActual);
+        // Sin interfaz no se arma ni se publica el snapshot (ni el log) de cada minuto
+        if (!contexto.isSinInterfaz()) {
+            System.out.printf(
+                    "⏲️  stepOneMinute t=%s → flotaDisponibles=%d, pedidosPendientes=%d, replan=%s%n",
+                    tiempoActual,
+                    flotaEstado.size(),
+                    candidatos.size(),
+                    replanificar
+            );
+            EventDTO estadoActual = EventDTO.of(EventType.SNAPSHOT, MapperUtil.toSnapshotDTO(contexto));
+            eventPublisher.publicarEventoSimulacion(simulationId, estadoActual);
+        }
 
         return contexto.getCurrentTime();        
     }    
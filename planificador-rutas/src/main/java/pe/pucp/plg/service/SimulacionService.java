@@ -1,6 +1,7 @@
 package pe.pucp.plg.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import pe.pucp.plg.dto.*;
 import pe.pucp.plg.dto.enums.EventType;
@@ -10,17 +11,25 @@ import pe.pucp.plg.model.common.Pedido;
 import pe.pucp.plg.model.context.ExecutionContext;
 import pe.pucp.plg.model.control.SimulationControlState;
 import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.service.Orchest.PlanningService;
 import pe.pucp.plg.util.ResourceLoader;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import jakarta.annotation.PreDestroy;
 
 /**
  * Servicio responsable de la inicialización y ejecución de simulaciones.
@@ -33,16 +42,38 @@ public class SimulacionService {
     private final OrchestratorService orchestratorService;
     private final SimulationManagerService simulationManagerService;
     private final EventPublisherService eventPublisher;
+    private final PlanningService planningService;
+    // Sin interfaz: cada cuántos minutos simulados se publica SIMULATION_PROGRESS
+    private final long minutosEntreProgresos;
 
-    private Future<?> activeSimulationTask;
+    // Cada simulación en ejecución tiene su propio hilo (no el pool común) para que
+    // cancel(true) la interrumpa de verdad, incluida una replanificación ACO en curso
+    private final Map<String, ExecutorService> ejecutores = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> tareas = new ConcurrentHashMap<>();
+    // Límite global de simulaciones corriendo a la vez; las demás esperan turno
+    private final Semaphore permisos;
+    private final int maxConcurrentes;
     
     @Autowired
     public SimulacionService(OrchestratorService orchestratorService, 
                             SimulationManagerService simulationManagerService,
-                            EventPublisherService eventPublisher) {
+                            EventPublisherService eventPublisher,
+                            PlanningService planningService,
+                            @Value("${simulacion.sin-interfaz.progreso-min:60}") long minutosEntreProgresos,
+                            @Value("${simulacion.max-concurrentes:4}") int maxConcurrentes) {
+        if (maxConcurrentes <= 0) {
+            throw new IllegalArgumentException("simulacion.max-concurrentes debe ser positivo: " + maxConcurrentes);
+        }
+        this.maxConcurrentes = maxConcurrentes;
+        this.permisos = new Semaphore(maxConcurrentes, true);
+        if (minutosEntreProgresos <= 0) {
+            throw new IllegalArgumentException("simulacion.sin-interfaz.progreso-min debe ser positivo: " + minutosEntreProgresos);
+        }
+        this.minutosEntreProgresos = minutosEntreProgresos;
         this.orchestratorService = orchestratorService;
         this.simulationManagerService = simulationManagerService;
         this.eventPublisher = eventPublisher;
+        this.planningService = planningService;
     }
     
     /**
@@ -67,25 +98,42 @@ public class SimulacionService {
      * @return A DTO with the status and ID of the new simulation.
      */
     public SimulationStatusDTO iniciarSimulacion(SimulationRequest request) {
+        String simulationId = null;
         try {
-            // 1. Crear el contexto
-            String simulationId = simulationManagerService.crearContextoSimulacion(request.isEsColapso());
-            EventDTO eventoInicio = EventDTO.of(EventType.SIMULATION_STARTED, null); // No payload necesario o poner info básica
-            eventPublisher.publicarEventoSimulacion(simulationId, eventoInicio);
+            // 1. Validar la solicitud antes de crear nada: un error no deja contextos huérfanos
+            if (request.getFechaInicio() == null || request.getFechaInicio().isBlank()) {
+                throw new IllegalArgumentException("La fecha de inicio es obligatoria.");
+            }
+            LocalDate fechaInicio = LocalDate.parse(request.getFechaInicio(), DateTimeFormatter.ISO_LOCAL_DATE);
 
-            ExecutionContext currentSimContext = simulationManagerService.getActiveSimulationContext();
+            // Motor de planificación de rutas (ACO si no se indica)
+            String planificador = request.getPlanificador() == null || request.getPlanificador().isBlank()
+                    ? "aco" : request.getPlanificador().trim().toLowerCase();
+            if (!planningService.getPlanificadores().contains(planificador)) {
+                throw new IllegalArgumentException("Planificador desconocido: " + planificador
+                        + " (disponibles: " + planningService.getPlanificadores() + ")");
+            }
+            if (request.getIslasAco() != null && request.getIslasAco() <= 0) {
+                throw new IllegalArgumentException("islasAco debe ser positivo: " + request.getIslasAco());
+            }
+            if (request.getIntervaloMigracion() != null && request.getIntervaloMigracion() <= 0) {
+                throw new IllegalArgumentException("intervaloMigracion debe ser positivo: " + request.getIntervaloMigracion());
+            }
+
+            // 2. Crear el contexto
+            simulationId = simulationManagerService.crearContextoSimulacion(request.isEsColapso());
+            ExecutionContext currentSimContext = simulationManagerService.getSimulationContext(simulationId);
     
             if (currentSimContext == null) {
                 throw new RuntimeException("No se pudo crear el contexto de simulación.");
             }
-            
-            // 2. Validar la fecha de inicio
-            if (request.getFechaInicio() == null || request.getFechaInicio().isBlank()) {
-                throw new IllegalArgumentException("La fecha de inicio es obligatoria.");
-            }
-            
-            // 3. Convertir la fecha de inicio a LocalDate
-            LocalDate fechaInicio = LocalDate.parse(request.getFechaInicio(), DateTimeFormatter.ISO_LOCAL_DATE);
+
+            // 3. Parámetros de la simulación
+            currentSimContext.setPlanificador(planificador);
+            currentSimContext.setIslasAco(request.getIslasAco() == null ? 0 : request.getIslasAco());
+            currentSimContext.setIntervaloMigracion(request.getIntervaloMigracion() == null ? 0 : request.getIntervaloMigracion());
+            currentSimContext.setAvancePorEventos(request.isAvancePorEventos());
+            currentSimContext.setSinInterfaz(request.isSinInterfaz());
             currentSimContext.setFechaInicio(fechaInicio); 
             currentSimContext.setDuracionDias(request.getDuracionDias()); 
             
@@ -120,6 +168,7 @@ public class SimulacionService {
                 currentSimContext.getBloqueosPorTiempo().computeIfAbsent(b.getStartTime(), k -> new ArrayList<>()).add(b);
                 currentSimContext.getBloqueosPorDia().add(b);
             }
+            currentSimContext.reconstruirIndiceBloqueos();
 
             // 7b. Cargar averías y asignarlas al contexto
             currentSimContext.setAveriasPorTurno(ResourceLoader.cargarAverias());
@@ -131,6 +180,9 @@ public class SimulacionService {
             currentSimContext.getCamionesInhabilitados().clear();
             currentSimContext.setRutas(new ArrayList<>());
     
+            EventDTO eventoInicio = EventDTO.of(EventType.SIMULATION_STARTED, null); // No payload necesario o poner info básica
+            eventPublisher.publicarEventoSimulacion(simulationId, eventoInicio);
+
             String nombre = request.getNombreSimulacion() != null ? request.getNombreSimulacion() : "Simulación " + simulationId.substring(0, 8);
             SimulationStatusDTO status = new SimulationStatusDTO();
             status.setSimulationId(simulationId);
@@ -142,6 +194,8 @@ public class SimulacionService {
     
         } catch (Exception e) {
             System.err.println("Error starting simulation: " + e.getMessage());
+            // Lo que se alcanzó a crear no llegará a ejecutarse: liberarlo
+            simulationManagerService.destruirContextoSimulacion(simulationId);
             throw new RuntimeException("Error al iniciar simulación con request: " + e.getMessage(), e);
         }
     }
@@ -152,7 +206,7 @@ public class SimulacionService {
      * @return El tiempo actual de la simulación
      */
     public LocalDateTime getTiempoActual(String simulationId) {
-        ExecutionContext currentContext = simulationManagerService.getActiveSimulationContext();
+        ExecutionContext currentContext = simulationManagerService.getSimulationContext(simulationId);
         if (currentContext == null) {
             throw new IllegalArgumentException("Simulation context not found for ID: " + simulationId);
         }
@@ -167,7 +221,7 @@ public class SimulacionService {
      */
     public Averia registrarAveriaSimulacion(String simulationId, AveriaDTO dto) {
         try {
-            ExecutionContext contextoActual = simulationManagerService.getActiveSimulationContext();
+            ExecutionContext contextoActual = simulationManagerService.getSimulationContext(simulationId);
             if (contextoActual == null) {
                 throw new IllegalArgumentException("No se encontró el contexto de simulación para el ID: " + simulationId);
             }
@@ -189,26 +243,41 @@ public class SimulacionService {
     /**
      * Ejecuta una simulación completa de manera asíncrona.
      * Avanza minuto a minuto hasta completar la duración de la simulación.
+     * Si ya corren {@code simulacion.max-concurrentes} simulaciones, espera a que termine alguna.
      * @param simulationId El ID de la simulación a ejecutar
      */
     public void ejecutarSimulacionCompleta(String simulationId) {
-        //No iniciar una nueva simulación si ya hay una activa
-        if (activeSimulationTask != null && !activeSimulationTask.isDone()) {
-            System.out.println("Ya hay una simulación activa. No se puede iniciar una nueva.");
+        // No lanzar dos veces la misma simulación
+        Future<?> enCurso = tareas.get(simulationId);
+        if (enCurso != null && !enCurso.isDone()) {
+            System.out.println("La simulación " + simulationId + " ya está en ejecución.");
             return;
         }
 
-        // Ejecutar la simulación en un hilo separado
-        this.activeSimulationTask = CompletableFuture.runAsync(() -> {
+        // Ejecutar la simulación en su propio hilo
+        ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "simulacion-" + simulationId.substring(0, Math.min(8, simulationId.length())));
+            t.setDaemon(true);
+            return t;
+        });
+        ejecutores.put(simulationId, ejecutor);
+        tareas.put(simulationId, ejecutor.submit(() -> {
             boolean simulacionColapso = false; 
+            boolean conPermiso = false;
             try {
-                ExecutionContext context = simulationManagerService.getActiveSimulationContext();
-                SimulationControlState controlState = simulationManagerService.getActiveSimulationControlState();
+                ExecutionContext context = simulationManagerService.getSimulationContext(simulationId);
+                SimulationControlState controlState = simulationManagerService.getSimulationControlState(simulationId);
 
                 if (context == null || controlState == null) {
                     System.err.println("No se encontró el contexto o el estado de control de la simulación: " + simulationId);
                     return;
                 }
+
+                if (!permisos.tryAcquire()) {
+                    System.out.printf("⏳ Simulación %s en espera: ya corren %d simulaciones%n", simulationId, maxConcurrentes);
+                    permisos.acquire();
+                }
+                conPermiso = true;
                 
                 // Publicar evento de inicio de ejecución
                 eventPublisher.publicarEventoSimulacion(simulationId, 
@@ -220,15 +289,23 @@ public class SimulacionService {
                     .atTime(00, 00);
                 
                 System.out.println("Iniciando simulación completa desde " + context.getCurrentTime() + 
-                                  " hasta " + fechaFin);
+                                  " hasta " + fechaFin + (context.isSinInterfaz() ? " (sin interfaz)" : ""));
+
+                // Rendimiento: minutos simulados por segundo real
+                LocalDateTime tiempoInicio = context.getCurrentTime();
+                long totalMinutos = Math.max(1, ChronoUnit.MINUTES.between(tiempoInicio, fechaFin));
+                long inicioNanos = System.nanoTime();
+                LocalDateTime proximoProgreso = tiempoInicio.plusMinutes(minutosEntreProgresos);
                 
                 // Ejecutar la simulación hasta que se alcance la fecha final
-                while (simulationManagerService.getActiveSimulationContext() != null && context.getCurrentTime().isBefore(fechaFin)) {
+                while (simulationManagerService.getSimulationContext(simulationId) != null && context.getCurrentTime().isBefore(fechaFin)) {
                     while(controlState.isPaused()) {
                         Thread.sleep(300);
                     }
 
-                    LocalDateTime colapsed = orchestratorService.stepOneMinute(context, simulationId);
+                    LocalDateTime colapsed = context.isAvancePorEventos()
+                            ? orchestratorService.avanzarHastaProximoEvento(context, simulationId, fechaFin)
+                            : orchestratorService.stepOneMinute(context, simulationId);
 
                     // Si retorna null, es que ha colapsado
                     if (colapsed == null) {
@@ -236,8 +313,27 @@ public class SimulacionService {
                         break;
                     }
 
-                    Thread.sleep(controlState.getStepDelayMs());
+                    if (!context.isSinInterfaz()) {
+                        Thread.sleep(controlState.getStepDelayMs());
+                    } else if (!context.getCurrentTime().isBefore(proximoProgreso)) {
+                        long simulados = ChronoUnit.MINUTES.between(tiempoInicio, context.getCurrentTime());
+                        eventPublisher.publicarEventoSimulacion(simulationId,
+                            EventDTO.of(EventType.SIMULATION_PROGRESS, new ProgresoSimulacionDTO(
+                                context.getCurrentTime().toString(),
+                                (int) (100 * simulados / totalMinutos),
+                                context.getTotalPedidosEntregados(),
+                                minutosPorSegundo(simulados, inicioNanos))));
+                        proximoProgreso = context.getCurrentTime().plusMinutes(minutosEntreProgresos);
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
                 }
+
+                long simulados = ChronoUnit.MINUTES.between(tiempoInicio, context.getCurrentTime());
+                double rendimiento = minutosPorSegundo(simulados, inicioNanos);
+                System.out.printf("📈 Simulación %s: %d minutos simulados en %.1f s → %.0f min/s%n",
+                        simulationId, simulados, (System.nanoTime() - inicioNanos) / 1e9, rendimiento);
                 
                 // Publicar evento de fin de simulación
                 if(!simulacionColapso) {
@@ -245,10 +341,15 @@ public class SimulacionService {
                         EventDTO.of(EventType.SIMULATION_COMPLETED, new ReporteDTO(
                             context.getTotalPedidosEntregados(), 
                             context.getTotalDistanciaRecorrida(), 
-                            context.getPedidoColapso())));
+                            context.getPedidoColapso(),
+                            simulados,
+                            rendimiento)));
                 }
                 
                 System.out.println("Simulación " + simulationId + " completada hasta " + context.getCurrentTime());
+            } catch (InterruptedException e) {
+                System.out.println("Simulación " + simulationId + " cancelada");
+                Thread.currentThread().interrupt();
             } catch (Exception e) {
                 System.err.println("Error al ejecutar simulación completa: " + e.getMessage());
                 e.printStackTrace();
@@ -256,21 +357,42 @@ public class SimulacionService {
                     EventDTO.of(EventType.SIMULATION_ERROR, e.getMessage()));
             } finally {
                 System.out.println("Finalizando ejecución de simulación " + simulationId);
+                if (conPermiso) {
+                    permisos.release();
+                }
                 simulationManagerService.destruirContextoSimulacion(simulationId);
-                activeSimulationTask = null; 
+                tareas.remove(simulationId);
+                ejecutores.remove(simulationId);
             }
-        });
+        }));
+        // El hilo termina solo al acabar la tarea
+        ejecutor.shutdown();
+        if (ejecutor.isTerminated()) {
+            // Terminó antes de registrarse la tarea (p. ej. sin contexto): no dejarla colgada
+            tareas.remove(simulationId);
+            ejecutores.remove(simulationId, ejecutor);
+        }
+    }
+
+    private static double minutosPorSegundo(long minutosSimulados, long inicioNanos) {
+        double segundos = (System.nanoTime() - inicioNanos) / 1e9;
+        return segundos > 0 ? minutosSimulados / segundos : 0.0;
     }
 
     public void detenerYLimpiarSimulacion(String simulationId) {
-        if (activeSimulationTask != null) {
-            activeSimulationTask.cancel(true);
+        Future<?> tarea = tareas.remove(simulationId);
+        if (tarea != null) {
+            tarea.cancel(true);
         }
+        ejecutores.remove(simulationId);
         
         simulationManagerService.destruirContextoSimulacion(simulationId);
         
-        activeSimulationTask = null; 
-        
         System.out.println("🛑 Simulación " + simulationId + " detenida y limpiada por el usuario.");
     }
+
+    @PreDestroy
+    public void cerrar() {
+        ejecutores.values().forEach(ExecutorService::shutdownNow);
+    }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ import pe.pucp.plg.util.ResourceLoader;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import java.util.stream.Collectors;
 
@@ -28,9 +29,10 @@ public class SimulationManagerService {
     private final BloqueoRepository bloqueoRepository;
 
     private ExecutionContext operationalContext;
-    private ExecutionContext activeSimulationContext;
-    private String activeSimulationId;
-    private SimulationControlState activeSimulationControlState;
+
+    // Simulaciones vivas por ID: cada una con su contexto y su estado de control
+    private final Map<String, ExecutionContext> simulaciones = new ConcurrentHashMap<>();
+    private final Map<String, SimulationControlState> controles = new ConcurrentHashMap<>();
 
     @Autowired
     public SimulationManagerService(FlotaFactory flotaFactory,
@@ -81,6 +83,7 @@ public class SimulationManagerService {
             this.operationalContext.getBloqueosPorTiempo().computeIfAbsent(b.getStartTime(), k -> new ArrayList<>()).add(b);
             this.operationalContext.getBloqueosPorDia().add(b);
         }
+        this.operationalContext.reconstruirIndiceBloqueos();
 
         this.operationalContext.setAveriasPorTurno(ResourceLoader.cargarAverias());
         this.operationalContext.setMantenimientos(ResourceLoader.cargarMantenimientos());
@@ -107,21 +110,18 @@ public class SimulationManagerService {
      * If a simulation needs to start from the *current state* of the operational context,
      * then ExecutionContext should implement a deep cloning mechanism (e.g., a copy constructor),
      * and this method should clone the operationalContext instead.
+     * Pueden convivir varias simulaciones; cada una queda registrada con su propio ID.
      * @return The ID of the newly created simulation context.
      */
     public String crearContextoSimulacion(boolean esColapso) {
-        if(activeSimulationContext != null) {
-            throw new IllegalStateException("Ya hay una simulación activa con ID: " + activeSimulationId + ". No se puede crear otra.");
-        }
-        this.activeSimulationId = UUID.randomUUID().toString();
-        this.activeSimulationContext = new ExecutionContext();
-        this.activeSimulationControlState = new SimulationControlState();
+        String simulationId = UUID.randomUUID().toString();
+        ExecutionContext contexto = new ExecutionContext();
 
-        this.activeSimulationContext.setCamiones(flotaFactory.crearNuevaFlota()); 
-        this.activeSimulationContext.setTanques(tanqueService.inicializarTanques());
+        contexto.setCamiones(flotaFactory.crearNuevaFlota()); 
+        contexto.setTanques(tanqueService.inicializarTanques());
 
-        for(CamionEstado c : this.activeSimulationContext.getCamiones()) {
-            c.setTanqueOrigen(this.activeSimulationContext.getTanques().get(0)); // Asignar la planta
+        for(CamionEstado c : contexto.getCamiones()) {
+            c.setTanqueOrigen(contexto.getTanques().get(0)); // Asignar la planta
         }
 
         // Initialize Pedidos from PedidoRepository for the new simulation context
@@ -130,76 +130,101 @@ public class SimulationManagerService {
         NavigableMap<LocalDateTime, List<Pedido>> pedidosPorTiempo = todosLosPedidos.stream()
             .filter(p -> p.getTiempoCreacion().isAfter(startTime)) // Filter out initial time pedidos for this map
             .collect(Collectors.groupingBy(Pedido::getTiempoCreacion, TreeMap::new, Collectors.toList()));
-        this.activeSimulationContext.setPedidosPorTiempo(pedidosPorTiempo);
+        contexto.setPedidosPorTiempo(pedidosPorTiempo);
 
         List<Pedido> initialPedidos = todosLosPedidos.stream()
             .filter(p -> p.getTiempoCreacion().equals(startTime))
             .collect(Collectors.toList());
-        this.activeSimulationContext.setPedidos(new ArrayList<>(initialPedidos));
+        contexto.setPedidos(new ArrayList<>(initialPedidos));
         
         // Initialize Bloqueos from BloqueoRepository for the new simulation context
         for (Bloqueo b : bloqueoRepository.getBloqueos()) { // Assuming findAll() exists
-            this.activeSimulationContext.getBloqueosPorTiempo().computeIfAbsent(b.getStartTime(), k -> new ArrayList<>()).add(b);
-            this.activeSimulationContext.getBloqueosPorDia().add(b);
+            contexto.getBloqueosPorTiempo().computeIfAbsent(b.getStartTime(), k -> new ArrayList<>()).add(b);
+            contexto.getBloqueosPorDia().add(b);
         }
-        this.activeSimulationContext.setCurrentTime(startTime); // Simulations typically start from t=0
+        contexto.reconstruirIndiceBloqueos();
+        contexto.setCurrentTime(startTime); // Simulations typically start from t=0
 
         // Para gestionar el colapso necesitamos una flag
-        this.activeSimulationContext.setIgnorarColapso(!esColapso);
-        this.activeSimulationContext.setMantenimientos(ResourceLoader.cargarMantenimientos());
+        contexto.setIgnorarColapso(!esColapso);
+        contexto.setMantenimientos(ResourceLoader.cargarMantenimientos());
 
-        return this.activeSimulationId;
+        controles.put(simulationId, new SimulationControlState());
+        simulaciones.put(simulationId, contexto);
+        return simulationId;
     }
 
-    public ExecutionContext getActiveSimulationContext() {
-        return this.activeSimulationContext;
+    /** Contexto de la simulación, o null si no existe (o ya terminó). */
+    public ExecutionContext getSimulationContext(String simulationId) {
+        return simulationId == null ? null : simulaciones.get(simulationId);
+    }
+
+    public SimulationControlState getSimulationControlState(String simulationId) {
+        return simulationId == null ? null : controles.get(simulationId);
     }
 
     public void destruirContextoSimulacion(String simulationId) {
-        // Solo destruimos si el ID coincide con el de la simulación activa
-        if (simulationId != null && simulationId.equals(this.activeSimulationId)) {
-            this.activeSimulationContext = null;
-            this.activeSimulationId = null;
-            this.activeSimulationControlState = null;
-            System.out.println("🗑️ Contexto de simulación destruido.");
+        if (simulationId == null) {
+            return;
+        }
+        ExecutionContext contexto = simulaciones.remove(simulationId);
+        if (contexto != null) {
+            contexto.cancelarPlanificacionPendiente();
+            System.out.println("🗑️ Contexto de simulación " + simulationId + " destruido.");
         }
         // Destruir tambien el control state
-        if (this.activeSimulationControlState != null) {
-            this.activeSimulationControlState.setPaused(false);
-            this.activeSimulationControlState = null;
+        SimulationControlState control = controles.remove(simulationId);
+        if (control != null) {
+            control.setPaused(false);
         }
     }
 
-    public SimulationControlState getActiveSimulationControlState() {
-        return this.activeSimulationControlState;
+    public void pauseSimulation(String simulationId) {
+        SimulationControlState control = getSimulationControlState(simulationId);
+        if (control != null) {
+            control.setPaused(true);
+            System.out.println("⏯️ Simulación " + simulationId + " pausada.");
+        }
     }
 
-    public void pauseActiveSimulation() {
-        if (activeSimulationControlState != null) {
-            activeSimulationControlState.setPaused(true);
-            System.out.println("⏯️ Simulación activa pausada.");
+    public void resumeSimulation(String simulationId) {
+        SimulationControlState control = getSimulationControlState(simulationId);
+        if (control != null) {
+            control.setPaused(false);
+            System.out.println("▶️ Simulación " + simulationId + " reanudada.");
         }
     }
 
-    public void resumeActiveSimulation() {
-        if (activeSimulationControlState != null) {
-            activeSimulationControlState.setPaused(false);
-            System.out.println("▶️ Simulación activa reanudada.");
+    public void setSpeedOfSimulation(String simulationId, long delayMs) {
+        SimulationControlState control = getSimulationControlState(simulationId);
+        if (control != null) {
+            control.setStepDelayMs(delayMs);
+            System.out.println("⏱️ Velocidad de simulación " + simulationId + " ajustada a " + delayMs + "ms de delay.");
         }
     }
 
+    // Sin ID: se aplican a todas las simulaciones vivas (compatibilidad con el cliente de una sola)
+
+    public void pauseActiveSimulation() {
+        simulaciones.keySet().forEach(this::pauseSimulation);
+    }
+
+    public void resumeActiveSimulation() {
+        simulaciones.keySet().forEach(this::resumeSimulation);
+    }
+
     public void setSpeedOfActiveSimulation(long delayMs) {
-        if (activeSimulationControlState != null) {
-            activeSimulationControlState.setStepDelayMs(delayMs);
-            System.out.println("⏱️ Velocidad de simulación activa ajustada a " + delayMs + "ms de delay.");
-        }
+        simulaciones.keySet().forEach(id -> setSpeedOfSimulation(id, delayMs));
+    }
+
+    /** IDs de las simulaciones vivas. */
+    public Set<String> getSimulacionesActivas() {
+        return Set.copyOf(simulaciones.keySet());
     }
 
+    /** ID de alguna simulación viva, o "false" si no hay ninguna. */
     public String isAnySimulationActive() {
-        if( activeSimulationContext != null && activeSimulationId != null ) {
-            return activeSimulationId;
-        }
-        return String.valueOf(false);
+        return simulaciones.keySet().stream().findFirst().orElse(String.valueOf(false));
     }
 
-}
\ No newline at end of file
+}
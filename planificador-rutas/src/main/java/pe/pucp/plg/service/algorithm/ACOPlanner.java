@@ -1,28 +1,117 @@
 package pe.pucp.plg.service.algorithm;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
 import pe.pucp.plg.model.common.Ruta;
 import pe.pucp.plg.model.context.ExecutionContext;
+import pe.pucp.plg.model.context.MemoriaFeromonas;
 import pe.pucp.plg.model.state.CamionEstado;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
-public class ACOPlanner {
+public class ACOPlanner implements RoutePlanner {
 
     private static final int ITERACIONES = 50; // ajustar según tus pruebas
     private static final int HORMIGAS = 30;    // idem
-    private static final double ALPHA = 1.0;
-    private static final double BETA = 2.0;
-    private static final double RHO = 0.1;     // evaporación
+    // Modelo de islas: {ALPHA, BETA, RHO (evaporación)} de cada colonia, cíclicos si hay más
+    // islas que filas. La isla 0 (y la única, si no hay islas) usa los parámetros de siempre.
+    private static final double[][] PARAMETROS_ISLA = {
+            {1.0, 2.0, 0.10},
+            {1.0, 3.0, 0.20},   // más codiciosa y olvida antes
+            {2.0, 2.0, 0.05},   // explota las feromonas
+            {0.5, 1.5, 0.15},   // explora
+    };
+    private static final double MIGRACION = 0.2; // fracción de feromonas que llega de la isla vecina
     private static final double Q = 100.0;     // feromona depositada
+    // Si el plan anterior sigue valiendo (ver calidadArranque) se necesitan menos iteraciones
+    private static final int ITERACIONES_MIN_CON_MEMORIA = 15;
+    // Margen sobre el coste por pedido anterior para dar el plan anterior por bueno: los
+    // camiones ya se movieron, así que los tramos no cuestan exactamente lo mismo
+    private static final double TOLERANCIA_ARRANQUE = 0.10;
+
+    // Las hormigas de una iteración se construyen en paralelo; cada una con su propio
+    // generador derivado de (semilla, iteración, hormiga), así el resultado no depende
+    // del número de hilos.
+    private final int hilos;
+    private final long semilla;
+    private final ExecutorService pool;
+    // Pesos de las hormigas: Vector API si está disponible (aco.simd), si no escalar
+    private final KernelPesos kernel;
+
+    // Planificador "anytime": cada llamada tiene un presupuesto de tiempo de reloj y se corta
+    // antes si el mejor coste no mejora en `paciencia` iteraciones; siempre devuelve la mejor
+    // solución encontrada hasta ese momento.
+    private final long presupuestoNanos;
+    private final int paciencia;
+
+    // Islas por defecto; cada simulación puede pedir otras en su solicitud
+    private final int islas;
+    private final int intervaloMigracion;
+
+    @Autowired
+    public ACOPlanner(@Value("${aco.hilos:0}") int hilos,
+                      @Value("${aco.pool:forkjoin}") String tipoPool,
+                      @Value("${aco.semilla:20250101}") long semilla,
+                      @Value("${aco.presupuesto-ms:2000}") long presupuestoMs,
+                      @Value("${aco.paciencia:10}") int paciencia,
+                      @Value("${aco.islas:1}") int islas,
+                      @Value("${aco.migracion:10}") int intervaloMigracion,
+                      @Value("${aco.simd:true}") boolean simd) {
+        if (presupuestoMs <= 0) {
+            throw new IllegalArgumentException("aco.presupuesto-ms debe ser positivo: " + presupuestoMs);
+        }
+        if (islas <= 0 || intervaloMigracion <= 0) {
+            throw new IllegalArgumentException("aco.islas y aco.migracion deben ser positivos: " + islas + ", " + intervaloMigracion);
+        }
+        this.islas = islas;
+        this.intervaloMigracion = intervaloMigracion;
+        this.hilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.semilla = semilla;
+        this.presupuestoNanos = presupuestoMs * 1_000_000L;
+        this.paciencia = paciencia > 0 ? paciencia : ITERACIONES;
+        this.kernel = KernelPesos.crear(simd);
+        if (this.hilos == 1) {
+            this.pool = null; // todo en el hilo que llama
+        } else if ("virtual".equalsIgnoreCase(tipoPool)) {
+            this.pool = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.pool = new ForkJoinPool(this.hilos);
+        }
+        System.out.printf("🐜 [ACO] %d hilo(s), pool=%s, semilla=%d, presupuesto=%d ms, paciencia=%d, islas=%d (migración cada %d), kernel %s%n",
+                this.hilos, this.pool == null ? "secuencial" : tipoPool, semilla, presupuestoMs, this.paciencia,
+                islas, intervaloMigracion, kernel.nombre());
+    }
 
-    public List<Ruta> planificarRutas(List<Pedido> candidatos, List<CamionEstado> flotaParaPlanificar, LocalDateTime tiempoActual, ExecutionContext contexto) {
+    @PreDestroy
+    public void cerrar() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Devuelve la mejor solución hallada dentro del presupuesto de tiempo. Si se agota (o el
+     * hilo se interrumpe) antes de tener una solución con pedidos asignados, devuelve una lista
+     * vacía y {@code PlanningService.aplicarRutas} usa la heurística del camión más cercano.
+     *
+     * @param tiempos matriz de tiempos reales de la replanificación en curso; debe
+     *                incluir a los camiones de la flota y a los candidatos
+     */
+    public List<Ruta> planificarRutas(List<Pedido> candidatos, List<CamionEstado> flotaParaPlanificar, LocalDateTime tiempoActual, ExecutionContext contexto, MatrizTiempos tiempos) {
         if (candidatos.isEmpty() || flotaParaPlanificar.isEmpty()) {
             return Collections.emptyList();
         }
@@ -30,249 +119,604 @@ public class ACOPlanner {
         Set<String> idsCandidatos = candidatos.stream()
                 .map(Pedido::getId)
                 .collect(Collectors.toSet());
-        contexto.getEventosEntrega().removeIf(e -> idsCandidatos.contains(e.getPedido().getId()));
+        contexto.getEventosEntrega().cancelarPedidos(idsCandidatos);
         for(Pedido p : candidatos) {
             p.setProgramado(false);
         }
 
-        // 3. Ejecutar ACO con los clones y candidatos.
-        return ejecutarACO(candidatos, flotaParaPlanificar, tiempoActual);
+        return calcularRutas(candidatos, flotaParaPlanificar, tiempoActual, contexto.getMemoriaFeromonas(),
+                contexto.getPlanAnterior(), tiempos, 0, 0);
+    }
+
+    @Override
+    public String nombre() {
+        return "aco";
+    }
+
+    @Override
+    public List<Ruta> planificar(ProblemaPlanificacion problema) {
+        return calcularRutas(problema.getPedidos(), problema.getFlota(), problema.getTiempoActual(),
+                problema.getMemoriaFeromonas(), problema.getPlanAnterior(), problema.getTiempos(),
+                problema.getIslas(), problema.getIntervaloMigracion());
+    }
+
+    /**
+     * Sólo el cálculo, sin tocar el contexto: lee los clones de la flota, los datos fijos de
+     * los pedidos, la matriz y la memoria de feromonas (sincronizada). Puede correr en otro
+     * hilo mientras la simulación avanza.
+     */
+    public List<Ruta> calcularRutas(List<Pedido> candidatos, List<CamionEstado> flotaParaPlanificar, LocalDateTime tiempoActual,
+                                    MemoriaFeromonas memoria, MatrizTiempos tiempos) {
+        return calcularRutas(candidatos, flotaParaPlanificar, tiempoActual, memoria, Map.of(), tiempos, 0, 0);
+    }
+
+    /**
+     * @param planAnterior       pedidos por camión de la planificación anterior (ver
+     *                           {@link ProblemaPlanificacion}); mide la calidad del arranque
+     * @param islas              colonias independientes; 0 usa {@code aco.islas}
+     * @param intervaloMigracion iteraciones entre migraciones; 0 usa {@code aco.migracion}
+     */
+    public List<Ruta> calcularRutas(List<Pedido> candidatos, List<CamionEstado> flotaParaPlanificar, LocalDateTime tiempoActual,
+                                    MemoriaFeromonas memoria, Map<String, List<String>> planAnterior, MatrizTiempos tiempos,
+                                    int islas, int intervaloMigracion) {
+        if (candidatos.isEmpty() || flotaParaPlanificar.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Ejecutar ACO con los clones y candidatos.
+        // La semilla de la corrida combina la configurada con el minuto actual: misma
+        // configuración y mismo estado → mismas rutas.
+        long semillaCorrida = mezclar(semilla, tiempoActual.toEpochSecond(java.time.ZoneOffset.UTC) / 60);
+        return ejecutarACO(candidatos, flotaParaPlanificar, tiempoActual, tiempos, semillaCorrida, memoria, planAnterior,
+                islas > 0 ? islas : this.islas,
+                intervaloMigracion > 0 ? intervaloMigracion : this.intervaloMigracion);
     }
 
     // ------------------------------------------------------------
     // 1) Ejecución del algoritmo ACO para el VRP
     // ------------------------------------------------------------
-    private List<Ruta> ejecutarACO(List<Pedido> pedidosActivos, List<CamionEstado> flotaEstado, LocalDateTime tiempoActual) {
+    private List<Ruta> ejecutarACO(List<Pedido> pedidosActivos, List<CamionEstado> flotaEstado, LocalDateTime tiempoActual,
+                                   MatrizTiempos tiempos, long semillaCorrida, MemoriaFeromonas memoria,
+                                   Map<String, List<String>> planAnterior, int islas, int intervaloMigracion) {
+        long limite = System.nanoTime() + presupuestoNanos;
         int V = flotaEstado.size(), N = pedidosActivos.size();
-        double[][] tau = new double[V][N];
-        for (double[] row : tau) Arrays.fill(row, 1.0);
+        // Arranque en caliente: feromonas aprendidas en replanificaciones anteriores
+        double[][] tauInicial = new double[V][N];
+        int conocidos = 0;
+        for (int i = 0; i < N; i++) {
+            String pedidoId = pedidosActivos.get(i).getId();
+            if (memoria.conoce(pedidoId)) conocidos++;
+            for (int v = 0; v < V; v++) {
+                tauInicial[v][i] = memoria.obtener(flotaEstado.get(v).getPlantilla().getId(), pedidoId, 1.0);
+            }
+        }
+
+        // La isla 0 usa la semilla de la corrida, así con una sola isla el resultado es el de siempre
+        List<Colonia> colonias = new ArrayList<>(islas);
+        for (int k = 0; k < islas; k++) {
+            long semillaIsla = k == 0 ? semillaCorrida : mezclar(~semillaCorrida, k);
+            colonias.add(new Colonia(k, pedidosActivos, flotaEstado, tiempoActual, tiempos, tauInicial, semillaIsla));
+        }
+        // Cuanto mejor sirve el plan anterior a los pedidos de ahora, menos iteraciones hacen falta
+        double calidad = calidadArranque(colonias.get(0), planAnterior, pedidosActivos, memoria.getCostePorPedido());
+        int iteraciones = ITERACIONES - (int) Math.round((ITERACIONES - ITERACIONES_MIN_CON_MEMORIA) * calidad);
+        String motivoCorte = islas == 1
+                ? ejecutarColonia(colonias.get(0), iteraciones, limite)
+                : ejecutarIslas(colonias, iteraciones, intervaloMigracion, limite);
+        Colonia mejor = colonias.get(0);
+        int it = 0;
+        for (Colonia c : colonias) {
+            if (c.mejorCoste < mejor.mejorCoste) mejor = c;
+            it = Math.max(it, c.iteracion);
+        }
+        if (motivoCorte != null) {
+            System.out.printf("⏱️ [ACO] Corte tras %d/%d iteraciones (%s)%n", it, iteraciones, motivoCorte);
+        }
+        if (islas > 1) {
+            System.out.printf("🏝️ [ACO] %d islas, migración cada %d iteraciones: mejor isla %d (coste %.2f)%n",
+                    islas, intervaloMigracion, mejor.isla, mejor.mejorCoste);
+        }
+
+        // Se recuerdan las feromonas de la isla que dio la mejor solución y su coste por pedido
+        guardarFeromonas(memoria, mejor.tau, flotaEstado, pedidosActivos);
+        int servidos = pedidosServidos(mejor.mejorSol);
+        if (servidos > 0) {
+            memoria.setCostePorPedido(mejor.mejorCoste / servidos);
+        }
+        if (conocidos > 0) {
+            System.out.printf("🐜 [ACO] Arranque en caliente: %d/%d pedidos con memoria, calidad del plan anterior %.2f → %d iteraciones%n",
+                    conocidos, N, calidad, iteraciones);
+        }
+
+        List<Ruta> mejorSol = mejor.mejorSol;
+        if (mejorSol == null || mejorSol.stream().allMatch(r -> r.getPedidoIds().isEmpty())) {
+            System.out.printf("⚠️ [ACO] No pudo generar solución para pedidos: %s%n",
+                    pedidosActivos.stream()
+                            .map(p -> "#" + p.getId())
+                            .collect(Collectors.joining(", "))
+            );
+            // Lista vacía: aplicarRutas recurre al camión disponible más cercano
+            return Collections.emptyList();
+        }
+
+        return mejorSol;
+    }
+
+    /**
+     * Una sola colonia: las hormigas de cada iteración se reparten en el pool. Devuelve el
+     * motivo del corte, o null si completó las iteraciones.
+     */
+    private String ejecutarColonia(Colonia colonia, int iteraciones, long limite) {
+        int sinMejora = 0;
+        while (colonia.iteracion < iteraciones) {
+            boolean mejoro = colonia.iterar(true);
+            // Criterios de corte: interrupción, convergencia y presupuesto de tiempo
+            if (Thread.currentThread().isInterrupted()) {
+                return "interrumpido";
+            }
+            sinMejora = mejoro ? 0 : sinMejora + 1;
+            if (sinMejora >= paciencia) {
+                return "sin mejora en " + paciencia + " iteraciones";
+            }
+            if (System.nanoTime() - limite >= 0) {
+                return "presupuesto agotado";
+            }
+        }
+        return null;
+    }
 
-        List<Ruta> mejorSol = null;
+    /**
+     * Modelo de islas: cada colonia corre en un hilo del pool (con sus hormigas en secuencia)
+     * durante {@code intervalo} iteraciones; en la barrera, cada isla recibe de la anterior
+     * en el anillo su mejor solución y una parte de sus feromonas. La convergencia se mide
+     * sobre la mejor solución de todas las islas.
+     */
+    private String ejecutarIslas(List<Colonia> colonias, int iteraciones, int intervalo, long limite) {
         double mejorCoste = Double.MAX_VALUE;
+        int sinMejora = 0;
+        int hechas = 0;
+        while (hechas < iteraciones) {
+            int epoca = Math.min(intervalo, iteraciones - hechas);
+            List<Callable<Boolean>> tareas = new ArrayList<>(colonias.size());
+            for (Colonia c : colonias) {
+                tareas.add(() -> {
+                    for (int j = 0; j < epoca; j++) {
+                        if (System.nanoTime() - limite >= 0 || Thread.currentThread().isInterrupted()) break;
+                        c.iterar(false);
+                    }
+                    return Boolean.TRUE;
+                });
+            }
+            if (ejecutar(tareas, true) == null || Thread.currentThread().isInterrupted()) {
+                return "interrumpido";
+            }
+            hechas += epoca;
+
+            double costeEpoca = Double.MAX_VALUE;
+            for (Colonia c : colonias) costeEpoca = Math.min(costeEpoca, c.mejorCoste);
+            if (costeEpoca < mejorCoste) {
+                mejorCoste = costeEpoca;
+                sinMejora = 0;
+            } else {
+                sinMejora += epoca;
+            }
+            if (sinMejora >= paciencia) {
+                return "sin mejora en " + paciencia + " iteraciones";
+            }
+            if (System.nanoTime() - limite >= 0) {
+                return "presupuesto agotado";
+            }
+            if (hechas < iteraciones) {
+                migrar(colonias);
+            }
+        }
+        return null;
+    }
 
-        for (int it = 0; it < ITERACIONES; it++) {
-            List<List<Ruta>> soluciones = new ArrayList<>();
-            // Construir soluciones con HORMIGAS
-            for (int h = 0; h < HORMIGAS; h++) {
-                List<Integer> noAsignados = new ArrayList<>();
-                for (int i = 0; i < N; i++) noAsignados.add(i);
+    /**
+     * Migración en anillo: la isla k recibe de la k-1 su mejor solución (si es mejor que la
+     * propia, la adopta y la deposita) y mezcla una fracción de sus feromonas, reescaladas a
+     * su propia media porque cada isla evapora a otro ritmo.
+     */
+    private void migrar(List<Colonia> colonias) {
+        int K = colonias.size();
+        // Foto previa de todas las islas: el resultado no depende del orden de recorrido
+        double[][][] tauPrevio = new double[K][][];
+        double[] media = new double[K];
+        List<List<Ruta>> mejores = new ArrayList<>(K);
+        double[] costes = new double[K];
+        for (int k = 0; k < K; k++) {
+            Colonia c = colonias.get(k);
+            tauPrevio[k] = new double[c.tau.length][];
+            for (int v = 0; v < c.tau.length; v++) tauPrevio[k][v] = c.tau[v].clone();
+            media[k] = c.mediaTau();
+            mejores.add(c.mejorSol);
+            costes[k] = c.mejorCoste;
+        }
+        for (int k = 0; k < K; k++) {
+            Colonia c = colonias.get(k);
+            int origen = (k + K - 1) % K;
+            if (media[origen] > 0) {
+                c.mezclarFeromonas(tauPrevio[origen], media[k] / media[origen]);
+            }
+            if (mejores.get(origen) != null && costes[origen] < c.mejorCoste) {
+                c.recibir(mejores.get(origen), costes[origen]);
+            }
+        }
+    }
 
-                List<CamionEstado> clonedFlota = deepCopyFlota(flotaEstado);
-                List<Ruta> rutas = initRutas(clonedFlota);
+    /**
+     * Una colonia de hormigas con su propia matriz de feromonas y sus propios ALPHA, BETA y
+     * RHO (según {@link #PARAMETROS_ISLA}). Con una sola isla es el ACO de siempre.
+     */
+    private final class Colonia {
+        final int isla;
+        final double alpha, rho;
+        final DatosACO datos;
+        final EstadoHormiga base;
+        final BusquedaLocal busquedaLocal;
+        final Map<String, Integer> idToIndex = new HashMap<>();
+        final double[][] tau;
+        final double[] tauAlpha; // tau^alpha de la iteración, aplanado [v * N + i]
+        final long semilla;
+        int iteracion;
+        List<Ruta> mejorSol;
+        double mejorCoste = Double.MAX_VALUE;
 
-                while (!noAsignados.isEmpty()) {
-                    double[][] prob = calcularProbabilidades(rutas, clonedFlota, pedidosActivos, noAsignados, tau, tiempoActual);
+        Colonia(int isla, List<Pedido> pedidos, List<CamionEstado> flota, LocalDateTime tiempoActual,
+                MatrizTiempos tiempos, double[][] tauInicial, long semilla) {
+            double[] parametros = PARAMETROS_ISLA[isla % PARAMETROS_ISLA.length];
+            this.isla = isla;
+            this.alpha = parametros[0];
+            this.rho = parametros[2];
+            this.datos = DatosACO.construir(pedidos, flota, tiempoActual, tiempos, parametros[1]);
+            this.base = EstadoHormiga.base(flota, tiempoActual, parametros[1]);
+            this.busquedaLocal = new BusquedaLocal(datos, base.ids, base.tara, base.capacidad, base.combustible);
+            for (int v = 0; v < flota.size(); v++) {
+                idToIndex.put(flota.get(v).getPlantilla().getId(), v);
+            }
+            this.tau = new double[datos.V][];
+            for (int v = 0; v < datos.V; v++) tau[v] = tauInicial[v].clone();
+            this.tauAlpha = new double[datos.V * datos.N];
+            this.semilla = semilla;
+        }
 
-                    Seleccion sel = muestrearPar(prob, noAsignados);
-                    //if (sel == null) break; // No more valid assignments
+        /**
+         * Una iteración: hormigas, búsqueda local, evaporación y depósito. Devuelve si mejoró
+         * la mejor solución de la colonia; si el hilo se interrumpe devuelve false con la
+         * marca puesta.
+         */
+        boolean iterar(boolean enPool) {
+            int V = datos.V, N = datos.N;
+            for (int v = 0; v < V; v++)
+                kernel.potencia(tau[v], alpha, tauAlpha, v * N, N);
 
-                    asignarPedidoARuta(sel.camionIdx, sel.pedidoIdx, rutas, clonedFlota, pedidosActivos, tiempoActual);
-                    noAsignados.remove(Integer.valueOf(sel.pedidoIdx));
+            // Construir soluciones con HORMIGAS (tauAlpha sólo se lee hasta la barrera)
+            List<Callable<List<Ruta>>> hormigas = new ArrayList<>(HORMIGAS);
+            for (int h = 0; h < HORMIGAS; h++) {
+                SplittableRandom rng = new SplittableRandom(mezclar(mezclar(semilla, iteracion), h));
+                hormigas.add(() -> construirSolucion(datos, base, tauAlpha, rng));
+            }
+            // Barrera: las soluciones quedan en el orden de las hormigas
+            List<List<Ruta>> soluciones = ejecutar(hormigas, enPool);
+            if (soluciones == null) {
+                return false;
+            }
+
+            // Búsqueda local sobre la mejor hormiga de la iteración (la mejor global siempre
+            // sale de alguna de ellas, así que también queda mejorada) antes del depósito
+            int mejorIt = 0;
+            double costeMejorIt = Double.MAX_VALUE;
+            for (int h = 0; h < soluciones.size(); h++) {
+                double coste = calcularCosteTotal(soluciones.get(h));
+                if (coste < costeMejorIt) {
+                    costeMejorIt = coste;
+                    mejorIt = h;
                 }
-                soluciones.add(rutas);
             }
+            soluciones.set(mejorIt, busquedaLocal.mejorar(soluciones.get(mejorIt)));
 
             // Evaporación
             for (int v = 0; v < V; v++)
                 for (int i = 0; i < N; i++)
-                    tau[v][i] *= (1 - RHO);
+                    tau[v][i] *= (1 - rho);
 
             // Depósito + búsqueda de mejor
-            Map<String, Integer> idToIndex = new HashMap<>();
-            for (int i = 0; i < flotaEstado.size(); i++) {
-                idToIndex.put(flotaEstado.get(i).getPlantilla().getId(), i);
-            }
+            boolean mejoro = false;
             for (List<Ruta> sol : soluciones) {
                 double coste = calcularCosteTotal(sol);
                 if (coste < mejorCoste) {
                     mejorCoste = coste;
                     mejorSol = sol;
+                    mejoro = true;
                 }
-                for (Ruta ruta : sol) {
-                    int v = idToIndex.getOrDefault(ruta.getCamionId(), -1);
-                    if (v >= 0) {
-                        for (int idx : ruta.getPedidoIds()) {
-                            tau[v][idx] += Q / coste;
-                        }
+                depositar(sol, coste);
+            }
+            iteracion++;
+            return mejoro;
+        }
+
+        void depositar(List<Ruta> sol, double coste) {
+            for (Ruta ruta : sol) {
+                int v = idToIndex.getOrDefault(ruta.getCamionId(), -1);
+                if (v >= 0) {
+                    for (int idx : ruta.getPedidoIds()) {
+                        tau[v][idx] += Q / coste;
                     }
                 }
             }
         }
 
-        if (mejorSol == null || mejorSol.isEmpty()) {
-            System.out.printf("⚠️ [ACO] No pudo generar solución para pedidos: %s%n",
-                    pedidosActivos.stream()
-                            .map(p -> "#" + p.getId())
-                            .collect(Collectors.joining(", "))
-            );
-            // aquí puedes optar por devolver Collections.emptyList()
-            // o retornar directamente mejorSol (que es null/empty)
-            return Collections.emptyList();
+        /** Adopta la mejor solución de otra isla (mismos índices de camiones y pedidos). */
+        void recibir(List<Ruta> sol, double coste) {
+            mejorSol = sol;
+            mejorCoste = coste;
+            depositar(sol, coste);
+        }
+
+        void mezclarFeromonas(double[][] otra, double escala) {
+            for (int v = 0; v < tau.length; v++)
+                for (int i = 0; i < tau[v].length; i++)
+                    tau[v][i] = (1 - MIGRACION) * tau[v][i] + MIGRACION * escala * otra[v][i];
+        }
+
+        double mediaTau() {
+            double suma = 0;
+            for (double[] fila : tau)
+                for (double t : fila) suma += t;
+            return suma / ((double) datos.V * datos.N);
+        }
+    }
+
+    /**
+     * Calidad del arranque en caliente, entre 0 y 1: la hormiga sembrada recorre el plan
+     * anterior con los camiones y pedidos de ahora (los que ya no están, los que no caben o
+     * los tramos que dejaron de ser factibles se saltan). Si su coste por pedido no empeora
+     * más de {@link #TOLERANCIA_ARRANQUE} respecto a la mejor solución anterior, la calidad
+     * es la fracción de los pedidos actuales que sirve; si empeora, o no hay plan, es 0.
+     *
+     * Así una avería o un cambio de flota que rompe el plan anterior no recorta iteraciones
+     * aunque todos los pedidos tengan feromonas guardadas.
+     */
+    private double calidadArranque(Colonia colonia, Map<String, List<String>> planAnterior,
+                                   List<Pedido> pedidos, double costePorPedidoAnterior) {
+        if (planAnterior.isEmpty() || !(costePorPedidoAnterior > 0)) {
+            return 0;
+        }
+        DatosACO datos = colonia.datos;
+        Map<String, Integer> indicePedido = new HashMap<>();
+        for (int i = 0; i < datos.N; i++) {
+            indicePedido.put(pedidos.get(i).getId(), i);
+        }
+        EstadoHormiga estado = new EstadoHormiga(colonia.base.ids, colonia.base.tara);
+        estado.copiarDe(colonia.base);
+        List<Ruta> sembrada = initRutas(colonia.base);
+        boolean[] asignado = new boolean[datos.N];
+        for (int v = 0; v < datos.V; v++) {
+            List<String> anterior = planAnterior.get(estado.ids[v]);
+            if (anterior == null) continue;
+            for (String pedidoId : anterior) {
+                Integer i = indicePedido.get(pedidoId);
+                if (i != null && !asignado[i] && asignarPedidoARuta(v, i, sembrada, estado, datos)) {
+                    asignado[i] = true;
+                }
+            }
         }
-        
-        return mejorSol != null ? mejorSol : Collections.emptyList();
+        int servidos = pedidosServidos(sembrada);
+        if (servidos == 0 || calcularCosteTotal(sembrada) / servidos > costePorPedidoAnterior * (1 + TOLERANCIA_ARRANQUE)) {
+            return 0;
+        }
+        return (double) servidos / datos.N;
     }
 
-    
+    private static int pedidosServidos(List<Ruta> sol) {
+        if (sol == null) return 0;
+        int servidos = 0;
+        for (Ruta r : sol) servidos += r.getPedidoIds().size();
+        return servidos;
+    }
 
-    // ------------------------------------------------------------
-    // 2) Copia profunda de la flota para cada hormiga
-    // ------------------------------------------------------------
-    private List<CamionEstado> deepCopyFlota(List<CamionEstado> original) {
-        return original.stream()
-                .map(CamionEstado::new) // Llama al constructor de copia: new CamionEstado(original)
-                .collect(Collectors.toList());
+    /** Guarda la matriz final normalizada a media 1, para que sea comparable con los pares nuevos. */
+    private void guardarFeromonas(MemoriaFeromonas memoria, double[][] tau, List<CamionEstado> flota, List<Pedido> pedidos) {
+        int V = flota.size(), N = pedidos.size();
+        double suma = 0;
+        for (double[] fila : tau)
+            for (double t : fila) suma += t;
+        double media = suma / (V * N);
+        if (!(media > 0)) return;
+        for (int i = 0; i < N; i++) {
+            String pedidoId = pedidos.get(i).getId();
+            for (int v = 0; v < V; v++) {
+                memoria.guardar(flota.get(v).getPlantilla().getId(), pedidoId, tau[v][i] / media);
+            }
+        }
     }
 
     // ------------------------------------------------------------
-    // 3) Inicializar rutas vacías (una por camión)
+    // 1a) Construcción de la solución de una hormiga
     // ------------------------------------------------------------
-    private List<Ruta> initRutas(List<CamionEstado> flota) {
-        List<Ruta> rutas = new ArrayList<>();
-        for (CamionEstado est : flota) {
-            Ruta r = new Ruta(est.getPlantilla().getId());
-            rutas.add(r);
+    private List<Ruta> construirSolucion(DatosACO datos, EstadoHormiga base, double[] tauAlpha, SplittableRandom rng) {
+        int V = datos.V, N = datos.N;
+        boolean[] asignado = new boolean[N];
+        int pendientes = N;
+
+        EstadoHormiga estado = new EstadoHormiga(base.ids, base.tara);
+        estado.copiarDe(base);
+        List<Ruta> rutas = initRutas(base);
+
+        // Pesos (camión, pedido) en un árbol de sumas, con índice v * N + i. Tras cada
+        // asignación sólo cambian la fila del camión que se movió y la columna del pedido.
+        ArbolSumas pesos = new ArbolSumas(V * N);
+        double[] fila = new double[N];
+        for (int v = 0; v < V; v++) {
+            actualizarFila(pesos, v, estado, datos, asignado, tauAlpha, fila);
         }
+
+        while (pendientes > 0 && pesos.total() > 0) {
+            int sel = pesos.muestrear(rng);
+            int v = sel / N, i = sel % N;
+
+            asignarPedidoARuta(v, i, rutas, estado, datos);
+            asignado[i] = true;
+            pendientes--;
+            for (int w = 0; w < V; w++) {
+                pesos.fijar(w * N + i, 0.0);
+            }
+            actualizarFila(pesos, v, estado, datos, asignado, tauAlpha, fila);
+        }
+        // Si el total llega a cero, ningún par restante es factible: esos pedidos quedan sin ruta
         return rutas;
     }
 
+    /**
+     * Ejecuta las tareas (hormigas o islas) en el pool, o en secuencia si no hay pool o
+     * {@code enPool} es false; los resultados quedan en el orden de las tareas. Null si el
+     * hilo fue interrumpido.
+     */
+    private <T> List<T> ejecutar(List<Callable<T>> tareas, boolean enPool) {
+        List<T> resultados = new ArrayList<>(tareas.size());
+        try {
+            if (pool == null || !enPool) {
+                for (Callable<T> t : tareas) resultados.add(t.call());
+                return resultados;
+            }
+            for (Future<T> f : pool.invokeAll(tareas)) {
+                resultados.add(f.get());
+            }
+            return resultados;
+        } catch (InterruptedException e) {
+            // Se conserva la marca para que el bucle de la simulación también se detenga
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en una tarea del ACO", e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException("Error en una tarea del ACO", e);
+        }
+    }
+
+    /** Mezcla de bits (SplitMix64) para derivar semillas independientes. */
+    static long mezclar(long semilla, long valor) {
+        long z = semilla + 0x9E3779B97F4A7C15L * (valor + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     // ------------------------------------------------------------
-    // 4) Calcular probabilidades (feromonas + heurística)
+    // 2) Estado de la flota de una hormiga en arreglos paralelos
     // ------------------------------------------------------------
-    private double[][] calcularProbabilidades(
-            List<Ruta> rutas,
-            List<CamionEstado> flotaClonada,
-            List<Pedido> pedidosActivos,
-            List<Integer> noAsignados,
-            double[][] tau,
-            LocalDateTime tiempoActual) {
-
-        int V = rutas.size();
-        double[][] prob = new double[V][pedidosActivos.size()];
-        double minPorKm = 60.0 / 50.0;
+    /**
+     * Lo único que una hormiga modifica de cada camión, indexado por su posición en la flota.
+     * La posición del camión se guarda como el nodo de {@link DatosACO} donde termina su ruta
+     * (su punto de partida o su último pedido), porque las distancias salen de ahí.
+     * Cada hormiga parte de una copia del estado base con System.arraycopy.
+     */
+    private static final class EstadoHormiga {
+        final String[] ids;           // constante
+        final double[] tara;          // toneladas, constante
+        final double[] capacidad;
+        final double[] combustible;
+        final int[] libreEn;          // minutos desde tiempoActual hasta que queda libre
+        final double[] penalBeta;     // (1 / (1 + libreEn))^beta
+        final int[] nodo;
+
+        EstadoHormiga(String[] ids, double[] tara) {
+            int V = ids.length;
+            this.ids = ids;
+            this.tara = tara;
+            this.capacidad = new double[V];
+            this.combustible = new double[V];
+            this.libreEn = new int[V];
+            this.penalBeta = new double[V];
+            this.nodo = new int[V];
+        }
 
-        for (int v = 0; v < V; v++) {
-            CamionEstado c = findCamionInList(rutas.get(v).getCamionId(), flotaClonada);
-            if (c == null) continue;
-
-            for (int idx : noAsignados) {
-                Pedido p = pedidosActivos.get(idx);
-
-                // 1) filtro capacidad
-                if (c.getCapacidadDisponible() < p.getVolumen()) continue;
-
-                // 2) filtro ventana de tiempo
-                int dx = Math.abs(c.getX() - p.getX());
-                int dy = Math.abs(c.getY() - p.getY());
-                int distKm = dx + dy;
-                int tiempoViaje = (int) Math.ceil(distKm * minPorKm);
-                LocalDateTime tiempoEstimadoLlegada = tiempoActual.plusMinutes(tiempoViaje);
-                if (tiempoEstimadoLlegada.isAfter(p.getTiempoLimite())) continue;
-
-                // 3) filtro combustible
-                double pesoCargaTon = p.getVolumen() * 0.5;
-                double pesoTaraTon  = c.getPlantilla().getTara() / 1000.0;
-                double pesoTotalTon = pesoCargaTon + pesoTaraTon;
-                double galNecesarios = distKm * pesoTotalTon / 180.0;
-                if (c.getCombustibleActual() < galNecesarios) continue;
-
-                // heurística + feromona
-                long minutesDiff = 0;
-                if (c.getTiempoLibre() != null) {
-                    minutesDiff = Math.max(0, ChronoUnit.MINUTES.between(tiempoActual, c.getTiempoLibre()));
-                }
-                double penalTiempo = 1.0 / (1 + minutesDiff);
-                double eta = 1.0 / (distKm + 1) * penalTiempo;
-                prob[v][idx] = Math.pow(tau[v][idx], ALPHA) * Math.pow(eta, BETA);
+        static EstadoHormiga base(List<CamionEstado> flota, LocalDateTime tiempoActual, double beta) {
+            int V = flota.size();
+            EstadoHormiga e = new EstadoHormiga(new String[V], new double[V]);
+            int minutoActual = RelojSimulacion.minuto(tiempoActual);
+            for (int v = 0; v < V; v++) {
+                CamionEstado c = flota.get(v);
+                e.ids[v] = c.getPlantilla().getId();
+                e.tara[v] = c.getPlantilla().getTara() / 1000.0;
+                e.capacidad[v] = c.getCapacidadDisponible();
+                e.combustible[v] = c.getCombustibleActual();
+                e.libreEn[v] = c.getTiempoLibre() == null ? 0 : Math.max(0, c.getMinutoLibre() - minutoActual);
+                e.penalBeta[v] = Math.pow(1.0 / (1 + e.libreEn[v]), beta);
+                e.nodo[v] = v;
             }
+            return e;
+        }
+
+        void copiarDe(EstadoHormiga base) {
+            int V = tamanio();
+            System.arraycopy(base.capacidad, 0, capacidad, 0, V);
+            System.arraycopy(base.combustible, 0, combustible, 0, V);
+            System.arraycopy(base.libreEn, 0, libreEn, 0, V);
+            System.arraycopy(base.penalBeta, 0, penalBeta, 0, V);
+            System.arraycopy(base.nodo, 0, nodo, 0, V);
+        }
+
+        int tamanio() {
+            return capacidad.length;
         }
-        return prob;
     }
 
     // ------------------------------------------------------------
-    // 5) Muestreo aleatorio ponderado (ruleta) → Selección
+    // 3) Inicializar rutas vacías (una por camión)
     // ------------------------------------------------------------
-    private static class Seleccion { int camionIdx, pedidoIdx; }
-
-    private Seleccion muestrearPar(double[][] prob, List<Integer> noAsignados) {
-        double total = 0;
-        for (int v = 0; v < prob.length; v++)
-            for (int idx : noAsignados)
-                total += prob[v][idx];
-
-        double r = Math.random() * total;
-        double acumulado = 0;
-        for (int v = 0; v < prob.length; v++) {
-            for (int idx : noAsignados) {
-                acumulado += prob[v][idx];
-                if (acumulado >= r) {
-                    Seleccion s = new Seleccion();
-                    s.camionIdx = v;
-                    s.pedidoIdx = idx;
-                    return s;
-                }
-            }
+    private List<Ruta> initRutas(EstadoHormiga base) {
+        List<Ruta> rutas = new ArrayList<>(base.tamanio());
+        for (String id : base.ids) {
+            rutas.add(new Ruta(id));
         }
-        // fallback
-        Seleccion s = new Seleccion();
-        s.camionIdx = 0;
-        s.pedidoIdx = noAsignados.get(0);
-        return s;
+        return rutas;
     }
 
     // ------------------------------------------------------------
-    // 6) Intento de asignar un pedido a una ruta (con checks)
+    // 4) Pesos de atracción (feromonas + heurística)
     // ------------------------------------------------------------
-    private boolean asignarPedidoARuta(
-            int camionIdx,
-            int pedidoIdx,
-            List<Ruta> rutas,
-            List<CamionEstado> flotaClonada,
-            List<Pedido> pedidosActivos,
-            LocalDateTime tiempoActual) {
+    private void actualizarFila(ArbolSumas pesos, int v, EstadoHormiga estado, DatosACO datos,
+                                boolean[] asignado, double[] tauAlpha, double[] fila) {
+        kernel.pesosFila(datos, estado.nodo[v], estado.capacidad[v], estado.combustible[v], estado.tara[v],
+                estado.penalBeta[v], asignado, tauAlpha, v * datos.N, fila);
+        pesos.fijarTramo(v * datos.N, fila, datos.N);
+    }
 
+    // ------------------------------------------------------------
+    // 5) Intento de asignar un pedido a una ruta (con checks)
+    // ------------------------------------------------------------
+    private boolean asignarPedidoARuta(int camionIdx, int pedidoIdx, List<Ruta> rutas, EstadoHormiga estado, DatosACO datos) {
         Ruta ruta = rutas.get(camionIdx);
-        CamionEstado c = findCamionInList(ruta.getCamionId(), flotaClonada);
-        if (c == null) return false;
-        Pedido p   = pedidosActivos.get(pedidoIdx);
 
         if (ruta.getPedidoIds().contains(pedidoIdx)) return false;
-        if (c.getCapacidadDisponible() < p.getVolumen()) return false;
-
-        int dx = Math.abs(c.getX() - p.getX());
-        int dy = Math.abs(c.getY() - p.getY());
-        int distKm  = dx + dy;
-        double minPorKm = 60.0 / 50.0;
-        int tiempoViaje = (int) Math.ceil(distKm * minPorKm);
+        if (estado.capacidad[camionIdx] < datos.volumen[pedidoIdx]) return false;
 
-        LocalDateTime tiempoEstimadoLlegada = tiempoActual.plusMinutes(tiempoViaje);
-        if (tiempoEstimadoLlegada.isAfter(p.getTiempoLimite())) return false;
+        int nodo = estado.nodo[camionIdx];
+        if (!datos.factible(nodo, pedidoIdx)) return false;
+        int k = nodo * datos.N + pedidoIdx;
+        int distKm = datos.distancia[k];
 
-        double pesoCargaTon = p.getVolumen() * 0.5;
-        double pesoTaraTon  = c.getPlantilla().getTara() / 1000.0;
-        double pesoTotalTon = pesoTaraTon + pesoCargaTon;
+        double pesoTotalTon = estado.tara[camionIdx] + datos.volumen[pedidoIdx] * 0.5;
         double galNecesarios = distKm * pesoTotalTon / 180.0;
-        if (c.getCombustibleActual() < galNecesarios) return false;
+        if (estado.combustible[camionIdx] < galNecesarios) return false;
 
-        // actualizar estado camión CLONADO
-        c.setTiempoLibre(tiempoActual.plusMinutes(tiempoViaje + 15)); // +15 min descarga
-        c.setX(p.getX());
-        c.setY(p.getY());
-
-        double nuevaCapacidad = c.getCapacidadDisponible() - p.getVolumen();
-        if (nuevaCapacidad < 0) return false;
-        c.setCapacidadDisponible(nuevaCapacidad);
+        // actualizar estado de la hormiga
+        estado.libreEn[camionIdx] = datos.viaje[k] + 15; // +15 min descarga
+        estado.penalBeta[camionIdx] = Math.pow(1.0 / (1 + estado.libreEn[camionIdx]), datos.beta);
+        estado.nodo[camionIdx] = datos.nodoPedido(pedidoIdx);
+        estado.capacidad[camionIdx] -= datos.volumen[pedidoIdx];
 
         ruta.distancia      += distKm;
         ruta.consumo        += galNecesarios;
-        c.setCombustibleDisponible(c.getCombustibleActual() - galNecesarios);
+        estado.combustible[camionIdx] -= galNecesarios;
 
         ruta.getPedidoIds().add(pedidoIdx);
         return true;
     }
 
     // ------------------------------------------------------------
-    // 7) Costo total de las rutas (suma de consumos)
+    // 6) Costo total de las rutas (suma de consumos)
     // ------------------------------------------------------------
     private double calcularCosteTotal(List<Ruta> sol) {
         // + 100 por pedido con ventana de entrega < 90 minutos
@@ -281,16 +725,7 @@ public class ACOPlanner {
     }
 
     // ------------------------------------------------------------
-    // 8) Buscar un camión en una flota por su id
-    // ------------------------------------------------------------
-    private CamionEstado findCamionInList(String id, List<CamionEstado> flota) {
-        return flota.stream()
-                .filter(c -> c.getPlantilla().getId().equals(id))
-                .findFirst().orElse(null);
-    }
-
-    // ------------------------------------------------------------
-    // 9) Verificar si un punto p está bloqueado en timeMin
+    // 7) Verificar si un punto p está bloqueado en timeMin
     // ------------------------------------------------------------
     //private boolean puntoBloqueado(int timeMin, Point p) {
     //    for (Bloqueo b : estado.getBloqueos())
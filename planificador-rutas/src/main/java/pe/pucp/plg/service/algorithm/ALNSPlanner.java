@@ -0,0 +1,474 @@
+package pe.pucp.plg.service.algorithm;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.Ruta;
+import pe.pucp.plg.model.state.CamionEstado;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Búsqueda adaptativa de vecindario grande (ALNS), alternativa al ACO.
+ *
+ * Parte del plan anterior (los pedidos que siguen en el problema, en el mismo camión y orden
+ * mientras sigan siendo factibles) y completa con inserción voraz, así que una
+ * replanificación repara el plan en lugar de resolver desde cero. En cada iteración
+ * destruye una parte de la solución y la repara; los operadores se eligen por ruleta con
+ * pesos que se adaptan según su éxito, y la aceptación es por recocido simulado.
+ *
+ * Usa el mismo modelo que el ACO ({@link DatosACO}): tramos factibles, capacidad y combustible
+ * inicial por camión, y coste = galones consumidos + una penalización por pedido sin ruta.
+ * La penalización supera todo el combustible de la flota, así que el orden es lexicográfico:
+ * primero servir más pedidos y, a igual número, gastar menos.
+ */
+@Service
+public class ALNSPlanner implements RoutePlanner {
+
+    private static final int ITERACIONES_MAX = 5000;
+    // Fracción de pedidos asignados que se destruye en cada iteración
+    private static final double MIN_DESTRUIR = 0.1, MAX_DESTRUIR = 0.4;
+    private static final int MIN_QUITAR = 2;
+    // Aleatoriedad de los operadores "peor" y "relacionada" (1 = uniforme)
+    private static final double DETERMINISMO = 4.0;
+    // Pesos adaptativos: puntajes por nuevo mejor global, mejora de la actual y peor aceptada
+    private static final double PUNTAJE_MEJOR = 33, PUNTAJE_MEJORA = 9, PUNTAJE_ACEPTADA = 13;
+    private static final int SEGMENTO = 50;
+    private static final double REACCION = 0.1;
+    // Recocido: una solución 5% peor que la inicial se acepta al principio con probabilidad 1/2
+    private static final double PEOR_ACEPTABLE = 0.05;
+    private static final double ENFRIAMIENTO = 0.998;
+
+    private static final String[] DESTRUCCION = {"aleatoria", "peor", "relacionada"};
+    private static final String[] REPARACION = {"voraz", "arrepentimiento"};
+
+    private final long presupuestoNanos;
+    private final int paciencia;
+    private final long semilla;
+
+    @Autowired
+    public ALNSPlanner(@Value("${alns.presupuesto-ms:2000}") long presupuestoMs,
+                       @Value("${alns.paciencia:300}") int paciencia,
+                       @Value("${alns.semilla:20250101}") long semilla) {
+        if (presupuestoMs <= 0) {
+            throw new IllegalArgumentException("alns.presupuesto-ms debe ser positivo: " + presupuestoMs);
+        }
+        this.presupuestoNanos = presupuestoMs * 1_000_000L;
+        this.paciencia = paciencia > 0 ? paciencia : ITERACIONES_MAX;
+        this.semilla = semilla;
+    }
+
+    @Override
+    public String nombre() {
+        return "alns";
+    }
+
+    @Override
+    public List<Ruta> planificar(ProblemaPlanificacion problema) {
+        if (problema.getPedidos().isEmpty() || problema.getFlota().isEmpty()) {
+            return Collections.emptyList();
+        }
+        long limite = System.nanoTime() + presupuestoNanos;
+        long semillaCorrida = ACOPlanner.mezclar(semilla, problema.getTiempoActual().toEpochSecond(ZoneOffset.UTC) / 60);
+        Corrida corrida = new Corrida(problema, new SplittableRandom(semillaCorrida));
+
+        Solucion actual = corrida.inicial(problema.getPlanAnterior());
+        int reutilizados = actual.asignados();
+        corrida.reparar(actual, 0);
+        Solucion mejor = actual.copia();
+        double costeInicial = actual.coste();
+        double consumoInicial = actual.consumoTotal();
+
+        double[] pesosD = new double[DESTRUCCION.length], pesosR = new double[REPARACION.length];
+        double[] puntosD = new double[pesosD.length], puntosR = new double[pesosR.length];
+        int[] usosD = new int[pesosD.length], usosR = new int[pesosR.length];
+        Arrays.fill(pesosD, 1.0);
+        Arrays.fill(pesosR, 1.0);
+        // La temperatura se mide en galones: perder un pedido nunca se acepta en la práctica
+        double temperatura = PEOR_ACEPTABLE * Math.max(consumoInicial, 1e-3) / Math.log(2);
+
+        int it = 0, sinMejora = 0;
+        String motivoCorte = "iteraciones";
+        for (; it < ITERACIONES_MAX; it++) {
+            if (sinMejora >= paciencia) { motivoCorte = "sin mejora en " + paciencia + " iteraciones"; break; }
+            if (System.nanoTime() - limite >= 0) { motivoCorte = "presupuesto agotado"; break; }
+            if (Thread.currentThread().isInterrupted()) { motivoCorte = "interrumpido"; break; }
+
+            int od = corrida.ruleta(pesosD), or = corrida.ruleta(pesosR);
+            Solucion candidata = actual.copia();
+            corrida.destruir(candidata, od);
+            corrida.reparar(candidata, or);
+            usosD[od]++;
+            usosR[or]++;
+
+            double coste = candidata.coste(), costeActual = actual.coste();
+            double puntaje = 0;
+            if (coste < mejor.coste() - 1e-9) {
+                mejor = candidata.copia();
+                actual = candidata;
+                puntaje = PUNTAJE_MEJOR;
+                sinMejora = 0;
+            } else {
+                sinMejora++;
+                if (coste < costeActual - 1e-9) {
+                    actual = candidata;
+                    puntaje = PUNTAJE_MEJORA;
+                } else if (corrida.rng.nextDouble() < Math.exp((costeActual - coste) / temperatura)) {
+                    actual = candidata;
+                    puntaje = PUNTAJE_ACEPTADA;
+                }
+            }
+            puntosD[od] += puntaje;
+            puntosR[or] += puntaje;
+            temperatura *= ENFRIAMIENTO;
+
+            if ((it + 1) % SEGMENTO == 0) {
+                actualizarPesos(pesosD, puntosD, usosD);
+                actualizarPesos(pesosR, puntosR, usosR);
+            }
+        }
+
+        List<Ruta> rutas = corrida.rutas(mejor);
+        rutas = new BusquedaLocal(corrida.d, corrida.ids, corrida.tara, corrida.capacidad, corrida.combustible).mejorar(rutas);
+        System.out.printf("🧭 [ALNS] %d iteraciones (%s), %d/%d pedidos del plan anterior, coste %.3f → %.3f, sin ruta %d%n",
+                it, motivoCorte, reutilizados, corrida.d.N, costeInicial, mejor.coste(), mejor.sinAsignar);
+        return rutas;
+    }
+
+    private static void actualizarPesos(double[] pesos, double[] puntos, int[] usos) {
+        for (int k = 0; k < pesos.length; k++) {
+            if (usos[k] > 0) {
+                pesos[k] = pesos[k] * (1 - REACCION) + REACCION * puntos[k] / usos[k];
+            }
+            pesos[k] = Math.max(pesos[k], 0.01);
+            puntos[k] = 0;
+            usos[k] = 0;
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Solución: secuencia de pedidos por camión
+    // ------------------------------------------------------------
+    private static final class Solucion {
+        final int[][] seq;
+        final int[] len;
+        final double[] carga, consumo;
+        final int[] ruta;   // camión de cada pedido, -1 si no tiene
+        final double penalizacion; // galones por pedido sin ruta
+        int sinAsignar;
+
+        Solucion(int V, int N, double penalizacion) {
+            seq = new int[V][N];
+            len = new int[V];
+            carga = new double[V];
+            consumo = new double[V];
+            ruta = new int[N];
+            Arrays.fill(ruta, -1);
+            this.penalizacion = penalizacion;
+            sinAsignar = N;
+        }
+
+        Solucion copia() {
+            int V = len.length, N = ruta.length;
+            Solucion s = new Solucion(V, N, penalizacion);
+            for (int v = 0; v < V; v++) {
+                System.arraycopy(seq[v], 0, s.seq[v], 0, len[v]);
+            }
+            System.arraycopy(len, 0, s.len, 0, V);
+            System.arraycopy(carga, 0, s.carga, 0, V);
+            System.arraycopy(consumo, 0, s.consumo, 0, V);
+            System.arraycopy(ruta, 0, s.ruta, 0, N);
+            s.sinAsignar = sinAsignar;
+            return s;
+        }
+
+        double coste() {
+            return sinAsignar * penalizacion + consumoTotal();
+        }
+
+        double consumoTotal() {
+            double total = 0;
+            for (double c : consumo) total += c;
+            return total;
+        }
+
+        int asignados() {
+            return ruta.length - sinAsignar;
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Datos y operadores de una corrida
+    // ------------------------------------------------------------
+    private static final class Corrida {
+        final DatosACO d;
+        final SplittableRandom rng;
+        final String[] ids;
+        final double[] tara, capacidad, combustible;
+        final List<Pedido> pedidos;
+        // Más que el combustible de toda la flota: ninguna diferencia de consumo compensa un pedido
+        final double penalizacion;
+
+        Corrida(ProblemaPlanificacion problema, SplittableRandom rng) {
+            List<CamionEstado> flota = problema.getFlota();
+            this.pedidos = problema.getPedidos();
+            this.d = DatosACO.construir(pedidos, flota, problema.getTiempoActual(), problema.getTiempos(), 1.0);
+            this.rng = rng;
+            int V = flota.size();
+            ids = new String[V];
+            tara = new double[V];
+            capacidad = new double[V];
+            combustible = new double[V];
+            for (int v = 0; v < V; v++) {
+                CamionEstado c = flota.get(v);
+                ids[v] = c.getPlantilla().getId();
+                tara[v] = c.getPlantilla().getTara() / 1000.0;
+                capacidad[v] = c.getCapacidadDisponible();
+                combustible[v] = c.getCombustibleActual();
+            }
+            double tanques = 0;
+            for (double c : combustible) tanques += c;
+            penalizacion = tanques + 1.0;
+        }
+
+        double arco(int v, int desde, int j) {
+            return d.distancia[desde * d.N + j] * (tara[v] + d.volumen[j] * 0.5) / 180.0;
+        }
+
+        int previo(Solucion s, int v, int p) {
+            return p == 0 ? v : d.nodoPedido(s.seq[v][p - 1]);
+        }
+
+        /** Plan anterior, por ids, recortado a lo que sigue siendo factible en este problema. */
+        Solucion inicial(Map<String, List<String>> planAnterior) {
+            Solucion s = new Solucion(d.V, d.N, penalizacion);
+            if (planAnterior.isEmpty()) return s;
+            Map<String, Integer> indicePedido = new HashMap<>();
+            for (int i = 0; i < d.N; i++) indicePedido.put(pedidos.get(i).getId(), i);
+            for (int v = 0; v < d.V; v++) {
+                List<String> anterior = planAnterior.get(ids[v]);
+                if (anterior == null) continue;
+                for (String pedidoId : anterior) {
+                    Integer j = indicePedido.get(pedidoId);
+                    if (j == null || s.ruta[j] >= 0) continue;
+                    double delta = costeInsercion(s, v, s.len[v], j);
+                    if (!Double.isNaN(delta)) insertar(s, v, s.len[v], j, delta);
+                }
+            }
+            return s;
+        }
+
+        /** Delta de insertar j en la ruta v antes de la posición q; NaN si no es factible. */
+        double costeInsercion(Solucion s, int v, int q, int j) {
+            if (s.carga[v] + d.volumen[j] > capacidad[v]) return Double.NaN;
+            int b = previo(s, v, q);
+            int m = q < s.len[v] ? s.seq[v][q] : -1;
+            if (!d.factible(b, j)) return Double.NaN;
+            if (m >= 0 && !d.factible(d.nodoPedido(j), m)) return Double.NaN;
+            double delta = arco(v, b, j);
+            if (m >= 0) delta += arco(v, d.nodoPedido(j), m) - arco(v, b, m);
+            if (s.consumo[v] + delta > combustible[v]) return Double.NaN;
+            return delta;
+        }
+
+        void insertar(Solucion s, int v, int q, int j, double delta) {
+            System.arraycopy(s.seq[v], q, s.seq[v], q + 1, s.len[v] - q);
+            s.seq[v][q] = j;
+            s.len[v]++;
+            s.carga[v] += d.volumen[j];
+            s.consumo[v] += delta;
+            s.ruta[j] = v;
+            s.sinAsignar--;
+        }
+
+        /**
+         * Quita el pedido j. Si el tramo que queda (anterior → siguiente) no es factible o el
+         * combustible no alcanza, quita también el siguiente, y así sucesivamente.
+         */
+        void quitar(Solucion s, int j) {
+            int v = s.ruta[j];
+            int p = 0;
+            while (s.seq[v][p] != j) p++;
+            quitarPosicion(s, v, p);
+            while (p < s.len[v] && (!d.factible(previo(s, v, p), s.seq[v][p]) || s.consumo[v] > combustible[v] + 1e-9)) {
+                quitarPosicion(s, v, p);
+            }
+        }
+
+        private void quitarPosicion(Solucion s, int v, int p) {
+            int j = s.seq[v][p];
+            System.arraycopy(s.seq[v], p + 1, s.seq[v], p, s.len[v] - p - 1);
+            s.len[v]--;
+            s.carga[v] -= d.volumen[j];
+            s.ruta[j] = -1;
+            s.sinAsignar++;
+            double consumo = 0;
+            for (int k = 0; k < s.len[v]; k++) consumo += arco(v, previo(s, v, k), s.seq[v][k]);
+            s.consumo[v] = consumo;
+        }
+
+        int ruleta(double[] pesos) {
+            double total = 0;
+            for (double w : pesos) total += w;
+            double r = rng.nextDouble() * total;
+            for (int k = 0; k < pesos.length; k++) {
+                r -= pesos[k];
+                if (r < 0) return k;
+            }
+            return pesos.length - 1;
+        }
+
+        /** Índice sesgado hacia el principio de una lista ordenada (y^DETERMINISMO). */
+        private int sesgado(int tamanio) {
+            return (int) (Math.pow(rng.nextDouble(), DETERMINISMO) * tamanio);
+        }
+
+        // -------------------- destrucción --------------------
+        void destruir(Solucion s, int operador) {
+            List<Integer> asignados = new ArrayList<>(s.asignados());
+            for (int j = 0; j < d.N; j++) if (s.ruta[j] >= 0) asignados.add(j);
+            if (asignados.isEmpty()) return;
+            int minimo = Math.min(asignados.size(), Math.max(MIN_QUITAR, (int) (MIN_DESTRUIR * asignados.size())));
+            int maximo = Math.max(minimo, (int) (MAX_DESTRUIR * asignados.size()));
+            int q = minimo + rng.nextInt(maximo - minimo + 1);
+
+            switch (operador) {
+                case 0 -> { // aleatoria
+                    for (int k = 0; k < q && !asignados.isEmpty(); k++) {
+                        int j = asignados.remove(rng.nextInt(asignados.size()));
+                        if (s.ruta[j] >= 0) quitar(s, j);
+                    }
+                }
+                case 1 -> { // peor: los pedidos que más cuesta atender donde están
+                    for (int k = 0; k < q; k++) {
+                        asignados.removeIf(j -> s.ruta[j] < 0);
+                        if (asignados.isEmpty()) break;
+                        asignados.sort((a, b) -> Double.compare(ahorro(s, b), ahorro(s, a)));
+                        quitar(s, asignados.remove(sesgado(asignados.size())));
+                    }
+                }
+                default -> { // relacionada: vecinos (en tiempo real de viaje) de un pedido semilla
+                    int semillaPedido = asignados.get(rng.nextInt(asignados.size()));
+                    asignados.sort((a, b) -> Integer.compare(cercania(semillaPedido, a), cercania(semillaPedido, b)));
+                    List<Integer> elegidos = new ArrayList<>(q);
+                    while (elegidos.size() < q && !asignados.isEmpty()) {
+                        elegidos.add(asignados.remove(sesgado(asignados.size())));
+                    }
+                    for (int j : elegidos) if (s.ruta[j] >= 0) quitar(s, j);
+                }
+            }
+        }
+
+        /** Galones que se ahorran al quitar j de su ruta (sin contar el efecto cascada). */
+        private double ahorro(Solucion s, int j) {
+            int v = s.ruta[j];
+            int p = 0;
+            while (s.seq[v][p] != j) p++;
+            int a = previo(s, v, p);
+            double ahorro = arco(v, a, j);
+            if (p + 1 < s.len[v]) {
+                int n = s.seq[v][p + 1];
+                ahorro += arco(v, d.nodoPedido(j), n) - (d.distancia[a * d.N + n] < 0 ? 0 : arco(v, a, n));
+            }
+            return ahorro;
+        }
+
+        private int cercania(int a, int b) {
+            if (a == b) return -1;
+            int ab = d.distancia[d.nodoPedido(a) * d.N + b], ba = d.distancia[d.nodoPedido(b) * d.N + a];
+            if (ab < 0) return ba < 0 ? Integer.MAX_VALUE : ba;
+            return ba < 0 ? ab : Math.min(ab, ba);
+        }
+
+        // -------------------- reparación --------------------
+        /**
+         * Inserta pedidos sin ruta mientras alguno quepa. La mejor posición de cada pedido en
+         * cada camión se guarda y, tras una inserción, sólo se recalcula la del camión que cambió.
+         */
+        void reparar(Solucion s, int operador) {
+            boolean arrepentimiento = operador == 1;
+            int[] pendientes = new int[s.sinAsignar];
+            int P = 0;
+            for (int j = 0; j < d.N; j++) if (s.ruta[j] < 0) pendientes[P++] = j;
+            double[][] mejorDelta = new double[P][d.V];
+            int[][] mejorQ = new int[P][d.V];
+            for (int k = 0; k < P; k++)
+                for (int v = 0; v < d.V; v++) mejorEnRuta(s, v, pendientes[k], mejorDelta[k], mejorQ[k]);
+
+            boolean[] hecho = new boolean[P];
+            while (true) {
+                int elegido = -1, vElegido = -1;
+                double criterioElegido = Double.NEGATIVE_INFINITY;
+                for (int k = 0; k < P; k++) {
+                    if (hecho[k]) continue;
+                    double primero = Double.MAX_VALUE, segundo = Double.MAX_VALUE;
+                    int vPrimero = -1;
+                    for (int v = 0; v < d.V; v++) {
+                        double delta = mejorDelta[k][v];
+                        if (delta < primero) {
+                            segundo = primero;
+                            primero = delta;
+                            vPrimero = v;
+                        } else if (delta < segundo) {
+                            segundo = delta;
+                        }
+                    }
+                    if (primero == Double.MAX_VALUE) continue;
+                    // Voraz: la inserción más barata. Arrepentimiento: el pedido que más pierde
+                    // si no va a su mejor camión (con una sola opción, el arrepentimiento es máximo).
+                    double criterio = arrepentimiento
+                            ? (segundo == Double.MAX_VALUE ? Double.MAX_VALUE : segundo - primero)
+                            : -primero;
+                    if (criterio > criterioElegido) {
+                        criterioElegido = criterio;
+                        elegido = k;
+                        vElegido = vPrimero;
+                    }
+                }
+                if (elegido < 0) return; // lo que queda no cabe en ningún camión
+                insertar(s, vElegido, mejorQ[elegido][vElegido], pendientes[elegido], mejorDelta[elegido][vElegido]);
+                hecho[elegido] = true;
+                for (int k = 0; k < P; k++) {
+                    if (!hecho[k]) mejorEnRuta(s, vElegido, pendientes[k], mejorDelta[k], mejorQ[k]);
+                }
+            }
+        }
+
+        /** Mejor posición de j en la ruta v; deja MAX_VALUE si no cabe en ninguna. */
+        private void mejorEnRuta(Solucion s, int v, int j, double[] mejorDelta, int[] mejorQ) {
+            mejorDelta[v] = Double.MAX_VALUE;
+            mejorQ[v] = -1;
+            for (int q = 0; q <= s.len[v]; q++) {
+                double delta = costeInsercion(s, v, q, j);
+                if (!Double.isNaN(delta) && delta < mejorDelta[v]) {
+                    mejorDelta[v] = delta;
+                    mejorQ[v] = q;
+                }
+            }
+        }
+
+        List<Ruta> rutas(Solucion s) {
+            List<Ruta> rutas = new ArrayList<>(d.V);
+            for (int v = 0; v < d.V; v++) {
+                Ruta r = new Ruta(ids[v]);
+                for (int p = 0; p < s.len[v]; p++) {
+                    int j = s.seq[v][p], desde = previo(s, v, p);
+                    r.addPedidoId(j);
+                    r.distancia += d.distancia[desde * d.N + j];
+                    r.consumo += arco(v, desde, j);
+                }
+                rutas.add(r);
+            }
+            return rutas;
+        }
+    }
+}
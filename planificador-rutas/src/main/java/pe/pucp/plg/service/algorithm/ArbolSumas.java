@@ -0,0 +1,78 @@
+package pe.pucp.plg.service.algorithm;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Árbol de segmentos de sumas sobre pesos no negativos: actualizar un peso y
+ * muestrear un índice con probabilidad proporcional a su peso cuestan O(log n).
+ * Los nodos internos se recalculan desde sus hijos, así que el total no acumula
+ * error de redondeo por actualizaciones sucesivas.
+ */
+final class ArbolSumas {
+
+    private final int hojas;     // potencia de dos >= n
+    private final double[] suma; // suma[1] es la raíz; las hojas empiezan en 'hojas'
+
+    ArbolSumas(int n) {
+        int h = 1;
+        while (h < Math.max(1, n)) h <<= 1;
+        this.hojas = h;
+        this.suma = new double[2 * h];
+    }
+
+    void limpiar() {
+        Arrays.fill(suma, 0.0);
+    }
+
+    double peso(int i) {
+        return suma[hojas + i];
+    }
+
+    void fijar(int i, double peso) {
+        int k = hojas + i;
+        suma[k] = peso;
+        for (k >>>= 1; k >= 1; k >>>= 1) {
+            suma[k] = suma[2 * k] + suma[2 * k + 1];
+        }
+    }
+
+    /**
+     * Fija los pesos [desde, desde + n) de una vez y recalcula sólo los ancestros de ese
+     * tramo, nivel por nivel: O(n + log) en lugar de O(n log) con {@link #fijar}.
+     */
+    void fijarTramo(int desde, double[] pesos, int n) {
+        if (n <= 0) return;
+        int lo = hojas + desde, hi = lo + n - 1;
+        System.arraycopy(pesos, 0, suma, lo, n);
+        for (lo >>>= 1, hi >>>= 1; lo >= 1; lo >>>= 1, hi >>>= 1) {
+            for (int k = lo; k <= hi; k++) {
+                suma[k] = suma[2 * k] + suma[2 * k + 1];
+            }
+        }
+    }
+
+    double total() {
+        return suma[1];
+    }
+
+    /**
+     * Índice i con probabilidad peso(i) / total(): el primero cuya suma acumulada
+     * alcanza r = u * total (igual que una ruleta recorrida en orden).
+     * Nunca devuelve un índice con peso cero; el total debe ser positivo.
+     */
+    int muestrear(SplittableRandom rng) {
+        double r = rng.nextDouble() * suma[1];
+        int k = 1;
+        while (k < hojas) {
+            double izq = suma[2 * k];
+            if (izq > 0 && (r <= izq || suma[2 * k + 1] <= 0)) {
+                k = 2 * k;
+            } else {
+                r -= izq;
+                k = 2 * k + 1;
+            }
+        }
+        return k - hojas;
+    }
+}
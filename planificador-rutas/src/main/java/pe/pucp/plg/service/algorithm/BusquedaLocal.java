@@ -0,0 +1,377 @@
+package pe.pucp.plg.service.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pe.pucp.plg.model.common.Ruta;
+
+/**
+ * Mejora local de una solución del ACO con el mismo modelo de coste que las hormigas:
+ * cada tramo (nodo → pedido j) del camión v consume {@code distancia * (tara_v + volumen_j / 2) / 180}
+ * galones, y sólo se admiten tramos factibles según {@link DatosACO#factible}.
+ *
+ * Movimientos, todos con primera mejora y evaluación del delta en O(1):
+ * <ul>
+ *   <li>2-opt dentro de una ruta (invertir un tramo; la matriz no es simétrica, así que los
+ *       costes de los arcos invertidos salen de sumas prefijas por ruta)</li>
+ *   <li>or-opt dentro de una ruta (mover un bloque de 1 a 3 pedidos)</li>
+ *   <li>reubicar un pedido en otra ruta</li>
+ *   <li>intercambiar dos pedidos entre rutas</li>
+ * </ul>
+ * Opcionalmente inserta antes los pedidos que quedaron sin ruta (cambia el número de
+ * asignados, así que no es parte del modelo de las hormigas).
+ * Se respeta la capacidad y el combustible inicial de cada camión. No es seguro entre hilos:
+ * una instancia por corrida, usada desde el hilo que coordina las iteraciones.
+ */
+final class BusquedaLocal {
+
+    private static final double EPS = 1e-9;
+    private static final int MAX_PASADAS = 50;
+    private static final int MAX_BLOQUE = 3;
+
+    private final DatosACO d;
+    private final String[] ids;
+    private final double[] tara, capacidad, combustible;
+
+    // Solución en curso: secuencia de pedidos por camión
+    private final int[][] seq;
+    private final int[] len;
+    private final double[] carga, consumo;
+
+    // Sumas prefijas de la ruta en la que trabaja el 2-opt
+    private double[] prefAdelante = new double[0], prefAtras = new double[0];
+    private int[] prefInfactibles = new int[0];
+
+    BusquedaLocal(DatosACO d, String[] ids, double[] tara, double[] capacidad, double[] combustible) {
+        this.d = d;
+        this.ids = ids;
+        this.tara = tara;
+        this.capacidad = capacidad;
+        this.combustible = combustible;
+        this.seq = new int[d.V][];
+        this.len = new int[d.V];
+        this.carga = new double[d.V];
+        this.consumo = new double[d.V];
+    }
+
+    /** Devuelve una solución nueva, nunca peor que la recibida (una ruta por camión, en orden). */
+    List<Ruta> mejorar(List<Ruta> solucion) {
+        return mejorar(solucion, false);
+    }
+
+    /**
+     * Como {@link #mejorar(List)}, pero si {@code completar} antes inserta, por menor coste,
+     * los pedidos sin ruta que quepan en alguna.
+     */
+    List<Ruta> mejorar(List<Ruta> solucion, boolean completar) {
+        cargar(solucion);
+        if (completar) {
+            insertarSinRuta();
+        }
+        for (int pasada = 0; pasada < MAX_PASADAS; pasada++) {
+            boolean mejoro = false;
+            for (int v = 0; v < d.V; v++) {
+                mejoro |= dosOpt(v);
+                mejoro |= orOpt(v);
+            }
+            mejoro |= reubicar();
+            mejoro |= intercambiar();
+            if (!mejoro) break;
+        }
+        return construir();
+    }
+
+    // ------------------------------------------------------------
+    // Modelo de coste
+    // ------------------------------------------------------------
+    private double arco(int v, int desde, int j) {
+        return d.distancia[desde * d.N + j] * (tara[v] + d.volumen[j] * 0.5) / 180.0;
+    }
+
+    /** Nodo anterior a la posición p de la ruta v (el punto de partida si p == 0). */
+    private int previo(int v, int p) {
+        return p == 0 ? v : d.nodoPedido(seq[v][p - 1]);
+    }
+
+    private void cargar(List<Ruta> solucion) {
+        for (int v = 0; v < d.V; v++) {
+            List<Integer> pedidos = solucion.get(v).getPedidoIds();
+            seq[v] = new int[d.N];
+            len[v] = pedidos.size();
+            carga[v] = 0;
+            consumo[v] = 0;
+            for (int p = 0; p < len[v]; p++) {
+                int j = pedidos.get(p);
+                seq[v][p] = j;
+                carga[v] += d.volumen[j];
+                consumo[v] += arco(v, previo(v, p), j);
+            }
+        }
+    }
+
+    private List<Ruta> construir() {
+        List<Ruta> rutas = new ArrayList<>(d.V);
+        for (int v = 0; v < d.V; v++) {
+            Ruta r = new Ruta(ids[v]);
+            for (int p = 0; p < len[v]; p++) {
+                int j = seq[v][p], desde = previo(v, p);
+                r.addPedidoId(j);
+                r.distancia += d.distancia[desde * d.N + j];
+                r.consumo += arco(v, desde, j);
+            }
+            rutas.add(r);
+        }
+        return rutas;
+    }
+
+    // ------------------------------------------------------------
+    // Inserción voraz de los pedidos sin ruta
+    // ------------------------------------------------------------
+    private void insertarSinRuta() {
+        boolean[] asignado = new boolean[d.N];
+        for (int v = 0; v < d.V; v++)
+            for (int p = 0; p < len[v]; p++) asignado[seq[v][p]] = true;
+        while (true) {
+            int mejorJ = -1, mejorV = -1, mejorQ = -1;
+            double mejorDelta = Double.MAX_VALUE;
+            for (int j = 0; j < d.N; j++) {
+                if (asignado[j]) continue;
+                for (int v = 0; v < d.V; v++) {
+                    if (carga[v] + d.volumen[j] > capacidad[v]) continue;
+                    for (int q = 0; q <= len[v]; q++) {
+                        int b = previo(v, q);
+                        int m = q < len[v] ? seq[v][q] : -1;
+                        if (!d.factible(b, j)) continue;
+                        if (m >= 0 && !d.factible(d.nodoPedido(j), m)) continue;
+                        double delta = arco(v, b, j);
+                        if (m >= 0) delta += arco(v, d.nodoPedido(j), m) - arco(v, b, m);
+                        if (delta < mejorDelta && consumo[v] + delta <= combustible[v]) {
+                            mejorDelta = delta;
+                            mejorJ = j;
+                            mejorV = v;
+                            mejorQ = q;
+                        }
+                    }
+                }
+            }
+            if (mejorJ < 0) return;
+            System.arraycopy(seq[mejorV], mejorQ, seq[mejorV], mejorQ + 1, len[mejorV] - mejorQ);
+            seq[mejorV][mejorQ] = mejorJ;
+            len[mejorV]++;
+            carga[mejorV] += d.volumen[mejorJ];
+            consumo[mejorV] += mejorDelta;
+            asignado[mejorJ] = true;
+        }
+    }
+
+    // ------------------------------------------------------------
+    // 2-opt: invertir seq[i..j]
+    // ------------------------------------------------------------
+    private boolean dosOpt(int v) {
+        boolean alguna = false;
+        int[] s = seq[v];
+        boolean mejoro = true;
+        while (mejoro) {
+            mejoro = false;
+            int n = len[v];
+            if (n < 2) return alguna;
+            prefijos(v);
+            buscar:
+            for (int i = 0; i < n - 1; i++) {
+                int a = previo(v, i);
+                for (int j = i + 1; j < n; j++) {
+                    if (!d.factible(a, s[j])) continue;
+                    if (prefInfactibles[j] - prefInfactibles[i] > 0) continue;
+                    int sig = j + 1 < n ? s[j + 1] : -1;
+                    if (sig >= 0 && !d.factible(d.nodoPedido(s[i]), sig)) continue;
+                    double antes = arco(v, a, s[i]) + prefAdelante[j] - prefAdelante[i]
+                            + (sig >= 0 ? arco(v, d.nodoPedido(s[j]), sig) : 0);
+                    double despues = arco(v, a, s[j]) + prefAtras[j] - prefAtras[i]
+                            + (sig >= 0 ? arco(v, d.nodoPedido(s[i]), sig) : 0);
+                    double delta = despues - antes;
+                    if (delta < -EPS && consumo[v] + delta <= combustible[v]) {
+                        for (int x = i, y = j; x < y; x++, y--) {
+                            int t = s[x]; s[x] = s[y]; s[y] = t;
+                        }
+                        consumo[v] += delta;
+                        mejoro = alguna = true;
+                        break buscar;
+                    }
+                }
+            }
+        }
+        return alguna;
+    }
+
+    /** Sumas prefijas de los arcos internos s[m]→s[m+1] (adelante) y s[m+1]→s[m] (atrás). */
+    private void prefijos(int v) {
+        int n = len[v];
+        if (prefAdelante.length < n) {
+            prefAdelante = new double[d.N];
+            prefAtras = new double[d.N];
+            prefInfactibles = new int[d.N];
+        }
+        int[] s = seq[v];
+        prefAdelante[0] = prefAtras[0] = 0;
+        prefInfactibles[0] = 0;
+        for (int m = 0; m + 1 < n; m++) {
+            prefAdelante[m + 1] = prefAdelante[m] + arco(v, d.nodoPedido(s[m]), s[m + 1]);
+            boolean ok = d.factible(d.nodoPedido(s[m + 1]), s[m]);
+            prefAtras[m + 1] = prefAtras[m] + (ok ? arco(v, d.nodoPedido(s[m + 1]), s[m]) : 0);
+            prefInfactibles[m + 1] = prefInfactibles[m] + (ok ? 0 : 1);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // or-opt: mover el bloque seq[i..i+L-1] antes de la posición q
+    // ------------------------------------------------------------
+    private boolean orOpt(int v) {
+        boolean alguna = false;
+        int[] s = seq[v];
+        boolean mejoro = true;
+        while (mejoro) {
+            mejoro = false;
+            int n = len[v];
+            buscar:
+            for (int L = 1; L <= MAX_BLOQUE && L < n; L++) {
+                for (int i = 0; i + L <= n; i++) {
+                    int primero = s[i], ultimo = s[i + L - 1];
+                    int a = previo(v, i);
+                    int sig = i + L < n ? s[i + L] : -1;
+                    if (sig >= 0 && !d.factible(a, sig)) continue;
+                    double quitar = -arco(v, a, primero);
+                    if (sig >= 0) {
+                        quitar += arco(v, a, sig) - arco(v, d.nodoPedido(ultimo), sig);
+                    }
+                    for (int q = 0; q <= n; q++) {
+                        if (q >= i && q <= i + L) continue;
+                        int b = previo(v, q);
+                        int m = q < n ? s[q] : -1;
+                        if (!d.factible(b, primero)) continue;
+                        if (m >= 0 && !d.factible(d.nodoPedido(ultimo), m)) continue;
+                        double poner = arco(v, b, primero);
+                        if (m >= 0) {
+                            poner += arco(v, d.nodoPedido(ultimo), m) - arco(v, b, m);
+                        }
+                        double delta = quitar + poner;
+                        if (delta < -EPS && consumo[v] + delta <= combustible[v]) {
+                            moverBloque(s, n, i, L, q);
+                            consumo[v] += delta;
+                            mejoro = alguna = true;
+                            break buscar;
+                        }
+                    }
+                }
+            }
+        }
+        return alguna;
+    }
+
+    private static void moverBloque(int[] s, int n, int i, int L, int q) {
+        int[] bloque = new int[L];
+        System.arraycopy(s, i, bloque, 0, L);
+        if (q < i) {
+            System.arraycopy(s, q, s, q + L, i - q);
+            System.arraycopy(bloque, 0, s, q, L);
+        } else {
+            // q > i + L: el bloque queda justo antes del antiguo s[q]
+            System.arraycopy(s, i + L, s, i, q - i - L);
+            System.arraycopy(bloque, 0, s, q - L, L);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Reubicar: sacar seq[u][p] e insertarlo en la ruta v antes de la posición q
+    // ------------------------------------------------------------
+    private boolean reubicar() {
+        boolean alguna = false;
+        for (int u = 0; u < d.V; u++) {
+            for (int p = 0; p < len[u]; p++) {
+                int x = seq[u][p];
+                int a = previo(u, p);
+                int sig = p + 1 < len[u] ? seq[u][p + 1] : -1;
+                if (sig >= 0 && !d.factible(a, sig)) continue;
+                double quitar = -arco(u, a, x);
+                if (sig >= 0) {
+                    quitar += arco(u, a, sig) - arco(u, d.nodoPedido(x), sig);
+                }
+                if (consumo[u] + quitar > combustible[u]) continue;
+
+                boolean movido = false;
+                for (int v = 0; v < d.V && !movido; v++) {
+                    if (v == u || carga[v] + d.volumen[x] > capacidad[v]) continue;
+                    for (int q = 0; q <= len[v]; q++) {
+                        int b = previo(v, q);
+                        int m = q < len[v] ? seq[v][q] : -1;
+                        if (!d.factible(b, x)) continue;
+                        if (m >= 0 && !d.factible(d.nodoPedido(x), m)) continue;
+                        double poner = arco(v, b, x);
+                        if (m >= 0) {
+                            poner += arco(v, d.nodoPedido(x), m) - arco(v, b, m);
+                        }
+                        if (quitar + poner < -EPS && consumo[v] + poner <= combustible[v]) {
+                            System.arraycopy(seq[u], p + 1, seq[u], p, len[u] - p - 1);
+                            len[u]--;
+                            System.arraycopy(seq[v], q, seq[v], q + 1, len[v] - q);
+                            seq[v][q] = x;
+                            len[v]++;
+                            carga[u] -= d.volumen[x];
+                            carga[v] += d.volumen[x];
+                            consumo[u] += quitar;
+                            consumo[v] += poner;
+                            alguna = movido = true;
+                            break;
+                        }
+                    }
+                }
+                if (movido) p--; // la posición p ahora tiene el pedido siguiente
+            }
+        }
+        return alguna;
+    }
+
+    // ------------------------------------------------------------
+    // Intercambiar: seq[u][p] <-> seq[v][q]
+    // ------------------------------------------------------------
+    private boolean intercambiar() {
+        boolean alguna = false;
+        for (int u = 0; u < d.V; u++) {
+            for (int p = 0; p < len[u]; p++) {
+                for (int v = u + 1; v < d.V; v++) {
+                    for (int q = 0; q < len[v]; q++) {
+                        int x = seq[u][p], y = seq[v][q];
+                        if (carga[u] - d.volumen[x] + d.volumen[y] > capacidad[u]) continue;
+                        if (carga[v] - d.volumen[y] + d.volumen[x] > capacidad[v]) continue;
+                        double du = reemplazo(u, p, x, y);
+                        if (Double.isNaN(du)) continue;
+                        double dv = reemplazo(v, q, y, x);
+                        if (Double.isNaN(dv)) continue;
+                        if (du + dv < -EPS && consumo[u] + du <= combustible[u] && consumo[v] + dv <= combustible[v]) {
+                            seq[u][p] = y;
+                            seq[v][q] = x;
+                            carga[u] += d.volumen[y] - d.volumen[x];
+                            carga[v] += d.volumen[x] - d.volumen[y];
+                            consumo[u] += du;
+                            consumo[v] += dv;
+                            alguna = true;
+                        }
+                    }
+                }
+            }
+        }
+        return alguna;
+    }
+
+    /** Delta de poner {@code nuevo} en lugar de {@code viejo} en la posición p de la ruta v; NaN si no es factible. */
+    private double reemplazo(int v, int p, int viejo, int nuevo) {
+        int a = previo(v, p);
+        int sig = p + 1 < len[v] ? seq[v][p + 1] : -1;
+        if (!d.factible(a, nuevo)) return Double.NaN;
+        if (sig >= 0 && !d.factible(d.nodoPedido(nuevo), sig)) return Double.NaN;
+        double delta = arco(v, a, nuevo) - arco(v, a, viejo);
+        if (sig >= 0) {
+            delta += arco(v, d.nodoPedido(nuevo), sig) - arco(v, d.nodoPedido(viejo), sig);
+        }
+        return delta;
+    }
+}
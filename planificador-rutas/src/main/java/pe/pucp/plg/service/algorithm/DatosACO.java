@@ -0,0 +1,102 @@
+package pe.pucp.plg.service.algorithm;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
+import pe.pucp.plg.model.state.CamionEstado;
+
+/**
+ * Datos fijos de una corrida del ACO, precalculados una vez por {@code planificarRutas}
+ * en minutos enteros para que el ciclo interno de las hormigas sólo lea arreglos.
+ *
+ * Los nodos de origen son el punto de partida de cada camión (0..V-1) y cada pedido
+ * (V..V+N-1). Para cada par (nodo, pedido), con índice {@code nodo * N + pedido}, se guarda
+ * la distancia real, el tiempo de viaje, la heurística eta^BETA sin la penalización por
+ * tiempo libre, y un bit de factibilidad (hay ruta y se llega antes del límite del pedido).
+ */
+final class DatosACO {
+
+    final int V, N;
+    final double beta;       // exponente de la heurística con que se calculó etaBeta
+    final double[] volumen;  // por pedido
+    final int[] distancia;   // -1 si no hay ruta
+    final int[] viaje;       // minutos: MatrizTiempos.minutosViaje(distancia)
+    final double[] etaBeta;  // (1 / (distancia + 1))^BETA
+    private final long[] factible;
+
+    private DatosACO(int V, int N, double beta) {
+        this.V = V;
+        this.N = N;
+        this.beta = beta;
+        int pares = (V + N) * N;
+        this.volumen = new double[N];
+        this.distancia = new int[pares];
+        this.viaje = new int[pares];
+        this.etaBeta = new double[pares];
+        this.factible = new long[(pares + 63) >>> 6];
+    }
+
+    static DatosACO construir(List<Pedido> pedidos, List<CamionEstado> flota, LocalDateTime tiempoActual,
+                              MatrizTiempos matriz, double beta) {
+        int V = flota.size(), N = pedidos.size();
+        DatosACO d = new DatosACO(V, N, beta);
+
+        int[] columna = new int[N];
+        int[] holgura = new int[N]; // minutos enteros disponibles hasta el límite de cada pedido
+        int minutoActual = RelojSimulacion.minuto(tiempoActual);
+        for (int i = 0; i < N; i++) {
+            Pedido p = pedidos.get(i);
+            columna[i] = matriz.columnaPedido(p.getId());
+            if (columna[i] < 0) {
+                throw new IllegalArgumentException("Pedido #" + p.getId() + " no está en la matriz de tiempos");
+            }
+            d.volumen[i] = p.getVolumen();
+            holgura[i] = p.getMinutoLimite() - minutoActual;
+        }
+
+        for (int nodo = 0; nodo < V + N; nodo++) {
+            int fila = -1;
+            if (nodo < V) {
+                fila = matriz.filaCamion(flota.get(nodo).getPlantilla().getId());
+                if (fila < 0) {
+                    throw new IllegalArgumentException("Camión " + flota.get(nodo).getPlantilla().getId() + " no está en la matriz de tiempos");
+                }
+            }
+            for (int i = 0; i < N; i++) {
+                int k = nodo * N + i;
+                int dist = nodo < V ? matriz.camionAPedido(fila, columna[i])
+                                    : matriz.pedidoAPedido(columna[nodo - V], columna[i]);
+                d.distancia[k] = dist;
+                if (dist < 0) continue;
+                d.viaje[k] = MatrizTiempos.minutosViaje(dist);
+                d.etaBeta[k] = Math.pow(1.0 / (dist + 1), beta);
+                if (d.viaje[k] <= holgura[i]) {
+                    d.factible[k >>> 6] |= 1L << k;
+                }
+            }
+        }
+        return d;
+    }
+
+    int nodoPedido(int i) {
+        return V + i;
+    }
+
+    /** ¿Desde el nodo se llega al pedido i por una ruta real y antes de su límite? */
+    boolean factible(int nodo, int i) {
+        int k = nodo * N + i;
+        return (factible[k >>> 6] & (1L << k)) != 0;
+    }
+
+    /** Los 64 bits de factibilidad a partir del par k (bit 0 = par k), para armar máscaras. */
+    long bitsFactibles(int k) {
+        int palabra = k >>> 6, desplazamiento = k & 63;
+        long bits = factible[palabra] >>> desplazamiento;
+        if (desplazamiento != 0 && palabra + 1 < factible.length) {
+            bits |= factible[palabra + 1] << (64 - desplazamiento);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,287 @@
+package pe.pucp.plg.service.algorithm;
+
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Mapa;
+
+/**
+ * A* sobre la cuadrícula del mapa trabajando con celdas codificadas como enteros.
+ * Usa arreglos de trabajo reutilizados por hilo (costo g, padre, cerrados) y un
+ * montículo binario de enteros, así que una búsqueda no genera basura salvo el
+ * arreglo compacto con la ruta resultante.
+ *
+ * Reglas iguales a las del A* original de PathfindingService:
+ * - moverse a un vecino en el minuto t está bloqueado si el vecino está bloqueado en t,
+ *   o si la celda actual lo está en t (salvo que sea la celda de partida);
+ * - el destino siempre se puede ocupar aunque esté bloqueado.
+ */
+public final class GridAStar {
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+    private static final int[] SIN_PASOS = new int[0];
+
+    private static final ThreadLocal<Trabajo> TRABAJO = ThreadLocal.withInitial(Trabajo::new);
+
+    private GridAStar() {}
+
+    /** Arreglos reutilizables de una búsqueda; se invalidan con un contador de generación. */
+    private static final class Trabajo {
+        final int[] g = new int[Mapa.TOTAL_CELDAS];
+        final int[] padre = new int[Mapa.TOTAL_CELDAS];
+        final int[] visto = new int[Mapa.TOTAL_CELDAS];   // generación en que g es válido
+        final int[] cerrado = new int[Mapa.TOTAL_CELDAS]; // generación en que se cerró
+        final int[] ruta = new int[Mapa.TOTAL_CELDAS];
+        final int[] objetivo = new int[Mapa.TOTAL_CELDAS]; // generación en que la celda es objetivo
+        // montículo con inserciones repetidas (las entradas obsoletas se descartan al extraer)
+        final int[] heapCelda = new int[4 * Mapa.TOTAL_CELDAS + 1];
+        final int[] heapF = new int[4 * Mapa.TOTAL_CELDAS + 1];
+        final int[] heapG = new int[4 * Mapa.TOTAL_CELDAS + 1];
+        int tamHeap;
+        int generacion;
+
+        int nuevaGeneracion() {
+            if (++generacion == Integer.MAX_VALUE) {
+                java.util.Arrays.fill(visto, 0);
+                java.util.Arrays.fill(cerrado, 0);
+                java.util.Arrays.fill(objetivo, 0);
+                generacion = 1;
+            }
+            tamHeap = 0;
+            return generacion;
+        }
+
+        // Menor f primero; a igual f, el de mayor g (más cerca del destino)
+        boolean menor(int i, int j) {
+            return heapF[i] < heapF[j] || (heapF[i] == heapF[j] && heapG[i] > heapG[j]);
+        }
+
+        void intercambiar(int i, int j) {
+            int c = heapCelda[i]; heapCelda[i] = heapCelda[j]; heapCelda[j] = c;
+            int f = heapF[i]; heapF[i] = heapF[j]; heapF[j] = f;
+            int gg = heapG[i]; heapG[i] = heapG[j]; heapG[j] = gg;
+        }
+
+        void insertar(int celda, int f, int gCosto) {
+            int i = tamHeap++;
+            heapCelda[i] = celda;
+            heapF[i] = f;
+            heapG[i] = gCosto;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (!menor(i, p)) break;
+                intercambiar(i, p);
+                i = p;
+            }
+        }
+
+        /** Extrae la raíz y devuelve su celda (su g queda en heapG[tamHeap]). */
+        int extraer() {
+            int ultimo = --tamHeap;
+            intercambiar(0, ultimo);
+            int i = 0;
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, m = i;
+                if (l < ultimo && menor(l, m)) m = l;
+                if (r < ultimo && menor(r, m)) m = r;
+                if (m == i) break;
+                intercambiar(i, m);
+                i = m;
+            }
+            return heapCelda[ultimo];
+        }
+    }
+
+    /**
+     * Busca una ruta de (sx,sy) a (ex,ey) partiendo en minutoInicio.
+     * Ambos extremos deben estar dentro del mapa.
+     *
+     * @return celdas codificadas de la ruta sin incluir el origen (vacío si origen == destino),
+     *         o null si no existe ruta
+     */
+    public static int[] buscar(int sx, int sy, int ex, int ey, int minutoInicio, IndiceBloqueos indice) {
+        if (sx == ex && sy == ey) {
+            return SIN_PASOS;
+        }
+        Trabajo w = TRABAJO.get();
+        int gen = w.nuevaGeneracion();
+        int inicio = Mapa.celda(sx, sy);
+        int destino = Mapa.celda(ex, ey);
+
+        w.g[inicio] = 0;
+        w.padre[inicio] = -1;
+        w.visto[inicio] = gen;
+        w.insertar(inicio, Math.abs(sx - ex) + Math.abs(sy - ey), 0);
+
+        while (w.tamHeap > 0) {
+            int actual = w.extraer();
+            int gActual = w.heapG[w.tamHeap];
+            if (w.cerrado[actual] == gen || gActual > w.g[actual]) {
+                continue; // entrada obsoleta
+            }
+            if (actual == destino) {
+                return reconstruir(w, destino);
+            }
+            w.cerrado[actual] = gen;
+
+            int cx = Mapa.x(actual), cy = Mapa.y(actual);
+            int tLlegada = minutoInicio + gActual + 1;
+            boolean actualBloqueado = actual != inicio && indice.estaBloqueado(cx, cy, tLlegada);
+
+            for (int k = 0; k < 4; k++) {
+                int nx = cx + DX[k], ny = cy + DY[k];
+                if (!Mapa.dentro(nx, ny)) continue;
+                int vecino = Mapa.celda(nx, ny);
+                if (w.cerrado[vecino] == gen) continue;
+                if (vecino != destino && (actualBloqueado || indice.estaBloqueado(nx, ny, tLlegada))) continue;
+
+                int gTentativo = gActual + 1;
+                if (w.visto[vecino] != gen || gTentativo < w.g[vecino]) {
+                    w.visto[vecino] = gen;
+                    w.g[vecino] = gTentativo;
+                    w.padre[vecino] = actual;
+                    w.insertar(vecino, gTentativo + Math.abs(nx - ex) + Math.abs(ny - ey), gTentativo);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Búsqueda en anchura de uno a muchos: desde (sx,sy) calcula el tiempo de viaje a
+     * cada celda de {@code objetivos} con las mismas reglas de bloqueo que {@link #buscar}
+     * (un objetivo siempre se puede ocupar aunque esté bloqueado).
+     * Termina en cuanto alcanza todos los objetivos.
+     *
+     * @param congelado si es true, los bloqueos se evalúan siempre en {@code minutoInicio}
+     *                  (se usa para la variante inversa, de un pedido hacia los camiones)
+     * @param tiempos   salida: minutos hasta cada objetivo, o -1 si es inalcanzable
+     */
+    public static void distancias(int sx, int sy, int minutoInicio, boolean congelado,
+                                  IndiceBloqueos indice, int[] objetivos, int[] tiempos) {
+        Trabajo w = TRABAJO.get();
+        int gen = w.nuevaGeneracion();
+        int inicio = Mapa.celda(sx, sy);
+        int pendientes = 0;
+        for (int celda : objetivos) {
+            if (w.objetivo[celda] != gen) {
+                w.objetivo[celda] = gen;
+                pendientes++;
+            }
+        }
+
+        // heapCelda hace de cola FIFO: cada celda entra una sola vez.
+        // Los objetivos alcanzados se marcan en 'cerrado' con su tiempo en 'padre'; una celda
+        // a la que sólo se pudo entrar por ser objetivo no se marca como vista, porque más
+        // tarde podría atravesarse libre.
+        int cabeza = 0, cola = 0;
+        w.g[inicio] = 0;
+        w.visto[inicio] = gen;
+        w.heapCelda[cola++] = inicio;
+        if (w.objetivo[inicio] == gen) {
+            w.cerrado[inicio] = gen;
+            w.padre[inicio] = 0;
+            pendientes--;
+        }
+
+        while (cabeza < cola && pendientes > 0) {
+            int actual = w.heapCelda[cabeza++];
+            int gActual = w.g[actual];
+            int cx = Mapa.x(actual), cy = Mapa.y(actual);
+            int t = congelado ? minutoInicio : minutoInicio + gActual + 1;
+            boolean actualBloqueado = actual != inicio && indice.estaBloqueado(cx, cy, t);
+
+            for (int k = 0; k < 4; k++) {
+                int nx = cx + DX[k], ny = cy + DY[k];
+                if (!Mapa.dentro(nx, ny)) continue;
+                int vecino = Mapa.celda(nx, ny);
+                if (w.visto[vecino] == gen) continue;
+                if (w.objetivo[vecino] == gen && w.cerrado[vecino] != gen) {
+                    w.cerrado[vecino] = gen;
+                    w.padre[vecino] = gActual + 1;
+                    pendientes--;
+                }
+                if (actualBloqueado || indice.estaBloqueado(nx, ny, t)) continue;
+                w.visto[vecino] = gen;
+                w.g[vecino] = gActual + 1;
+                w.heapCelda[cola++] = vecino;
+            }
+        }
+
+        for (int i = 0; i < objetivos.length; i++) {
+            tiempos[i] = w.cerrado[objetivos[i]] == gen ? w.padre[objetivos[i]] : -1;
+        }
+    }
+
+    /**
+     * Atajo previo al A*: prueba las dos rutas Manhattan en "L" (primero en x y luego en y,
+     * y al revés) contra los tramos de los bloqueos. Si alguna está libre, es tan corta como
+     * la que daría el A*.
+     *
+     * @return celdas de la ruta sin el origen, o null si ambas L cruzan un bloqueo
+     */
+    public static int[] rutaDirecta(int sx, int sy, int ex, int ey, int minutoInicio, IndiceBloqueos indice) {
+        if (sx == ex && sy == ey) {
+            return SIN_PASOS;
+        }
+        if (indice.estaVacio() || lLibre(sx, sy, ex, ey, true, minutoInicio, indice)) {
+            return trazarL(sx, sy, ex, ey, true);
+        }
+        if (sx != ex && sy != ey && lLibre(sx, sy, ex, ey, false, minutoInicio, indice)) {
+            return trazarL(sx, sy, ex, ey, false);
+        }
+        return null;
+    }
+
+    // Sólo importan los pasos 1..L-1: el origen y el destino siempre se pueden ocupar
+    private static boolean lLibre(int sx, int sy, int ex, int ey, boolean primeroX, int minuto, IndiceBloqueos indice) {
+        int largo = Math.abs(ex - sx) + Math.abs(ey - sy);
+        if (largo < 2) {
+            return true;
+        }
+        int esquinaX = primeroX ? ex : sx;
+        int esquinaY = primeroX ? sy : ey;
+        int pasosPrimerTramo = Math.abs(esquinaX - sx) + Math.abs(esquinaY - sy);
+        int dx = Integer.signum(ex - sx), dy = Integer.signum(ey - sy);
+
+        if (pasosPrimerTramo > 0) {
+            // del paso 1 a la esquina (o al paso L-1 si la esquina es el destino)
+            int hasta = Math.min(pasosPrimerTramo, largo - 1);
+            int x1 = primeroX ? sx + dx : sx, y1 = primeroX ? sy : sy + dy;
+            int x2 = primeroX ? sx + dx * hasta : sx, y2 = primeroX ? sy : sy + dy * hasta;
+            if (!indice.tramoLibre(x1, y1, x2, y2, 1, minuto)) return false;
+        }
+        if (pasosPrimerTramo < largo - 1) {
+            // de la celda siguiente a la esquina hasta el paso L-1
+            int x1 = primeroX ? esquinaX : esquinaX + dx, y1 = primeroX ? esquinaY + dy : esquinaY;
+            int x2 = primeroX ? ex : ex - dx, y2 = primeroX ? ey - dy : ey;
+            if (!indice.tramoLibre(x1, y1, x2, y2, pasosPrimerTramo + 1, minuto)) return false;
+        }
+        return true;
+    }
+
+    private static int[] trazarL(int sx, int sy, int ex, int ey, boolean primeroX) {
+        int[] ruta = new int[Math.abs(ex - sx) + Math.abs(ey - sy)];
+        int dx = Integer.signum(ex - sx), dy = Integer.signum(ey - sy);
+        int x = sx, y = sy, n = 0;
+        if (primeroX) {
+            while (x != ex) { x += dx; ruta[n++] = Mapa.celda(x, y); }
+            while (y != ey) { y += dy; ruta[n++] = Mapa.celda(x, y); }
+        } else {
+            while (y != ey) { y += dy; ruta[n++] = Mapa.celda(x, y); }
+            while (x != ex) { x += dx; ruta[n++] = Mapa.celda(x, y); }
+        }
+        return ruta;
+    }
+
+    private static int[] reconstruir(Trabajo w, int destino) {
+        int n = 0;
+        for (int c = destino; w.padre[c] != -1; c = w.padre[c]) {
+            w.ruta[n++] = c;
+        }
+        int[] ruta = new int[n];
+        for (int i = 0; i < n; i++) {
+            ruta[i] = w.ruta[n - 1 - i];
+        }
+        return ruta;
+    }
+}
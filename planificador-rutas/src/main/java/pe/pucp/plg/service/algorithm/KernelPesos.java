@@ -0,0 +1,81 @@
+package pe.pucp.plg.service.algorithm;
+
+/**
+ * Cálculo de los pesos de las hormigas sobre arreglos planos: tau^alpha de una fila de la
+ * matriz de feromonas y los pesos (filtros + heurística) de un camión contra todos los
+ * pedidos. Esta es la versión escalar; {@code KernelPesosVectorial} hace lo mismo con la
+ * Vector API cuando el módulo {@code jdk.incubator.vector} está disponible.
+ */
+class KernelPesos {
+
+    private static final String MODULO_VECTOR = "jdk.incubator.vector";
+
+    /**
+     * Kernel vectorial si se pide y la JVM arrancó con {@code --add-modules jdk.incubator.vector};
+     * si no, el escalar (y si se pidió, lo avisa). Se carga por nombre porque es la única clase
+     * que se compila con el módulo (ver el pom).
+     */
+    static KernelPesos crear(boolean simd) {
+        if (!simd) {
+            return new KernelPesos();
+        }
+        if (ModuleLayer.boot().findModule(MODULO_VECTOR).isEmpty()) {
+            System.out.printf("⚠️ [ACO] aco.simd=true pero la JVM no tiene %s (arrancarla con --add-modules %s, perfil simd); se usa el kernel escalar%n",
+                    MODULO_VECTOR, MODULO_VECTOR);
+            return new KernelPesos();
+        }
+        try {
+            return (KernelPesos) Class.forName(KernelPesos.class.getPackageName() + ".KernelPesosVectorial")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.out.printf("⚠️ [ACO] Vector API no disponible (%s), se usa el kernel escalar%n", e);
+            return new KernelPesos();
+        }
+    }
+
+    String nombre() {
+        return "escalar";
+    }
+
+    /** destino[desde + i] = origen[i]^alpha para i en [0, n). */
+    void potencia(double[] origen, double alpha, double[] destino, int desde, int n) {
+        if (alpha == 1.0) {
+            System.arraycopy(origen, 0, destino, desde, n);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            destino[desde + i] = Math.pow(origen[i], alpha);
+        }
+    }
+
+    /**
+     * Pesos del camión que está en {@code nodo} contra los N pedidos, en destino[0..N): 0 si el
+     * pedido ya está asignado, no es factible desde el nodo o no alcanzan capacidad o
+     * combustible; si no, tau^alpha * eta^beta * penalización por tiempo libre.
+     *
+     * @param filaTau posición de la fila del camión en tauAlpha (v * N)
+     */
+    void pesosFila(DatosACO d, int nodo, double capacidad, double combustible, double tara, double penal,
+                   boolean[] asignado, double[] tauAlpha, int filaTau, double[] destino) {
+        pesosTramo(d, nodo, capacidad, combustible, tara, penal, asignado, tauAlpha, filaTau, destino, 0, d.N);
+    }
+
+    /** Versión escalar sobre los pedidos [desde, hasta); el kernel vectorial la usa para la cola. */
+    static void pesosTramo(DatosACO d, int nodo, double capacidad, double combustible, double tara, double penal,
+                           boolean[] asignado, double[] tauAlpha, int filaTau, double[] destino, int desde, int hasta) {
+        int base = nodo * d.N;
+        for (int i = desde; i < hasta; i++) {
+            destino[i] = 0.0;
+            // 1) ya asignado; 2) ruta real y ventana de tiempo (precalculados)
+            if (asignado[i] || !d.factible(nodo, i)) continue;
+            // 3) filtro capacidad
+            if (capacidad < d.volumen[i]) continue;
+            // 4) filtro combustible
+            int k = base + i;
+            double galNecesarios = d.distancia[k] * (d.volumen[i] * 0.5 + tara) / 180.0;
+            if (combustible < galNecesarios) continue;
+            // heurística + feromona
+            destino[i] = tauAlpha[filaTau + i] * d.etaBeta[k] * penal;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package pe.pucp.plg.service.algorithm;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Mapa;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.state.CamionEstado;
+
+/**
+ * Tiempos de viaje reales (respetando bloqueos) camión→pedido y pedido→pedido,
+ * calculados una vez por replanificación para que el ACO y las heurísticas de
+ * inserción no usen la distancia Manhattan ni repitan búsquedas.
+ *
+ * Cada fila sale de una búsqueda de uno a muchos ({@link GridAStar#distancias});
+ * las filas se reparten entre los núcleos con un ForkJoinPool.
+ * Un valor -1 indica que no hay ruta.
+ */
+public final class MatrizTiempos {
+
+    static final double MIN_POR_KM = 60.0 / 50.0;
+
+    // Por debajo de este número de filas no vale la pena dividir la tarea
+    private static final int FILAS_POR_TAREA = 4;
+
+    private final Map<String, Integer> filaCamion = new HashMap<>();
+    private final Map<String, Integer> columnaPedido = new HashMap<>();
+    private final int numPedidos;
+    private final int[] camionPedido; // [camión][pedido] aplanado
+    private final int[] pedidoPedido; // [pedido][pedido] aplanado
+
+    private MatrizTiempos(int numCamiones, int numPedidos) {
+        this.numPedidos = numPedidos;
+        this.camionPedido = new int[numCamiones * numPedidos];
+        this.pedidoPedido = new int[numPedidos * numPedidos];
+    }
+
+    public static MatrizTiempos construir(List<CamionEstado> camiones, List<Pedido> pedidos,
+                                          LocalDateTime tiempoActual, IndiceBloqueos indice) {
+        int V = camiones.size(), N = pedidos.size();
+        MatrizTiempos m = new MatrizTiempos(V, N);
+        int[] origenX = new int[V + N], origenY = new int[V + N];
+        for (int v = 0; v < V; v++) {
+            CamionEstado c = camiones.get(v);
+            m.filaCamion.putIfAbsent(c.getPlantilla().getId(), v);
+            origenX[v] = c.getX();
+            origenY[v] = c.getY();
+        }
+        int[] destinoX = new int[N], destinoY = new int[N];
+        for (int i = 0; i < N; i++) {
+            Pedido p = pedidos.get(i);
+            m.columnaPedido.putIfAbsent(p.getId(), i);
+            origenX[V + i] = destinoX[i] = p.getX();
+            origenY[V + i] = destinoY[i] = p.getY();
+        }
+        if (N > 0) {
+            int minuto = IndiceBloqueos.minuto(tiempoActual);
+            ForkJoinPool.commonPool().invoke(
+                    new CalculoFilas(m, V, origenX, origenY, destinoX, destinoY, minuto, indice, 0, V + N));
+        }
+        return m;
+    }
+
+    /** Calcula las filas [desde, hasta) dividiendo en mitades hasta un tamaño pequeño. */
+    private static final class CalculoFilas extends RecursiveAction {
+        private final MatrizTiempos m;
+        private final int numCamiones;
+        private final int[] origenX, origenY, destinoX, destinoY;
+        private final int minuto;
+        private final IndiceBloqueos indice;
+        private final int desde, hasta;
+
+        CalculoFilas(MatrizTiempos m, int numCamiones, int[] origenX, int[] origenY, int[] destinoX, int[] destinoY,
+                     int minuto, IndiceBloqueos indice, int desde, int hasta) {
+            this.m = m;
+            this.numCamiones = numCamiones;
+            this.origenX = origenX;
+            this.origenY = origenY;
+            this.destinoX = destinoX;
+            this.destinoY = destinoY;
+            this.minuto = minuto;
+            this.indice = indice;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= FILAS_POR_TAREA) {
+                int N = destinoX.length;
+                int[] objetivos = new int[N];
+                int[] tiempos = new int[N];
+                for (int fila = desde; fila < hasta; fila++) {
+                    int[] destino = fila < numCamiones ? m.camionPedido : m.pedidoPedido;
+                    int base = (fila < numCamiones ? fila : fila - numCamiones) * N;
+                    calcularFila(origenX[fila], origenY[fila], objetivos, tiempos);
+                    System.arraycopy(tiempos, 0, destino, base, N);
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new CalculoFilas(m, numCamiones, origenX, origenY, destinoX, destinoY, minuto, indice, desde, medio),
+                      new CalculoFilas(m, numCamiones, origenX, origenY, destinoX, destinoY, minuto, indice, medio, hasta));
+        }
+
+        private void calcularFila(int sx, int sy, int[] objetivos, int[] tiempos) {
+            int N = destinoX.length;
+            boolean todosEnMapa = Mapa.dentro(sx, sy);
+            for (int j = 0; j < N && todosEnMapa; j++) {
+                todosEnMapa = Mapa.dentro(destinoX[j], destinoY[j]);
+            }
+            if (!todosEnMapa) {
+                // Fuera de la cuadrícula no hay índice por celdas: se usa Manhattan
+                for (int j = 0; j < N; j++) {
+                    tiempos[j] = Math.abs(sx - destinoX[j]) + Math.abs(sy - destinoY[j]);
+                }
+                return;
+            }
+            for (int j = 0; j < N; j++) {
+                objetivos[j] = Mapa.celda(destinoX[j], destinoY[j]);
+            }
+            GridAStar.distancias(sx, sy, minuto, false, indice, objetivos, tiempos);
+        }
+    }
+
+    /** Minutos de viaje para una distancia de la matriz, a 50 km/h. */
+    public static int minutosViaje(int distancia) {
+        return (int) Math.ceil(distancia * MIN_POR_KM);
+    }
+
+    /** Índice de fila del camión en la matriz, o -1 si no está. */
+    public int filaCamion(String camionId) {
+        return filaCamion.getOrDefault(camionId, -1);
+    }
+
+    /** Índice de columna del pedido en la matriz, o -1 si no está. */
+    public int columnaPedido(String pedidoId) {
+        return columnaPedido.getOrDefault(pedidoId, -1);
+    }
+
+    public int camionAPedido(int fila, int columna) {
+        return camionPedido[fila * numPedidos + columna];
+    }
+
+    public int pedidoAPedido(int desde, int hacia) {
+        return pedidoPedido[desde * numPedidos + hacia];
+    }
+
+    /** Tiempo del camión (en su posición actual) al pedido; Manhattan si alguno no está en la matriz. */
+    public int tiempo(CamionEstado c, Pedido p) {
+        int fila = filaCamion(c.getPlantilla().getId()), col = columnaPedido(p.getId());
+        if (fila < 0 || col < 0) {
+            return Math.abs(c.getX() - p.getX()) + Math.abs(c.getY() - p.getY());
+        }
+        return camionAPedido(fila, col);
+    }
+}
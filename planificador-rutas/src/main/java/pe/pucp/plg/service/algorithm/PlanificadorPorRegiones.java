@@ -0,0 +1,306 @@
+package pe.pucp.plg.service.algorithm;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.Ruta;
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.template.TanqueTemplate;
+import pe.pucp.plg.repository.TanqueTemplateRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Etapa previa al motor de rutas para instancias grandes: reparte pedidos y camiones en
+ * regiones (una por tanque, por cercanía), resuelve cada región en paralelo con el motor de
+ * la simulación y después mejora la frontera entre cada par de regiones vecinas con
+ * {@link BusquedaLocal}: los pedidos que una región no pudo atender se ofrecen a los camiones
+ * de la otra, y se reubican e intercambian pedidos entre las rutas de ambas.
+ *
+ * Toda región con pedidos recibe al menos un camión mientras la flota alcance; si hay más
+ * regiones con pedidos que camiones, las que quedan sin camión no se resuelven solas y sus
+ * pedidos se ofrecen en la frontera a los camiones de las demás.
+ *
+ * Las subinstancias reutilizan la matriz de tiempos de la replanificación (se indexa por ids),
+ * así que el coste de cada región crece con su tamaño y no con el total.
+ */
+@Service
+public class PlanificadorPorRegiones {
+
+    private final TanqueTemplateRepository tanqueTemplateRepository;
+    private final int umbral;
+    private final ExecutorService pool;
+
+    @Autowired
+    public PlanificadorPorRegiones(TanqueTemplateRepository tanqueTemplateRepository,
+                                   @Value("${planificacion.regiones.umbral:120}") int umbral) {
+        this.tanqueTemplateRepository = tanqueTemplateRepository;
+        this.umbral = umbral;
+        this.pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "planificador-region");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Resuelve el problema con el motor; si hay al menos {@code umbral} pedidos (y el umbral
+     * es positivo), lo descompone por regiones.
+     */
+    public List<Ruta> planificar(RoutePlanner motor, ProblemaPlanificacion problema) {
+        List<TanqueTemplate> tanques = tanqueTemplateRepository.getTodos();
+        if (umbral <= 0 || problema.getPedidos().size() < umbral || tanques.size() < 2) {
+            return motor.planificar(problema);
+        }
+        List<Pedido> pedidos = problema.getPedidos();
+        List<CamionEstado> flota = problema.getFlota();
+        int R = tanques.size();
+
+        // 1) Regiones: cada pedido al tanque más cercano; los camiones también, y luego se
+        //    mueven camiones hacia las regiones con más demanda que capacidad
+        int[] regionPedido = new int[pedidos.size()];
+        double[] demanda = new double[R];
+        for (int i = 0; i < pedidos.size(); i++) {
+            Pedido p = pedidos.get(i);
+            regionPedido[i] = masCercano(tanques, p.getX(), p.getY());
+            demanda[regionPedido[i]] += p.getVolumen();
+        }
+        int[] regionCamion = new int[flota.size()];
+        for (int v = 0; v < flota.size(); v++) {
+            regionCamion[v] = masCercano(tanques, flota.get(v).getX(), flota.get(v).getY());
+        }
+        balancear(tanques, flota, regionCamion, demanda);
+
+        List<List<Integer>> pedidosRegion = new ArrayList<>(R), camionesRegion = new ArrayList<>(R);
+        for (int r = 0; r < R; r++) {
+            pedidosRegion.add(new ArrayList<>());
+            camionesRegion.add(new ArrayList<>());
+        }
+        for (int i = 0; i < pedidos.size(); i++) pedidosRegion.get(regionPedido[i]).add(i);
+        for (int v = 0; v < flota.size(); v++) camionesRegion.get(regionCamion[v]).add(v);
+
+        // 2) Cada región en paralelo
+        List<Future<List<Ruta>>> futuros = new ArrayList<>(R);
+        for (int r = 0; r < R; r++) {
+            List<Integer> ps = pedidosRegion.get(r), cs = camionesRegion.get(r);
+            if (ps.isEmpty() || cs.isEmpty()) {
+                futuros.add(null);
+                continue;
+            }
+            ProblemaPlanificacion sub = subproblema(problema, ps, cs);
+            futuros.add(pool.submit(() -> motor.planificar(sub)));
+        }
+
+        // 3) Unir en índices globales: una ruta por camión, en el orden de la flota
+        List<Ruta> rutas = new ArrayList<>(flota.size());
+        for (CamionEstado c : flota) rutas.add(new Ruta(c.getPlantilla().getId()));
+        try {
+            for (int r = 0; r < R; r++) {
+                if (futuros.get(r) == null) continue;
+                List<Integer> ps = pedidosRegion.get(r), cs = camionesRegion.get(r);
+                List<Ruta> parcial = futuros.get(r).get();
+                for (int k = 0; k < parcial.size(); k++) {
+                    Ruta origen = parcial.get(k), destino = rutas.get(cs.get(k));
+                    for (int idx : origen.getPedidoIds()) destino.addPedidoId(ps.get(idx));
+                    destino.distancia = origen.distancia;
+                    destino.consumo = origen.consumo;
+                }
+            }
+        } catch (InterruptedException e) {
+            futuros.forEach(f -> { if (f != null) f.cancel(true); });
+            Thread.currentThread().interrupt();
+            return rutas; // lo que haya: aplicarRutas usa el respaldo si está vacío
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error planificando una región", e.getCause());
+        }
+
+        // 4) Frontera: sin ruta de una región a la otra e intercambio entre rutas de cada par
+        boolean[] asignado = new boolean[pedidos.size()];
+        for (Ruta r : rutas)
+            for (int idx : r.getPedidoIds()) asignado[idx] = true;
+        int asignadosAntes = contar(asignado);
+        double antes = coste(rutas);
+        for (int a = 0; a < R; a++) {
+            for (int b = a + 1; b < R; b++) {
+                if (camionesRegion.get(a).isEmpty() && camionesRegion.get(b).isEmpty()) continue;
+                List<Integer> sinRuta = new ArrayList<>();
+                for (int i = 0; i < pedidos.size(); i++) {
+                    if ((regionPedido[i] == a || regionPedido[i] == b) && !asignado[i]) sinRuta.add(i);
+                }
+                mejorarFrontera(problema, rutas, camionesRegion.get(a), camionesRegion.get(b), sinRuta, asignado);
+            }
+        }
+        StringBuilder resumen = new StringBuilder();
+        for (int r = 0; r < R; r++) {
+            resumen.append(String.format(" %s=%d/%d", tanques.get(r).getId(), pedidosRegion.get(r).size(), camionesRegion.get(r).size()));
+        }
+        System.out.printf("🗺️ [Regiones] %d pedidos en %d regiones (pedidos/camiones):%s; frontera: asignados %d → %d, %.3f → %.3f gal%n",
+                pedidos.size(), R, resumen, asignadosAntes, contar(asignado), antes, coste(rutas));
+        return rutas;
+    }
+
+    private static int masCercano(List<TanqueTemplate> tanques, int x, int y) {
+        int mejor = 0, mejorDist = Integer.MAX_VALUE;
+        for (int r = 0; r < tanques.size(); r++) {
+            int dist = Math.abs(tanques.get(r).getPosX() - x) + Math.abs(tanques.get(r).getPosY() - y);
+            if (dist < mejorDist) {
+                mejorDist = dist;
+                mejor = r;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Primero da un camión a cada región con pedidos que no tenga ninguno, empezando por la de
+     * más demanda: el más cercano a su tanque entre las regiones que pueden cederlo (les sobra
+     * alguno o no tienen pedidos). Después, mientras alguna región tenga menos capacidad que
+     * demanda, le pasa el camión más cercano a su tanque de la región con más capacidad
+     * sobrante (si el traslado no la deja en déficit).
+     */
+    private static void balancear(List<TanqueTemplate> tanques, List<CamionEstado> flota, int[] regionCamion, double[] demanda) {
+        int R = tanques.size();
+        int[] camiones = new int[R];
+        for (int v = 0; v < flota.size(); v++) camiones[regionCamion[v]]++;
+        while (true) {
+            int sinCamion = -1;
+            for (int r = 0; r < R; r++) {
+                if (demanda[r] > 0 && camiones[r] == 0 && (sinCamion < 0 || demanda[r] > demanda[sinCamion])) sinCamion = r;
+            }
+            if (sinCamion < 0) break;
+            TanqueTemplate t = tanques.get(sinCamion);
+            int elegido = -1, mejorDist = Integer.MAX_VALUE;
+            for (int v = 0; v < flota.size(); v++) {
+                int r = regionCamion[v];
+                if (camiones[r] < 2 && demanda[r] > 0) continue;
+                CamionEstado c = flota.get(v);
+                int dist = Math.abs(c.getX() - t.getPosX()) + Math.abs(c.getY() - t.getPosY());
+                if (dist < mejorDist) {
+                    mejorDist = dist;
+                    elegido = v;
+                }
+            }
+            if (elegido < 0) break; // más regiones con pedidos que camiones: las atiende la frontera
+            camiones[regionCamion[elegido]]--;
+            camiones[sinCamion]++;
+            regionCamion[elegido] = sinCamion;
+        }
+
+        for (int paso = 0; paso < flota.size(); paso++) {
+            double[] capacidad = new double[R];
+            for (int v = 0; v < flota.size(); v++) capacidad[regionCamion[v]] += flota.get(v).getCapacidadDisponible();
+            int deficit = -1, sobra = -1;
+            for (int r = 0; r < R; r++) {
+                double saldo = capacidad[r] - demanda[r];
+                if (saldo < 0 && (deficit < 0 || saldo < capacidad[deficit] - demanda[deficit])) deficit = r;
+                if (sobra < 0 || saldo > capacidad[sobra] - demanda[sobra]) sobra = r;
+            }
+            if (deficit < 0 || sobra == deficit) return;
+            TanqueTemplate t = tanques.get(deficit);
+            int elegido = -1, mejorDist = Integer.MAX_VALUE;
+            for (int v = 0; v < flota.size(); v++) {
+                if (regionCamion[v] != sobra) continue;
+                CamionEstado c = flota.get(v);
+                if (capacidad[sobra] - c.getCapacidadDisponible() < demanda[sobra]) continue;
+                int dist = Math.abs(c.getX() - t.getPosX()) + Math.abs(c.getY() - t.getPosY());
+                if (dist < mejorDist) {
+                    mejorDist = dist;
+                    elegido = v;
+                }
+            }
+            if (elegido < 0) return;
+            regionCamion[elegido] = deficit;
+        }
+    }
+
+    private static ProblemaPlanificacion subproblema(ProblemaPlanificacion problema, List<Integer> ps, List<Integer> cs) {
+        List<Pedido> pedidos = new ArrayList<>(ps.size());
+        for (int i : ps) pedidos.add(problema.getPedidos().get(i));
+        List<CamionEstado> flota = new ArrayList<>(cs.size());
+        for (int v : cs) flota.add(problema.getFlota().get(v));
+        return new ProblemaPlanificacion(pedidos, flota, problema.getTiempoActual(), problema.getTiempos(),
+                problema.getMemoriaFeromonas(), problema.getPlanAnterior(),
+                problema.getIslas(), problema.getIntervaloMigracion());
+    }
+
+    /**
+     * Búsqueda local sobre las rutas de los camiones de dos regiones, los pedidos que llevan y
+     * los que ninguna de las dos pudo atender. Marca en {@code asignado} los que consigan ruta.
+     */
+    private static void mejorarFrontera(ProblemaPlanificacion problema, List<Ruta> rutas, List<Integer> camionesA, List<Integer> camionesB,
+                                        List<Integer> sinRuta, boolean[] asignado) {
+        List<Integer> camiones = new ArrayList<>(camionesA);
+        camiones.addAll(camionesB);
+        List<Integer> global = new ArrayList<>();
+        Map<Integer, Integer> local = new HashMap<>();
+        for (int v : camiones) {
+            for (int idx : rutas.get(v).getPedidoIds()) {
+                local.put(idx, global.size());
+                global.add(idx);
+            }
+        }
+        for (int idx : sinRuta) {
+            local.put(idx, global.size());
+            global.add(idx);
+        }
+        if (global.isEmpty()) return;
+        ProblemaPlanificacion par = subproblema(problema, global, camiones);
+        List<CamionEstado> flota = par.getFlota();
+        int V = flota.size();
+        String[] ids = new String[V];
+        double[] tara = new double[V], capacidad = new double[V], combustible = new double[V];
+        for (int k = 0; k < V; k++) {
+            CamionEstado c = flota.get(k);
+            ids[k] = c.getPlantilla().getId();
+            tara[k] = c.getPlantilla().getTara() / 1000.0;
+            capacidad[k] = c.getCapacidadDisponible();
+            combustible[k] = c.getCombustibleActual();
+        }
+        DatosACO datos = DatosACO.construir(par.getPedidos(), flota, par.getTiempoActual(), par.getTiempos(), 1.0);
+
+        List<Ruta> enPar = new ArrayList<>(V);
+        for (int k = 0; k < V; k++) {
+            Ruta r = new Ruta(ids[k]);
+            for (int idx : rutas.get(camiones.get(k)).getPedidoIds()) r.addPedidoId(local.get(idx));
+            enPar.add(r);
+        }
+        List<Ruta> mejoradas = new BusquedaLocal(datos, ids, tara, capacidad, combustible).mejorar(enPar, true);
+        for (int k = 0; k < V; k++) {
+            Ruta origen = mejoradas.get(k), destino = new Ruta(ids[k]);
+            for (int idx : origen.getPedidoIds()) {
+                destino.addPedidoId(global.get(idx));
+                asignado[global.get(idx)] = true;
+            }
+            destino.distancia = origen.distancia;
+            destino.consumo = origen.consumo;
+            rutas.set(camiones.get(k), destino);
+        }
+    }
+
+    private static int contar(boolean[] marcas) {
+        int n = 0;
+        for (boolean m : marcas) if (m) n++;
+        return n;
+    }
+
+    private static double coste(List<Ruta> rutas) {
+        double total = 0;
+        for (Ruta r : rutas) total += r.consumo;
+        return total;
+    }
+}
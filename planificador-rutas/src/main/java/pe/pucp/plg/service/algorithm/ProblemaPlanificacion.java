@@ -0,0 +1,68 @@
+package pe.pucp.plg.service.algorithm;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.context.MemoriaFeromonas;
+import pe.pucp.plg.model.state.CamionEstado;
+
+/**
+ * Foto fija de una replanificación: clones de la flota, los pedidos a asignar (sólo se leen
+ * sus datos fijos), la matriz de tiempos ya calculada y lo que quedó de planificaciones
+ * anteriores (feromonas del ACO y el último plan por identificadores).
+ */
+public final class ProblemaPlanificacion {
+
+    private final List<Pedido> pedidos;
+    private final List<CamionEstado> flota;
+    private final LocalDateTime tiempoActual;
+    private final MatrizTiempos tiempos;
+    private final MemoriaFeromonas memoriaFeromonas;
+    private final Map<String, List<String>> planAnterior;
+    private final int islas;
+    private final int intervaloMigracion;
+
+    /**
+     * @param planAnterior por id de camión, los ids de pedidos que le asignó la planificación
+     *                     anterior, en orden de visita (puede incluir pedidos que ya no están)
+     */
+    public ProblemaPlanificacion(List<Pedido> pedidos, List<CamionEstado> flota, LocalDateTime tiempoActual,
+                                 MatrizTiempos tiempos, MemoriaFeromonas memoriaFeromonas,
+                                 Map<String, List<String>> planAnterior) {
+        this(pedidos, flota, tiempoActual, tiempos, memoriaFeromonas, planAnterior, 0, 0);
+    }
+
+    /**
+     * @param islas              colonias del ACO por islas pedidas por la simulación; 0 usa la
+     *                           configuración del motor (los demás motores lo ignoran)
+     * @param intervaloMigracion iteraciones entre migraciones de las islas; 0 usa la configuración
+     */
+    public ProblemaPlanificacion(List<Pedido> pedidos, List<CamionEstado> flota, LocalDateTime tiempoActual,
+                                 MatrizTiempos tiempos, MemoriaFeromonas memoriaFeromonas,
+                                 Map<String, List<String>> planAnterior, int islas, int intervaloMigracion) {
+        this.pedidos = List.copyOf(pedidos);
+        List<CamionEstado> copia = new ArrayList<>(flota.size());
+        for (CamionEstado c : flota) {
+            copia.add(new CamionEstado(c));
+        }
+        this.flota = List.copyOf(copia);
+        this.tiempoActual = tiempoActual;
+        this.tiempos = tiempos;
+        this.memoriaFeromonas = memoriaFeromonas;
+        this.planAnterior = Map.copyOf(planAnterior);
+        this.islas = islas;
+        this.intervaloMigracion = intervaloMigracion;
+    }
+
+    public List<Pedido> getPedidos() { return pedidos; }
+    public List<CamionEstado> getFlota() { return flota; }
+    public LocalDateTime getTiempoActual() { return tiempoActual; }
+    public MatrizTiempos getTiempos() { return tiempos; }
+    public MemoriaFeromonas getMemoriaFeromonas() { return memoriaFeromonas; }
+    public Map<String, List<String>> getPlanAnterior() { return planAnterior; }
+    public int getIslas() { return islas; }
+    public int getIntervaloMigracion() { return intervaloMigracion; }
+}
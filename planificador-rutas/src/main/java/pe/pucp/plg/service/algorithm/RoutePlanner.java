@@ -0,0 +1,21 @@
+package pe.pucp.plg.service.algorithm;
+
+import java.util.List;
+
+import pe.pucp.plg.model.common.Ruta;
+
+/**
+ * Motor de planificación de rutas. Recibe un problema inmutable y devuelve una ruta por
+ * camión de {@link ProblemaPlanificacion#getFlota()}, en el mismo orden, cuyos
+ * {@code pedidoIds} son índices en {@link ProblemaPlanificacion#getPedidos()}.
+ *
+ * No debe modificar el contexto de la simulación: puede correr en segundo plano.
+ * Cada implementación es un bean de Spring y se elige por simulación con {@link #nombre()}.
+ */
+public interface RoutePlanner {
+
+    /** Nombre con el que se selecciona en {@code SimulationRequest.planificador}. */
+    String nombre();
+
+    List<Ruta> planificar(ProblemaPlanificacion problema);
+}
@@ -6,6 +6,7 @@ import pe.pucp.plg.model.common.Bloqueo;
 import pe.pucp.plg.model.common.Pedido;
 import pe.pucp.plg.model.common.Ruta;
 import pe.pucp.plg.model.context.ExecutionContext;
+import pe.pucp.plg.model.context.MetricasRuteo;
 import pe.pucp.plg.model.state.CamionEstado;
 import pe.pucp.plg.model.state.TanqueDinamico;
 
@@ -203,5 +204,17 @@ public class MapperUtil {
         dto.setCodigoVehiculo(averia.getCodigoVehiculo());
         return dto;
     }
-        
-}
\ No newline at end of file
+
+    public static MetricasRuteoDTO toMetricasRuteoDTO(ExecutionContext estado) {
+        MetricasRuteo m = estado.getMetricasRuteo();
+        MetricasRuteoDTO dto = new MetricasRuteoDTO();
+        dto.setAciertosCache(m.getAciertosCache());
+        dto.setFallosCache(m.getFallosCache());
+        dto.setTasaAciertosCache(m.getTasaAciertosCache());
+        dto.setRutasEnCache(estado.getCacheRutas().tamanio());
+        dto.setRutasDirectas(m.getRutasDirectas());
+        dto.setBusquedasAStar(m.getBusquedasAStar());
+        dto.setTasaRutasDirectas(m.getTasaRutasDirectas());
+        return dto;
+    }
+}
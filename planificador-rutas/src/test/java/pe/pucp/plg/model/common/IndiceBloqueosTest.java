@@ -0,0 +1,205 @@
+package pe.pucp.plg.model.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.util.ResourceLoader;
+
+/**
+ * El índice por celdas debe responder lo mismo que recorrer los objetos Bloqueo, que es como
+ * se consultaba antes: intervalos [inicio, fin) fusionados por celda, y consultas por zona
+ * (proximoCambio) y por tramo (tramoLibre) que nunca dan por libre algo bloqueado.
+ */
+class IndiceBloqueosTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int T0 = RelojSimulacion.minuto(BASE);
+
+    private static Bloqueo bloqueo(int desde, int hasta, int... coords) {
+        List<Point> nodos = new ArrayList<>();
+        for (int i = 0; i < coords.length; i += 2) nodos.add(new Point(coords[i], coords[i + 1]));
+        return new Bloqueo(BASE.plusMinutes(desde), BASE.plusMinutes(hasta), nodos);
+    }
+
+    /** Consulta como la hacía PathfindingService: recorriendo los bloqueos. */
+    private static boolean segunObjetos(List<Bloqueo> bloqueos, int x, int y, int minuto) {
+        LocalDateTime t = RelojSimulacion.instante(minuto);
+        Point p = new Point(x, y);
+        for (Bloqueo b : bloqueos) {
+            if (b.isActiveAt(t) && b.estaBloqueado(t, p)) return true;
+        }
+        return false;
+    }
+
+    /** Bloqueos reales de los primeros días de enero. */
+    private static List<Bloqueo> reales() {
+        List<Bloqueo> bloqueos = new ArrayList<>();
+        for (int d = 0; d < 3; d++) {
+            for (Bloqueo b : ResourceLoader.cargarBloqueosParaFecha(LocalDate.of(2025, 1, 1).plusDays(d))) {
+                if (!bloqueos.contains(b)) bloqueos.add(b);
+            }
+        }
+        assertTrue(bloqueos.size() > 20, "bloqueos cargados: " + bloqueos.size());
+        return bloqueos;
+    }
+
+    @Test
+    void coincideConLosObjetosBloqueoEnLosDatosReales() {
+        List<Bloqueo> bloqueos = reales();
+        IndiceBloqueos indice = IndiceBloqueos.construir(bloqueos);
+        Random r = new Random(3);
+        int bloqueadas = 0;
+        for (int i = 0; i < 20_000; i++) {
+            int x = r.nextInt(Mapa.COLUMNAS), y = r.nextInt(Mapa.FILAS);
+            int minuto = T0 + r.nextInt(4 * 24 * 60);
+            boolean esperado = segunObjetos(bloqueos, x, y, minuto);
+            assertEquals(esperado, indice.estaBloqueado(x, y, minuto), "(" + x + "," + y + ") en " + minuto);
+            if (esperado) bloqueadas++;
+        }
+        // Bordes de cada ventana en cada nodo: inicio incluido, fin excluido
+        for (Bloqueo b : bloqueos) {
+            int ini = RelojSimulacion.minuto(b.getStartTime()), fin = RelojSimulacion.minuto(b.getEndTime());
+            for (Point p : b.getNodes()) {
+                for (int m : new int[]{ini - 1, ini, fin - 1, fin}) {
+                    assertEquals(segunObjetos(bloqueos, p.x, p.y, m), indice.estaBloqueado(p.x, p.y, m), p + " en " + m);
+                }
+                assertTrue(indice.estaBloqueado(p.x, p.y, ini));
+            }
+        }
+        assertTrue(bloqueadas > 100, "celdas bloqueadas en la muestra: " + bloqueadas);
+    }
+
+    @Test
+    void fusionaLosIntervalosDeUnaCelda() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(
+                bloqueo(10, 20, 5, 5, 5, 8),
+                bloqueo(15, 30, 5, 7, 9, 7),   // se solapa en (5,7)
+                bloqueo(30, 35, 5, 7, 5, 7),   // empieza justo donde terminó
+                bloqueo(50, 60, 5, 7, 5, 9),   // separado
+                bloqueo(52, 55, 5, 6, 5, 7))); // contenido
+
+        boolean[] esperado = new boolean[70];
+        for (int m = 10; m < 35; m++) esperado[m] = true;
+        for (int m = 50; m < 60; m++) esperado[m] = true;
+        for (int m = 0; m < esperado.length; m++) {
+            assertEquals(esperado[m], indice.estaBloqueado(5, 7, T0 + m), "minuto " + m);
+        }
+        assertTrue(indice.estaBloqueado(5, 5, T0 + 19));
+        assertFalse(indice.estaBloqueado(5, 5, T0 + 20));
+        assertTrue(indice.estaBloqueado(9, 7, T0 + 29));
+        assertFalse(indice.estaBloqueado(9, 7, T0 + 30));
+    }
+
+    @Test
+    void ignoraVentanasVaciasTramosDiagonalesYCeldasFuera() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(
+                bloqueo(10, 10, 1, 1, 1, 5),
+                bloqueo(20, 10, 2, 1, 2, 5),
+                bloqueo(0, 100, 3, 3, 6, 6),
+                bloqueo(0, 100, 69, 0, 75, 0)));
+
+        assertFalse(indice.estaBloqueado(1, 3, T0 + 10));
+        assertFalse(indice.estaBloqueado(2, 3, T0 + 15));
+        assertFalse(indice.estaBloqueado(4, 4, T0 + 50));
+        assertTrue(indice.estaBloqueado(70, 0, T0 + 50));
+        assertFalse(indice.estaBloqueado(71, 0, T0 + 50));
+        assertFalse(indice.estaBloqueado(-1, 0, T0 + 50));
+        assertTrue(IndiceBloqueos.construir(List.of()).estaVacio());
+        assertFalse(indice.estaVacio());
+    }
+
+    @Test
+    void proximoCambioMiraSoloLosBloqueosQueTocanLaZona() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(
+                bloqueo(100, 200, 10, 10, 20, 10),
+                bloqueo(50, 150, 40, 40, 40, 45)));
+
+        assertEquals(T0 + 100, indice.proximoCambio(0, 0, 15, 15, T0));
+        assertEquals(T0 + 200, indice.proximoCambio(0, 0, 15, 15, T0 + 100));
+        assertEquals(Integer.MAX_VALUE, indice.proximoCambio(0, 0, 15, 15, T0 + 200));
+        assertEquals(T0 + 50, indice.proximoCambio(0, 0, 70, 50, T0));
+        assertEquals(Integer.MAX_VALUE, indice.proximoCambio(0, 20, 30, 30, T0));
+    }
+
+    /** Hasta el próximo cambio, ninguna celda de la zona cambia de estado. */
+    @Test
+    void antesDelProximoCambioLaZonaNoCambia() {
+        List<Bloqueo> bloqueos = reales();
+        IndiceBloqueos indice = IndiceBloqueos.construir(bloqueos);
+        Random r = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            int x1 = r.nextInt(Mapa.COLUMNAS), y1 = r.nextInt(Mapa.FILAS);
+            int x2 = Math.min(Mapa.ANCHO, x1 + r.nextInt(15)), y2 = Math.min(Mapa.ALTO, y1 + r.nextInt(15));
+            int minuto = T0 + r.nextInt(3 * 24 * 60);
+            int proximo = indice.proximoCambio(x1, y1, x2, y2, minuto);
+            assertTrue(proximo > minuto);
+            int ultimo = proximo == Integer.MAX_VALUE ? minuto + 24 * 60 : proximo - 1;
+            for (int m : new int[]{minuto + (ultimo - minuto) / 2, ultimo}) {
+                for (int x = x1; x <= x2; x++) {
+                    for (int y = y1; y <= y2; y++) {
+                        assertEquals(indice.estaBloqueado(x, y, minuto), indice.estaBloqueado(x, y, m),
+                                "(" + x + "," + y + ") entre " + minuto + " y " + m);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void tramoLibreConsideraLosMinutosDeCadaPaso() {
+        // (10,5) bloqueada en [20, 30)
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(bloqueo(20, 30, 10, 0, 10, 9)));
+
+        // De (5,5) a (15,5): la celda (10,5) es el paso 5 y se ocupa entre los minutos m+5 y m+6
+        assertTrue(indice.tramoLibre(5, 5, 15, 5, 0, T0 + 30 - 5));
+        assertFalse(indice.tramoLibre(5, 5, 15, 5, 0, T0 + 29 - 5));
+        assertFalse(indice.tramoLibre(5, 5, 15, 5, 0, T0 + 20 - 6));
+        assertTrue(indice.tramoLibre(5, 5, 15, 5, 0, T0 + 20 - 7));
+        // El paso inicial desplaza los minutos
+        assertTrue(indice.tramoLibre(5, 5, 15, 5, 10, T0 + 30 - 15));
+        assertFalse(indice.tramoLibre(5, 5, 15, 5, 10, T0 + 29 - 15));
+        // En sentido contrario y en un tramo que no cruza
+        assertFalse(indice.tramoLibre(15, 5, 5, 5, 0, T0 + 20));
+        assertTrue(indice.tramoLibre(11, 5, 15, 5, 0, T0 + 20));
+    }
+
+    /** Si tramoLibre dice que sí, ninguna celda del tramo está bloqueada mientras se ocupa. */
+    @Test
+    void tramoLibreNuncaAceptaUnTramoBloqueado() {
+        List<Bloqueo> bloqueos = reales();
+        IndiceBloqueos indice = IndiceBloqueos.construir(bloqueos);
+        Random r = new Random(9);
+        int libres = 0, rechazados = 0;
+        for (int i = 0; i < 5_000; i++) {
+            int x1 = r.nextInt(Mapa.COLUMNAS), y1 = r.nextInt(Mapa.FILAS);
+            int x2 = x1, y2 = y1;
+            if (r.nextBoolean()) x2 = r.nextInt(Mapa.COLUMNAS); else y2 = r.nextInt(Mapa.FILAS);
+            int paso = r.nextInt(20);
+            int minuto = T0 + r.nextInt(3 * 24 * 60);
+            boolean libre = indice.tramoLibre(x1, y1, x2, y2, paso, minuto);
+            boolean bloqueado = false;
+            int dx = Integer.signum(x2 - x1), dy = Integer.signum(y2 - y1);
+            for (int j = 0, x = x1, y = y1; ; j++, x += dx, y += dy) {
+                int m = minuto + paso + j;
+                bloqueado |= segunObjetos(bloqueos, x, y, m) || segunObjetos(bloqueos, x, y, m + 1);
+                if (x == x2 && y == y2) break;
+            }
+            if (libre) {
+                assertFalse(bloqueado, "(" + x1 + "," + y1 + ")-(" + x2 + "," + y2 + ") paso " + paso + " en " + minuto);
+                libres++;
+            }
+            if (bloqueado) rechazados++;
+        }
+        assertTrue(libres > 1000 && rechazados > 100, libres + " libres, " + rechazados + " bloqueados");
+    }
+}
@@ -0,0 +1,88 @@
+package pe.pucp.plg.model.context;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Mapa;
+import pe.pucp.plg.service.algorithm.GridAStar;
+
+/**
+ * Escenario: un muro en x=45 deja dos pasos, abajo (y 0..2) y arriba (y=50). Mientras un
+ * segundo bloqueo cierra el de abajo, la ruta de (40,25) a (50,25) rodea por arriba; ese
+ * bloqueo queda fuera de la envolvente de la ruta, pero al terminar abre un atajo.
+ */
+class CacheRutasTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int T0 = IndiceBloqueos.minuto(BASE);
+    private static final int FIN_CIERRE = 100;
+
+    private static final int ORIGEN = Mapa.celda(40, 25);
+    private static final int DESTINO = Mapa.celda(50, 25);
+
+    private final Bloqueo muro = new Bloqueo(BASE.minusDays(1), BASE.plusDays(10),
+            List.of(new Point(45, 3), new Point(45, 49)));
+    private final Bloqueo cierreAbajo = new Bloqueo(BASE.minusDays(1), BASE.plusMinutes(FIN_CIERRE),
+            List.of(new Point(45, 0), new Point(45, 2)));
+    private final IndiceBloqueos indice = IndiceBloqueos.construir(List.of(muro, cierreAbajo));
+
+    private int[] sinCache(int minuto) {
+        return GridAStar.buscar(40, 25, 50, 25, minuto, indice);
+    }
+
+    @Test
+    void reutilizaLaRutaMientrasNoCambiaNadaEnElCorredor() {
+        CacheRutas cache = new CacheRutas();
+        int[] ruta = sinCache(T0);
+        cache.guardar(ORIGEN, DESTINO, T0, ruta, indice);
+
+        int[] guardada = cache.buscar(ORIGEN, DESTINO, T0 + 10, indice);
+
+        assertNotNull(guardada);
+        assertArrayEquals(sinCache(T0 + 10), guardada);
+    }
+
+    @Test
+    void alTerminarUnBloqueoFueraDeLaRutaPeroEnElCorredorDejaDeServirla() {
+        CacheRutas cache = new CacheRutas();
+        int[] rodeo = sinCache(T0);
+        assertEquals(60, rodeo.length, "rodea por arriba");
+        cache.guardar(ORIGEN, DESTINO, T0, rodeo, indice);
+
+        // Lo que hace BlockageService al terminar el bloqueo
+        int t1 = T0 + FIN_CIERRE;
+        cache.avanzarEpoca(cierreAbajo);
+
+        int[] atajo = sinCache(t1);
+        assertTrue(atajo.length < rodeo.length, "sin el cierre hay un camino más corto");
+        assertNull(cache.buscar(ORIGEN, DESTINO, t1, indice));
+    }
+
+    @Test
+    void conCacheYSinCacheDanLaMismaRutaAntesYDespuesDelFinDelBloqueo() {
+        CacheRutas cache = new CacheRutas();
+        for (int t = T0; t < T0 + 2 * FIN_CIERRE; t += 7) {
+            if (t >= T0 + FIN_CIERRE && t - 7 < T0 + FIN_CIERRE) {
+                cache.avanzarEpoca(cierreAbajo);
+            }
+            int[] esperada = sinCache(t);
+            int[] conCache = cache.buscar(ORIGEN, DESTINO, t, indice);
+            if (conCache == null) {
+                conCache = sinCache(t);
+                cache.guardar(ORIGEN, DESTINO, t, conCache, indice);
+            }
+            assertArrayEquals(esperada, conCache, "minuto " + (t - T0));
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package pe.pucp.plg.model.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.EntregaEvent;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
+
+class CalendarioEventosTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int T0 = RelojSimulacion.minuto(BASE);
+    private static final int RUEDA = 4096;
+
+    private final CalendarioEventos calendario = new CalendarioEventos();
+
+    /** Evento de entrega a t0 + minuto; el pedido se llama como la etiqueta. */
+    private EntregaEvent entrega(int minuto, String camion, String etiqueta) {
+        Pedido p = new Pedido(etiqueta, BASE, 0, 0, 1, BASE.plusDays(10));
+        EntregaEvent e = new EntregaEvent(RelojSimulacion.instante(T0 + minuto), camion, p);
+        calendario.offer(e);
+        return e;
+    }
+
+    private EntregaEvent retorno(int minuto, String camion) {
+        EntregaEvent e = new EntregaEvent(RelojSimulacion.instante(T0 + minuto), camion, null);
+        calendario.offer(e);
+        return e;
+    }
+
+    private static List<String> etiquetas(List<EntregaEvent> eventos) {
+        List<String> r = new ArrayList<>();
+        for (EntregaEvent e : eventos) r.add(e.getPedido() == null ? "retorno-" + e.getCamionId() : e.getPedido().getId());
+        return r;
+    }
+
+    private List<String> extraer(int minuto) {
+        return etiquetas(calendario.extraerHasta(T0 + minuto));
+    }
+
+    @Test
+    void dentroDelMinutoSaleEnOrdenDeProgramacion() {
+        entrega(5, "TA01", "b1");
+        entrega(3, "TA01", "a1");
+        entrega(5, "TB01", "b2");
+        entrega(3, "TB01", "a2");
+        entrega(5, "TC01", "b3");
+
+        assertEquals(List.of("a1", "a2", "b1", "b2", "b3"), extraer(10));
+        assertEquals(0, calendario.size());
+    }
+
+    @Test
+    void extraerHastaNoSacaLoPosteriorYDejaElCursorEnElMinutoSiguiente() {
+        entrega(10, "TA01", "a");
+        entrega(11, "TA01", "b");
+
+        assertEquals(List.of(), extraer(9));
+        assertEquals(List.of("a"), extraer(10));
+        assertEquals(List.of("b"), extraer(11));
+    }
+
+    @Test
+    void segundosSueltosSeDisparanEnElMinutoSiguiente() {
+        calendario.offer(new EntregaEvent(BASE.plusMinutes(4).plusSeconds(30), "TA01", null));
+
+        assertEquals(0, calendario.extraerHasta(T0 + 4).size());
+        assertEquals(1, calendario.extraerHasta(T0 + 5).size());
+    }
+
+    @Test
+    void losLejanosBajanALaRuedaAlAvanzar() {
+        extraer(0);
+        entrega(RUEDA + 500, "TA01", "lejano");
+        entrega(RUEDA + 500, "TB01", "lejano2");
+        entrega(20, "TA01", "cerca");
+
+        assertEquals(List.of("cerca"), extraer(RUEDA));
+        assertEquals(List.of(), extraer(RUEDA + 499));
+        assertEquals("lejano", calendario.peek().getPedido().getId());
+        assertEquals(List.of("lejano", "lejano2"), extraer(RUEDA + 500));
+    }
+
+    @Test
+    void losProgramadosAntesDeLaPrimeraExtraccionSalenOrdenados() {
+        entrega(3 * RUEDA, "TA01", "c");
+        entrega(-20, "TA01", "a");
+        entrega(RUEDA / 2, "TA01", "b");
+
+        assertEquals(List.of("a"), extraer(0));
+        assertEquals(List.of("b", "c"), extraer(3 * RUEDA));
+    }
+
+    @Test
+    void unSaltoMasLargoQueLaRuedaSacaTodoEnOrden() {
+        extraer(0);
+        int[] minutos = {9000, 1, 6000, 3000, RUEDA - 1, RUEDA, 2 * RUEDA + 7, 12000};
+        for (int m : minutos) entrega(m, "TA01", "m" + m);
+
+        assertEquals(List.of("m1", "m3000", "m4095", "m4096", "m6000", "m8199", "m9000"), extraer(10000));
+        assertEquals(1, calendario.size());
+        assertEquals(List.of("m12000"), extraer(12000 + 3 * RUEDA));
+        assertNull(calendario.peek());
+    }
+
+    @Test
+    void programarEnElPasadoSaleAntesQueLoVigenteOrdenadoPorMinuto() {
+        extraer(100);
+        entrega(105, "TA01", "vigente");
+        entrega(90, "TA01", "tarde-90-a");
+        entrega(50, "TB01", "tarde-50");
+        entrega(90, "TB01", "tarde-90-b");
+        entrega(100, "TC01", "tarde-100");
+
+        assertEquals("tarde-50", calendario.peek().getPedido().getId());
+        assertEquals(List.of("tarde-50", "tarde-90-a", "tarde-90-b", "tarde-100", "vigente"), extraer(110));
+    }
+
+    @Test
+    void cancelarCamionQuitaTodosSusEventosEnOrdenDeProgramacion() {
+        extraer(0);
+        entrega(10, "TA01", "a");
+        entrega(RUEDA + 10, "TA01", "lejano");
+        retorno(20, "TA01");
+        entrega(15, "TB01", "otro");
+
+        assertEquals(List.of("a", "lejano", "retorno-TA01"), etiquetas(calendario.cancelarCamion("TA01")));
+        assertEquals(1, calendario.size());
+        assertEquals(List.of(), calendario.cancelarCamion("TA01"));
+        assertEquals(List.of("otro"), extraer(2 * RUEDA));
+    }
+
+    @Test
+    void cancelarRetornosDejaLasEntregas() {
+        extraer(0);
+        entrega(10, "TA01", "a");
+        retorno(20, "TA01");
+        retorno(30, "TB01");
+
+        assertEquals(List.of("retorno-TA01"), etiquetas(calendario.cancelarRetornos("TA01")));
+        assertEquals(List.of("a", "retorno-TB01"), extraer(30));
+    }
+
+    @Test
+    void cancelarPedidosQuitaSoloEsosPedidosDeCualquierCamion() {
+        extraer(0);
+        entrega(10, "TA01", "a");
+        entrega(11, "TB01", "b");
+        entrega(12, "TA01", "c");
+        retorno(13, "TA01");
+
+        assertEquals(List.of("c", "a"), etiquetas(calendario.cancelarPedidos(List.of("c", "a", "inexistente"))));
+        assertEquals(List.of("b", "retorno-TA01"), extraer(20));
+        // Los índices quedan limpios: cancelar otra vez no encuentra nada
+        assertEquals(List.of(), calendario.cancelarCamion("TA01"));
+    }
+
+    @Test
+    void elIteradorRecorreEnOrdenDeDisparoYAdmiteRemove() {
+        extraer(100);
+        entrega(RUEDA + 200, "TA01", "lejano");
+        entrega(150, "TA01", "rueda");
+        entrega(50, "TA01", "tarde");
+        entrega(160, "TB01", "quitar");
+
+        List<String> recorrido = new ArrayList<>();
+        Iterator<EntregaEvent> it = calendario.iterator();
+        while (it.hasNext()) {
+            EntregaEvent e = it.next();
+            recorrido.add(e.getPedido().getId());
+            if (e.getPedido().getId().equals("quitar")) {
+                it.remove();
+                assertThrows(IllegalStateException.class, it::remove);
+            }
+        }
+
+        assertEquals(List.of("tarde", "rueda", "quitar", "lejano"), recorrido);
+        assertEquals(3, calendario.size());
+        assertEquals(List.of(), calendario.cancelarCamion("TB01"));
+        assertEquals(List.of("tarde", "rueda", "lejano"), extraer(RUEDA + 200));
+    }
+
+    @Test
+    void pollYClearMantienenElTamano() {
+        extraer(0);
+        EntregaEvent a = entrega(5, "TA01", "a");
+        entrega(RUEDA + 5, "TA01", "b");
+        entrega(7, "TA01", "c");
+
+        assertSame(a, calendario.poll());
+        assertEquals(2, calendario.size());
+        calendario.clear();
+        assertEquals(0, calendario.size());
+        assertNull(calendario.poll());
+        assertEquals(List.of(), extraer(2 * RUEDA));
+    }
+
+    /** Contra una PriorityQueue ordenada por (minuto, orden de programación). */
+    @Test
+    void coincideConUnaColaDePrioridadEnUnaSecuenciaAleatoria() {
+        record Programado(int minuto, long orden, EntregaEvent evento) { }
+        PriorityQueue<Programado> cola = new PriorityQueue<>((x, y) -> x.minuto() != y.minuto()
+                ? Integer.compare(x.minuto(), y.minuto()) : Long.compare(x.orden(), y.orden()));
+        Random r = new Random(7);
+        long orden = 0;
+        int ahora = 0;
+        for (int paso = 0; paso < 2000; paso++) {
+            int n = r.nextInt(4);
+            for (int k = 0; k < n; k++) {
+                // Algunos en el pasado, la mayoría cerca y unos pocos más allá de la rueda
+                int minuto = ahora + (r.nextInt(10) == 0 ? -r.nextInt(30) : r.nextInt(10) == 0 ? r.nextInt(3 * RUEDA) : r.nextInt(200));
+                EntregaEvent e = entrega(minuto, "T" + r.nextInt(5), "p" + orden);
+                cola.add(new Programado(e.getMinuto(), orden++, e));
+            }
+            ahora += r.nextInt(10) == 0 ? r.nextInt(2 * RUEDA) : r.nextInt(20);
+            List<EntregaEvent> esperados = new ArrayList<>();
+            while (!cola.isEmpty() && cola.peek().minuto() <= T0 + ahora) esperados.add(cola.poll().evento());
+            List<EntregaEvent> obtenidos = calendario.extraerHasta(T0 + ahora);
+            assertEquals(etiquetas(esperados), etiquetas(obtenidos), "paso " + paso);
+            assertEquals(cola.size(), calendario.size());
+        }
+        assertTrue(orden > 1000);
+    }
+}
@@ -0,0 +1,56 @@
+package pe.pucp.plg.model.context;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.template.CamionTemplate;
+
+/** El índice de camiones por ID debe seguir a la lista aunque cambie por fuera de setCamiones. */
+class ExecutionContextTest {
+
+    private static CamionEstado camion(String id) {
+        return new CamionEstado(new CamionTemplate(id, 25, 10000, 25), 12, 8);
+    }
+
+    private final ExecutionContext contexto = new ExecutionContext();
+    private final List<CamionEstado> flota = new ArrayList<>(List.of(camion("TA01"), camion("TB01"), camion("TC01")));
+
+    @Test
+    void encuentraLosCamionesTrasReordenarLaLista() {
+        contexto.setCamiones(flota);
+        Collections.reverse(flota);
+
+        for (CamionEstado c : flota) assertSame(c, contexto.getCamion(c.getPlantilla().getId()));
+    }
+
+    @Test
+    void encuentraElCamionQueReemplazaAOtroEnSuPosicion() {
+        contexto.setCamiones(flota);
+        CamionEstado nuevo = camion("TD01");
+        flota.set(1, nuevo);
+
+        assertSame(nuevo, contexto.getCamion("TD01"));
+        assertNull(contexto.getCamion("TB01"));
+        assertSame(flota.get(2), contexto.getCamion("TC01"));
+    }
+
+    @Test
+    void encuentraLosCamionesAnadidosYNoLosQuitados() {
+        contexto.setCamiones(flota);
+        CamionEstado nuevo = camion("TD01");
+        flota.add(0, nuevo);
+        flota.remove(2);
+
+        assertSame(nuevo, contexto.getCamion("TD01"));
+        assertNull(contexto.getCamion("TB01"));
+        assertSame(flota.get(2), contexto.getCamion("TC01"));
+        assertNull(contexto.getCamion("TX99"));
+    }
+}
@@ -0,0 +1,271 @@
+package pe.pucp.plg.model.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.RelojSimulacion;
+import pe.pucp.plg.model.context.RegistroPedidos.Estado;
+import pe.pucp.plg.service.Orchest.FleetService;
+import pe.pucp.plg.service.Orchest.MaintenanceService;
+import pe.pucp.plg.service.Orchest.PathfindingService;
+import pe.pucp.plg.service.Orchest.SimulationStateService;
+
+class RegistroPedidosTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int T0 = RelojSimulacion.minuto(BASE);
+
+    private final RegistroPedidos registro = new RegistroPedidos();
+
+    /** Pedido creado en BASE con plazo a t0 + minutos, ya en el registro. */
+    private Pedido pedido(String id, int plazo) {
+        Pedido p = new Pedido(id, BASE, 0, 0, 1, BASE.plusMinutes(plazo));
+        registro.add(p);
+        return p;
+    }
+
+    private List<String> vencidos(int minuto) {
+        return ids(registro.vencidos(T0 + minuto));
+    }
+
+    private static List<String> ids(Iterable<Pedido> pedidos) {
+        List<String> r = new ArrayList<>();
+        for (Pedido p : pedidos) r.add(p.getId());
+        return r;
+    }
+
+    @Test
+    void postergarElPlazoInvalidaLaEntradaVieja() {
+        Pedido p = pedido("p", 10);
+        p.setTiempoLimite(BASE.plusMinutes(100));
+
+        assertEquals(T0 + 100, registro.proximoPlazo());
+        assertEquals(List.of(), vencidos(50));
+        assertEquals(List.of("p"), vencidos(101));
+    }
+
+    @Test
+    void adelantarElPlazoLoVigilaDesdeYaYLaEntradaViejaNoRepite() {
+        Pedido p = pedido("p", 100);
+        p.setTiempoLimite(BASE.plusMinutes(10));
+
+        assertEquals(T0 + 10, registro.proximoPlazo());
+        assertEquals(List.of("p"), vencidos(11));
+        assertEquals(List.of(), vencidos(200));
+        assertEquals(Integer.MAX_VALUE, registro.proximoPlazo());
+    }
+
+    @Test
+    void volverAlPlazoOriginalNoDuplicaElVencido() {
+        Pedido p = pedido("p", 10);
+        p.setTiempoLimite(BASE.plusMinutes(100));
+        p.setTiempoLimite(BASE.plusMinutes(10));
+        p.setTiempoLimite(BASE.plusMinutes(100));
+        p.setTiempoLimite(BASE.plusMinutes(10));
+
+        assertEquals(List.of("p"), vencidos(11));
+        assertEquals(List.of(), vencidos(200));
+    }
+
+    @Test
+    void entrarYSalirDeEntregaVuelveAVigilarElPlazo() {
+        Pedido p = pedido("p", 10);
+        pedido("q", 20);
+        p.setProgramado(true);
+        p.setEnEntrega(true);
+
+        assertEquals(T0 + 20, registro.proximoPlazo());
+        p.setEnEntrega(false);
+        assertEquals(T0 + 10, registro.proximoPlazo());
+        assertEquals(List.of("p", "q"), vencidos(30));
+    }
+
+    @Test
+    void losVencidosSalenEnOrdenDeLlegada() {
+        pedido("a", 30);
+        pedido("b", 10);
+        pedido("c", 20);
+        pedido("d", 40);
+
+        assertEquals(List.of("a", "b", "c"), vencidos(35));
+        assertEquals(List.of("d"), vencidos(41));
+    }
+
+    @Test
+    void sinPlazoNuncaVence() {
+        Pedido p = new Pedido("p", BASE, 0, 0, 1, null);
+        registro.add(p);
+
+        assertEquals(Integer.MAX_VALUE, registro.proximoPlazo());
+        assertEquals(List.of(), vencidos(Integer.MAX_VALUE - T0));
+        p.setTiempoLimite(BASE.plusMinutes(5));
+        assertEquals(List.of("p"), vencidos(6));
+    }
+
+    @Test
+    void elObservadorMueveElPedidoDeCubeta() {
+        Pedido p = pedido("p", 10);
+        assertEquals(List.of("p"), ids(registro.enEstado(Estado.PENDIENTE)));
+
+        p.setProgramado(true);
+        assertEquals(List.of(), ids(registro.enEstado(Estado.PENDIENTE)));
+        assertEquals(List.of("p"), ids(registro.enEstado(Estado.PROGRAMADO)));
+
+        p.setEnEntrega(true);
+        assertEquals(List.of("p"), ids(registro.enEstado(Estado.EN_ENTREGA)));
+        assertEquals(0, registro.enEstado(Estado.PROGRAMADO).size());
+
+        p.setAtendido(true);
+        assertEquals(List.of("p"), ids(registro.enEstado(Estado.ENTREGADO)));
+        assertEquals(0, registro.enEstado(Estado.EN_ENTREGA).size());
+
+        p.setDescartado(true);
+        assertEquals(List.of("p"), ids(registro.enEstado(Estado.DESCARTADO)));
+        assertEquals(0, registro.enEstado(Estado.ENTREGADO).size());
+    }
+
+    @Test
+    void cambiarElPlazoReordenaLosPendientes() {
+        Pedido a = pedido("a", 30);
+        pedido("b", 20);
+        pedido("c", 20);
+        LocalDateTime despues = BASE.plusMinutes(1);
+
+        assertEquals(List.of("b", "c", "a"), ids(registro.pendientesPorPlazo(despues)));
+        a.setTiempoLimite(BASE.plusMinutes(5));
+        assertEquals(List.of("a", "b", "c"), ids(registro.pendientesPorPlazo(despues)));
+        a.setProgramado(true);
+        a.setProgramado(false);
+        assertEquals(List.of("a", "b", "c"), ids(registro.pendientesPorPlazo(despues)));
+        // Sólo los creados antes de t
+        assertEquals(List.of(), registro.pendientesPorPlazo(BASE));
+    }
+
+    @Test
+    void unPedidoQuitadoOCopiadoYaNoAvisa() {
+        Pedido p = pedido("p", 10);
+        Pedido copia = new Pedido(p);
+        copia.setProgramado(true);
+        assertEquals(List.of("p"), ids(registro.enEstado(Estado.PENDIENTE)));
+        // La copia no está en el registro (misma ID, otro objeto) ni puede entrar
+        assertFalse(registro.contains(copia));
+        assertFalse(registro.remove(copia));
+        assertThrows(IllegalStateException.class, () -> registro.add(copia));
+
+        assertTrue(registro.remove(p));
+        p.setProgramado(true);
+        p.setTiempoLimite(BASE.plusMinutes(1));
+        for (Estado e : Estado.values()) assertEquals(0, registro.enEstado(e).size(), e.name());
+        assertEquals(List.of(), vencidos(100));
+    }
+
+    @Test
+    void quitarConElIteradorDesclasifica() {
+        pedido("a", 10);
+        pedido("b", 20);
+        Iterator<Pedido> it = registro.iterator();
+        it.next();
+        it.remove();
+
+        assertNull(registro.get("a"));
+        assertEquals(List.of("b"), ids(registro.enEstado(Estado.PENDIENTE)));
+        assertEquals(List.of("b"), vencidos(30));
+    }
+
+    /** Pasada de hayColapso antes del registro: la lista completa, en orden de llegada. */
+    private static List<Pedido> escaneoAnterior(Iterable<Pedido> pedidos, LocalDateTime t) {
+        List<Pedido> vencidos = new ArrayList<>();
+        for (Pedido p : pedidos) {
+            if (!p.isAtendido() && !p.isDescartado() && !p.isEnEntrega() && t.isAfter(p.getTiempoLimite())) {
+                vencidos.add(p);
+            }
+        }
+        return vencidos;
+    }
+
+    /**
+     * Secuencia aleatoria de llegadas, programaciones, entregas, cambios de plazo (con segundos
+     * sueltos) y colapsos: cada minuto hayColapso descarta lo mismo que la pasada sobre la lista,
+     * y las cubetas coinciden con filtrar los flags.
+     */
+    @Test
+    void hayColapsoCoincideConElEscaneoDeLaLista() {
+        SimulationStateService estado = new SimulationStateService(
+                new MaintenanceService(new PathfindingService(), new FleetService()));
+        ExecutionContext contexto = new ExecutionContext();
+        RegistroPedidos pedidos = contexto.getPedidos();
+        Random r = new Random(11);
+        Map<Pedido, Integer> llegada = new IdentityHashMap<>();
+        int colapsos = 0;
+        for (int minuto = 0; minuto < 1500; minuto++) {
+            LocalDateTime t = BASE.plusMinutes(minuto);
+            for (int k = r.nextInt(3); k > 0; k--) {
+                LocalDateTime limite = t.plusMinutes(5 + r.nextInt(120)).plusSeconds(r.nextInt(4) == 0 ? 30 : 0);
+                Pedido p = new Pedido("p" + llegada.size(), t, 0, 0, 1, limite);
+                llegada.put(p, llegada.size());
+                pedidos.add(p);
+            }
+            List<Pedido> vivos = new ArrayList<>(pedidos);
+            for (int k = Math.min(vivos.size(), 4); k > 0; k--) {
+                Pedido p = vivos.get(r.nextInt(vivos.size()));
+                switch (r.nextInt(6)) {
+                    case 0 -> p.setProgramado(!p.isProgramado());
+                    case 1 -> { if (p.isProgramado()) p.setEnEntrega(!p.isEnEntrega()); }
+                    case 2 -> { if (p.isEnEntrega()) { p.setEnEntrega(false); p.setAtendido(true); } }
+                    case 3 -> p.setTiempoLimite(p.getTiempoLimite().plusMinutes(r.nextInt(60) - 20));
+                    case 4 -> p.setTiempoLimite(t.plusMinutes(r.nextInt(10)));
+                    default -> { }
+                }
+            }
+
+            int proximo = Integer.MAX_VALUE;
+            for (Pedido p : pedidos) {
+                if (!p.isAtendido() && !p.isDescartado() && !p.isEnEntrega()) proximo = Math.min(proximo, p.getMinutoLimite());
+            }
+            assertEquals(proximo, pedidos.proximoPlazo(), "minuto " + minuto);
+            List<Pedido> esperados = escaneoAnterior(pedidos, t);
+            String colapsoPrevio = contexto.getPedidoColapso();
+            assertEquals(!esperados.isEmpty(), estado.hayColapso(contexto, t), "minuto " + minuto);
+            for (Pedido p : esperados) {
+                assertTrue(p.isDescartado());
+                assertFalse(pedidos.contains(p));
+            }
+            Pedido ultimo = esperados.isEmpty() ? null : esperados.get(esperados.size() - 1);
+            assertEquals(ultimo == null ? colapsoPrevio : ultimo.getId() + " (0,0)", contexto.getPedidoColapso());
+            assertEquals(List.of(), escaneoAnterior(pedidos, t));
+            colapsos += esperados.size();
+
+            for (Estado e : Estado.values()) {
+                List<String> filtrados = new ArrayList<>();
+                for (Pedido p : pedidos) if (Estado.de(p) == e) filtrados.add(p.getId());
+                // Las cubetas no siguen el orden de llegada: se comparan como conjuntos
+                assertEquals(new TreeSet<>(filtrados), new TreeSet<>(ids(pedidos.enEstado(e))), e.name());
+            }
+            List<Pedido> candidatos = new ArrayList<>();
+            for (Pedido p : pedidos) {
+                if (!p.isProgramado() && !p.isAtendido() && !p.isDescartado() && p.getTiempoCreacion().isBefore(t)) candidatos.add(p);
+            }
+            candidatos.sort(Comparator.comparingInt(Pedido::getMinutoLimite).thenComparingInt(llegada::get));
+            assertEquals(ids(candidatos), ids(pedidos.pendientesPorPlazo(t)), "minuto " + minuto);
+        }
+        assertTrue(colapsos > 50, "colapsos: " + colapsos);
+        assertSame(pedidos, contexto.getPedidos());
+    }
+}
@@ -0,0 +1,190 @@
+package pe.pucp.plg.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.dto.EventDTO;
+import pe.pucp.plg.model.common.Averia;
+import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.EntregaEvent;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.context.ExecutionContext;
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.state.TanqueDinamico;
+import pe.pucp.plg.model.template.CamionTemplate;
+import pe.pucp.plg.model.template.TanqueTemplate;
+import pe.pucp.plg.repository.CamionTemplateRepository;
+import pe.pucp.plg.repository.TanqueTemplateRepository;
+import pe.pucp.plg.service.Orchest.BlockageService;
+import pe.pucp.plg.service.Orchest.DeliveryEventService;
+import pe.pucp.plg.service.Orchest.FleetService;
+import pe.pucp.plg.service.Orchest.IncidentService;
+import pe.pucp.plg.service.Orchest.MaintenanceService;
+import pe.pucp.plg.service.Orchest.NextEventService;
+import pe.pucp.plg.service.Orchest.PathfindingService;
+import pe.pucp.plg.service.Orchest.PlanningService;
+import pe.pucp.plg.service.Orchest.SimulationStateService;
+import pe.pucp.plg.service.algorithm.ACOPlanner;
+import pe.pucp.plg.service.algorithm.PlanificadorPorRegiones;
+import pe.pucp.plg.util.ResourceLoader;
+
+/**
+ * Avanzar de evento en evento ({@link OrchestratorService#avanzarHastaProximoEvento}) debe dejar
+ * la simulación exactamente igual que avanzar minuto a minuto: misma semilla, misma ventana,
+ * mismos pedidos, bloqueos y averías (dos averías fijas además de mantenimientos).
+ */
+class AvancePorEventosTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2025, 1, 1);
+
+    /** Estado final comparable: camiones, contadores, pedidos, tanques y cola de eventos. */
+    private record Foto(List<String> camiones, int entregados, double distancia, long descartados,
+                        List<String> pedidos, List<String> tanques, List<String> eventos, LocalDateTime fin) {
+    }
+
+    private static Foto simular(boolean porEventos, int horas, int maxCamiones) {
+        FleetService fleet = new FleetService();
+        PathfindingService pathfinding = new PathfindingService();
+        IncidentService incidentes = new IncidentService(fleet);
+        MaintenanceService mantenimiento = new MaintenanceService(pathfinding, fleet);
+        TanqueTemplateRepository tanques = new TanqueTemplateRepository();
+        tanques.init();
+        ACOPlanner aco = new ACOPlanner(1, "forkjoin", 7L, 100_000, 0, 1, 10, true);
+        PlanificadorPorRegiones regiones = new PlanificadorPorRegiones(tanques, 0);
+        PlanningService planning = new PlanningService(pathfinding, fleet, incidentes, List.of(aco), regiones, false);
+        EventPublisherService sinPublicar = new EventPublisherService(null) {
+            @Override
+            public void publicarEventoOperacion(EventDTO evento) { }
+
+            @Override
+            public void publicarEventoSimulacion(String simulationId, EventDTO evento) { }
+        };
+        OrchestratorService orquestador = new OrchestratorService(new SimulationStateService(mantenimiento), incidentes,
+                mantenimiento, new BlockageService(), fleet, new DeliveryEventService(pathfinding, fleet), planning,
+                sinPublicar, pathfinding, aco, new NextEventService(fleet));
+        try {
+            ExecutionContext c = contexto(tanques, horas / 24 + 1, maxCamiones);
+            // Los descartados salen de la lista activa: se guardan todos los que pasan por ella
+            Map<String, Pedido> vistos = new TreeMap<>();
+            LocalDateTime fin = INICIO.atStartOfDay().plusHours(horas);
+            while (c.getCurrentTime().isBefore(fin)) {
+                LocalDateTime t = porEventos
+                        ? orquestador.avanzarHastaProximoEvento(c, "prueba", fin)
+                        : orquestador.stepOneMinute(c, "prueba");
+                assertNotNull(t, "colapso en " + c.getCurrentTime());
+                for (Pedido p : c.getPedidos()) vistos.putIfAbsent(p.getId(), p);
+            }
+            return foto(c, vistos.values());
+        } finally {
+            aco.cerrar();
+            regiones.cerrar();
+        }
+    }
+
+    private static ExecutionContext contexto(TanqueTemplateRepository tanqueRepo, int dias, int maxCamiones) {
+        ExecutionContext c = new ExecutionContext();
+        CamionTemplateRepository camionRepo = new CamionTemplateRepository();
+        camionRepo.init();
+        List<CamionEstado> flota = new ArrayList<>();
+        for (CamionTemplate t : camionRepo.getTodos()) {
+            if (flota.size() < maxCamiones) flota.add(new CamionEstado(t, 12, 8));
+        }
+        c.setCamiones(flota);
+        List<TanqueDinamico> tanques = new ArrayList<>();
+        for (TanqueTemplate t : tanqueRepo.getTodos()) tanques.add(new TanqueDinamico(t));
+        c.setTanques(tanques);
+        for (CamionEstado camion : flota) camion.setTanqueOrigen(tanques.get(0));
+
+        c.setFechaInicio(INICIO);
+        c.setDuracionDias(dias);
+        LocalDateTime t0 = INICIO.atStartOfDay();
+        c.setCurrentTime(t0);
+        NavigableMap<LocalDateTime, List<Pedido>> pedidosPorTiempo = new TreeMap<>();
+        for (Pedido p : ResourceLoader.cargarPedidosParaFecha(INICIO)) {
+            pedidosPorTiempo.computeIfAbsent(p.getTiempoCreacion(), k -> new ArrayList<>()).add(p);
+        }
+        c.setPedidosPorTiempo(pedidosPorTiempo);
+        c.setPedidos(new ArrayList<>(pedidosPorTiempo.getOrDefault(t0, new ArrayList<>())));
+        pedidosPorTiempo.remove(t0);
+        for (Bloqueo b : ResourceLoader.cargarBloqueosParaFecha(INICIO)) {
+            c.getBloqueosPorTiempo().computeIfAbsent(b.getStartTime(), k -> new ArrayList<>()).add(b);
+            c.getBloqueosPorDia().add(b);
+        }
+        c.reconstruirIndiceBloqueos();
+
+        Map<String, Map<String, Averia>> averias = new HashMap<>();
+        averias.computeIfAbsent("T2", k -> new HashMap<>()).put("TD03", new Averia("T2", "TD03", "T1"));
+        averias.computeIfAbsent("T3", k -> new HashMap<>()).put("TC01", new Averia("T3", "TC01", "T2"));
+        c.setAveriasPorTurno(averias);
+        c.setMantenimientos(ResourceLoader.cargarMantenimientos());
+        c.setIgnorarColapso(true);
+        return c;
+    }
+
+    private static Foto foto(ExecutionContext c, Collection<Pedido> todos) {
+        List<String> camiones = new ArrayList<>();
+        for (CamionEstado x : c.getCamiones()) {
+            camiones.add(x.getPlantilla().getId() + " (" + x.getX() + "," + x.getY() + ") " + x.getStatus()
+                    + " combustible=" + x.getCombustibleActual() + " consumo=" + x.getConsumoAcumulado()
+                    + " paso=" + x.getPasoActual() + "/" + x.getRutaActual().size() + " libre=" + x.getTiempoLibre());
+        }
+        List<String> pedidos = new ArrayList<>();
+        long descartados = 0;
+        for (Pedido p : todos) {
+            pedidos.add(p.getId() + " atendido=" + p.isAtendido() + " programado=" + p.isProgramado() + " descartado=" + p.isDescartado());
+            if (p.isDescartado()) descartados++;
+        }
+        List<String> tanques = new ArrayList<>();
+        for (TanqueDinamico t : c.getTanques()) tanques.add(t.getId() + "=" + t.getDisponible());
+        List<String> eventos = new ArrayList<>();
+        for (EntregaEvent e : c.getEventosEntrega()) {
+            eventos.add(e.getMinuto() + " " + e.getCamionId() + " " + (e.getPedido() == null ? "retorno" : e.getPedido().getId()));
+        }
+        return new Foto(camiones, c.getTotalPedidosEntregados(), c.getTotalDistanciaRecorrida(), descartados,
+                pedidos, tanques, eventos, c.getCurrentTime());
+    }
+
+    private static Foto compararModos(int horas, int maxCamiones) {
+        Foto minutos = simular(false, horas, maxCamiones);
+        Foto eventos = simular(true, horas, maxCamiones);
+
+        assertTrue(minutos.entregados() > 0, "la ventana debe tener entregas");
+        assertEquals(minutos.fin(), eventos.fin());
+        assertEquals(minutos.entregados(), eventos.entregados(), "entregados");
+        assertEquals(minutos.descartados(), eventos.descartados(), "descartados");
+        assertEquals(minutos.distancia(), eventos.distancia(), 0.0, "distancia");
+        assertEquals(minutos.camiones(), eventos.camiones());
+        assertEquals(minutos.pedidos(), eventos.pedidos());
+        assertEquals(minutos.tanques(), eventos.tanques());
+        assertEquals(minutos.eventos(), eventos.eventos(), "cola de eventos");
+        return minutos;
+    }
+
+    /** Corta a media tarde del tercer día, con camiones en ruta y eventos pendientes. */
+    @Test
+    void porEventosTerminaIgualQueMinutoAMinutoConLaFlotaCompleta() {
+        Foto foto = compararModos(2 * 24 + 15, Integer.MAX_VALUE);
+        assertTrue(!foto.eventos().isEmpty(), "la ventana debe cortar con eventos pendientes");
+    }
+
+    /** Con dos camiones hay más replanificaciones, pedidos sin asignar y descartes. */
+    @Test
+    void porEventosTerminaIgualQueMinutoAMinutoConFlotaReducida() {
+        Foto foto = compararModos(24 + 15, 2);
+        assertTrue(foto.descartados() > 0, "la ventana debe tener descartes");
+        assertTrue(!foto.eventos().isEmpty(), "la ventana debe cortar con eventos pendientes");
+    }
+}
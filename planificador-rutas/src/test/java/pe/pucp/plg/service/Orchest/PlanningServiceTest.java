@@ -0,0 +1,154 @@
+package pe.pucp.plg.service.Orchest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.EntregaEvent;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.Ruta;
+import pe.pucp.plg.model.context.ExecutionContext;
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.template.CamionTemplate;
+import pe.pucp.plg.service.algorithm.MatrizTiempos;
+
+/**
+ * aplicarRutas con bloqueos reales: un tramo sin ruta nunca se cuenta como 0 minutos ni
+ * programa una entrega en tiempoActual + servicio.
+ */
+class PlanningServiceTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    private final FleetService fleet = new FleetService();
+    private final PathfindingService pathfinding = new PathfindingService();
+    private final PlanningService planning = new PlanningService(pathfinding, fleet, new IncidentService(fleet),
+            List.of(), null, false);
+    private final ExecutionContext contexto = new ExecutionContext();
+
+    private static CamionEstado camion(String id, int x, int y) {
+        return new CamionEstado(new CamionTemplate(id, 25, 10000, 25), x, y);
+    }
+
+    private static Pedido pedido(String id, int x, int y) {
+        return new Pedido(id, T.minusMinutes(10), x, y, 5, T.plusHours(8));
+    }
+
+    private void bloquear(int... coords) {
+        List<Point> nodos = new ArrayList<>();
+        for (int i = 0; i < coords.length; i += 2) nodos.add(new Point(coords[i], coords[i + 1]));
+        contexto.getBloqueosPorDia().add(new Bloqueo(T.minusHours(1), T.plusHours(12), nodos));
+        contexto.reconstruirIndiceBloqueos();
+    }
+
+    /** Anillo bloqueado alrededor de (x,y): la celda se puede ocupar pero no alcanzar. */
+    private void encerrar(int x, int y) {
+        bloquear(x - 1, y - 1, x + 1, y - 1, x + 1, y + 1, x - 1, y + 1, x - 1, y - 1);
+    }
+
+    private void aplicar(List<CamionEstado> flota, List<Pedido> activos, List<Ruta> rutas) {
+        contexto.setCamiones(flota);
+        contexto.setCurrentTime(T);
+        MatrizTiempos tiempos = MatrizTiempos.construir(flota, activos, T, contexto.getIndiceBloqueos());
+        planning.aplicarRutas(T, new ArrayList<>(rutas), activos, contexto, tiempos);
+    }
+
+    private static Ruta ruta(String camionId, Integer... indices) {
+        Ruta r = new Ruta(camionId);
+        r.setPedidoIds(List.of(indices));
+        return r;
+    }
+
+    private List<String> eventos() {
+        List<String> r = new ArrayList<>();
+        for (EntregaEvent e : contexto.getEventosEntrega()) r.add(e.getCamionId() + " " + e.getPedido().getId());
+        return r;
+    }
+
+    /** Camión en entrega hacia Q, con la ruta que ya lleva. */
+    private CamionEstado enEntrega(Pedido cargado) {
+        CamionEstado c = camion("TA01", 10, 10);
+        c.setRuta(pathfinding.buildManhattanPath(10, 10, cargado.getX(), cargado.getY(), T, contexto));
+        c.setStatus(CamionEstado.TruckStatus.DELIVERING);
+        c.getPedidosCargados().add(cargado);
+        cargado.setProgramado(true);
+        return c;
+    }
+
+    @Test
+    void noDesviaHaciaUnPedidoInalcanzable() {
+        encerrar(14, 10);
+        Pedido q = pedido("Q", 20, 10);
+        Pedido p = pedido("P", 14, 10);
+        CamionEstado c = enEntrega(q);
+        List<Point> rutaPrevia = new ArrayList<>(c.getRutaActual());
+
+        aplicar(List.of(c), List.of(q, p), List.of(ruta("TA01", 1)));
+
+        assertFalse(p.isProgramado());
+        assertEquals(List.of(), eventos());
+        assertEquals(rutaPrevia, c.getRutaActual());
+        assertEquals(25.0, c.getCapacidadDisponible(), 0.0);
+    }
+
+    @Test
+    void noDesviaSiDespuesNoPuedeLlegarAlPedidoQueLleva() {
+        encerrar(20, 10);
+        Pedido q = pedido("Q", 20, 10);
+        Pedido p = pedido("P", 12, 14);
+        CamionEstado c = camion("TA01", 10, 10);
+        c.setRuta(List.of(new Point(11, 10)));
+        c.setStatus(CamionEstado.TruckStatus.DELIVERING);
+        c.getPedidosCargados().add(q);
+        q.setProgramado(true);
+
+        aplicar(List.of(c), List.of(q, p), List.of(ruta("TA01", 1)));
+
+        assertFalse(p.isProgramado());
+        assertEquals(List.of(), eventos());
+    }
+
+    @Test
+    void sinRutasElRespaldoNoProgramaPedidosInalcanzables() {
+        encerrar(30, 30);
+        Pedido p = pedido("P", 30, 30);
+        CamionEstado c = camion("TA01", 10, 10);
+
+        aplicar(List.of(c), List.of(p), List.of());
+
+        assertFalse(p.isProgramado());
+        assertEquals(List.of(), eventos());
+        assertEquals(CamionEstado.TruckStatus.AVAILABLE, c.getStatus());
+    }
+
+    @Test
+    void elRespaldoFinalEligeElCamionPorTiempoRealYNoProgramaSinRuta() {
+        // Un muro entre A y P: A está más cerca en línea recta, B llega antes
+        bloquear(20, 32, 40, 32);
+        encerrar(60, 10);
+        Pedido r = pedido("R", 5, 5);
+        Pedido p = pedido("P", 30, 34);
+        Pedido aislado = pedido("AISLADO", 60, 10);
+        CamionEstado a = camion("TA01", 30, 30);
+        CamionEstado b = camion("TB01", 30, 42);
+        CamionEstado otro = camion("TC01", 5, 6);
+
+        aplicar(List.of(a, b, otro), List.of(r, p, aislado), List.of(ruta("TC01", 0)));
+
+        assertTrue(p.isProgramado());
+        assertSame(CamionEstado.TruckStatus.DELIVERING, b.getStatus());
+        assertEquals(List.of(p), b.getPedidosCargados());
+        assertEquals(T.plusMinutes(8 + 15), p.getHoraEntregaProgramada());
+        assertFalse(aislado.isProgramado());
+        assertEquals(List.of("TC01 R", "TB01 P"), eventos());
+    }
+}
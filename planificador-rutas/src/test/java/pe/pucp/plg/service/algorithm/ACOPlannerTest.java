@@ -0,0 +1,75 @@
+package pe.pucp.plg.service.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static pe.pucp.plg.service.algorithm.InstanciaAleatoria.BASE;
+import static pe.pucp.plg.service.algorithm.InstanciaAleatoria.coste;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.Ruta;
+import pe.pucp.plg.model.context.MemoriaFeromonas;
+
+/**
+ * En un solo hilo y con un presupuesto holgado el ACO es reproducible, así que se puede
+ * comparar con valores fijos. Las rutas se validan con el mismo modelo que usan las hormigas.
+ */
+class ACOPlannerTest {
+
+    private static final double EPS = 1e-6;
+
+    private final List<ACOPlanner> planificadores = new ArrayList<>();
+
+    private ACOPlanner aco(int islas) {
+        ACOPlanner aco = new ACOPlanner(1, "forkjoin", 7L, 60_000, 0, islas, 5, true);
+        planificadores.add(aco);
+        return aco;
+    }
+
+    private static List<Ruta> planificar(ACOPlanner aco, InstanciaAleatoria inst) {
+        return aco.calcularRutas(inst.pedidos, inst.flota, BASE, new MemoriaFeromonas(), Map.of(), inst.matriz, 0, 0);
+    }
+
+    @AfterEach
+    void cerrar() {
+        planificadores.forEach(ACOPlanner::cerrar);
+    }
+
+    @Test
+    void conUnaYConVariasIslasLasRutasSonValidas() {
+        InstanciaAleatoria inst = new InstanciaAleatoria(5, 80);
+        for (int islas : new int[]{1, 3}) {
+            List<Ruta> rutas = planificar(aco(islas), inst);
+            assertFalse(rutas.isEmpty(), islas + " islas");
+            inst.validar(rutas);
+        }
+    }
+
+    @Test
+    void conIslasLaMismaSemillaDaLasMismasRutas() {
+        InstanciaAleatoria inst = new InstanciaAleatoria(6, 60);
+        List<Ruta> a = planificar(aco(3), inst);
+        List<Ruta> b = planificar(aco(3), inst);
+        assertEquals(a.size(), b.size());
+        for (int v = 0; v < a.size(); v++) {
+            assertEquals(a.get(v).getPedidoIds(), b.get(v).getPedidoIds());
+        }
+    }
+
+    /** La mejor solución pasó por la búsqueda local: otra pasada ya no la mejora. */
+    @Test
+    void laMejorSolucionYaEsUnOptimoLocal() {
+        InstanciaAleatoria inst = new InstanciaAleatoria(11, 150);
+        List<Ruta> rutas = planificar(aco(1), inst);
+        inst.validar(rutas);
+
+        List<Ruta> otraPasada = inst.busquedaLocal().mejorar(rutas);
+
+        assertEquals(coste(rutas), coste(otraPasada), EPS);
+    }
+}
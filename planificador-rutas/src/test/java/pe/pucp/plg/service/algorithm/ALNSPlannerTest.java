@@ -0,0 +1,59 @@
+package pe.pucp.plg.service.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pe.pucp.plg.service.algorithm.InstanciaAleatoria.BASE;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.Ruta;
+import pe.pucp.plg.model.context.MemoriaFeromonas;
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.template.CamionTemplate;
+
+class ALNSPlannerTest {
+
+    private final ALNSPlanner alns = new ALNSPlanner(60_000, 0, 7L);
+
+    private List<Ruta> planificar(List<Pedido> pedidos, List<CamionEstado> flota) {
+        return planificar(pedidos, flota, Map.of());
+    }
+
+    private List<Ruta> planificar(List<Pedido> pedidos, List<CamionEstado> flota, Map<String, List<String>> planAnterior) {
+        MatrizTiempos matriz = MatrizTiempos.construir(flota, pedidos, BASE, IndiceBloqueos.construir(List.of()));
+        return alns.planificar(new ProblemaPlanificacion(pedidos, flota, BASE, matriz, new MemoriaFeromonas(), planAnterior));
+    }
+
+    /**
+     * El camión lleva el pedido cercano o los otros dos, que juntos cuestan unos 10 galones
+     * más. El plan anterior servía los dos: cambiarlos por el cercano ahorra combustible pero
+     * deja un pedido más sin ruta, y eso nunca debe compensar.
+     */
+    @Test
+    void noCambiaDosPedidosPorUnoMasBarato() {
+        CamionEstado camion = new CamionEstado(new CamionTemplate("TX01", 25, 10000, 25), 0, 0);
+        List<Pedido> pedidos = List.of(
+                new Pedido("GRANDE", BASE.minusMinutes(10), 1, 0, 25, BASE.plusHours(24)),
+                new Pedido("CERCA", BASE.minusMinutes(10), 2, 0, 12, BASE.plusHours(24)),
+                new Pedido("LEJOS", BASE.minusMinutes(10), 70, 50, 12, BASE.plusHours(24)));
+
+        List<Ruta> rutas = planificar(pedidos, List.of(camion), Map.of("TX01", List.of("CERCA", "LEJOS")));
+
+        assertEquals(1, rutas.size());
+        assertEquals(2, rutas.get(0).getPedidoIds().size(), "pedidos servidos: " + rutas.get(0).getPedidoIds());
+        assertTrue(rutas.get(0).consumo > 10.0, "la ruta gasta " + rutas.get(0).consumo + " galones");
+    }
+
+    @Test
+    void lasRutasSonValidasEnInstanciasAleatorias() {
+        for (long semilla = 1; semilla <= 4; semilla++) {
+            InstanciaAleatoria inst = new InstanciaAleatoria(semilla, 40 + (int) semilla * 10);
+            inst.validar(planificar(inst.pedidos, inst.flota));
+        }
+    }
+}
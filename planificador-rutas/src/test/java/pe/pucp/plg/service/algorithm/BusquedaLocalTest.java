@@ -0,0 +1,68 @@
+package pe.pucp.plg.service.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static pe.pucp.plg.service.algorithm.InstanciaAleatoria.asignados;
+import static pe.pucp.plg.service.algorithm.InstanciaAleatoria.coste;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.Ruta;
+
+/**
+ * La solución de partida la arma una "hormiga" sin feromonas ({@link InstanciaAleatoria}):
+ * cada pedido, en orden aleatorio, va al final de un camión al azar donde quepa.
+ */
+class BusquedaLocalTest {
+
+    private static final double EPS = 1e-6;
+
+    @Test
+    void nuncaEmpeoraYLasRutasSiguenSiendoValidas() {
+        for (long semilla = 1; semilla <= 8; semilla++) {
+            InstanciaAleatoria inst = new InstanciaAleatoria(semilla, 20 + (int) semilla * 10);
+            List<Ruta> inicial = inst.solucionAleatoria(semilla);
+            inst.validar(inicial);
+
+            List<Ruta> mejorada = inst.busquedaLocal().mejorar(inicial);
+
+            inst.validar(mejorada);
+            assertTrue(coste(mejorada) <= coste(inicial) + EPS, "semilla " + semilla);
+            assertEquals(asignados(inicial), asignados(mejorada), "mueve pedidos, no los descarta");
+        }
+    }
+
+    @Test
+    void completarInsertaPedidosSinRutaSinRomperLasRestricciones() {
+        InstanciaAleatoria inst = new InstanciaAleatoria(3, 60);
+        List<Ruta> vacia = new ArrayList<>();
+        for (String id : inst.ids) vacia.add(new Ruta(id));
+
+        List<Ruta> completa = inst.busquedaLocal().mejorar(vacia, true);
+
+        inst.validar(completa);
+        assertTrue(asignados(completa).size() > 0);
+    }
+
+    /**
+     * La comparación que respalda la búsqueda local: en la instancia de 150 pedidos baja el
+     * consumo de soluciones tipo hormiga en más de un 30 %.
+     */
+    @Test
+    void bajaElConsumoDeLaInstanciaDe150Pedidos() {
+        InstanciaAleatoria inst = new InstanciaAleatoria(11, 150);
+        double inicial = 0, mejorado = 0;
+        for (long semilla = 0; semilla < 5; semilla++) {
+            List<Ruta> solucion = inst.solucionAleatoria(semilla);
+            inicial += coste(solucion);
+            List<Ruta> mejorada = inst.busquedaLocal().mejorar(solucion);
+            inst.validar(mejorada);
+            mejorado += coste(mejorada);
+        }
+        assertTrue(mejorado < 0.7 * inicial, inicial + " -> " + mejorado);
+    }
+}
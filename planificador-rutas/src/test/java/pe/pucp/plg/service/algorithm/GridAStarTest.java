@@ -0,0 +1,394 @@
+package pe.pucp.plg.service.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.Bloqueo;
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Mapa;
+import pe.pucp.plg.model.common.RelojSimulacion;
+import pe.pucp.plg.util.ResourceLoader;
+
+/**
+ * GridAStar contra la búsqueda original de PathfindingService (nodos, Point y un recorrido de
+ * los objetos Bloqueo por consulta), con los bloqueos reales de enero.
+ */
+class GridAStarTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int T0 = RelojSimulacion.minuto(BASE);
+
+    private static final List<Bloqueo> REALES = cargarReales();
+    private static final IndiceBloqueos INDICE_REAL = IndiceBloqueos.construir(REALES);
+
+    private static List<Bloqueo> cargarReales() {
+        List<Bloqueo> bloqueos = new ArrayList<>();
+        for (int d = 0; d < 3; d++) {
+            for (Bloqueo b : ResourceLoader.cargarBloqueosParaFecha(LocalDate.of(2025, 1, 1).plusDays(d))) {
+                if (!bloqueos.contains(b)) bloqueos.add(b);
+            }
+        }
+        return bloqueos;
+    }
+
+    private static Bloqueo bloqueo(int desde, int hasta, int... coords) {
+        List<Point> nodos = new ArrayList<>();
+        for (int i = 0; i < coords.length; i += 2) nodos.add(new Point(coords[i], coords[i + 1]));
+        return new Bloqueo(BASE.plusMinutes(desde), BASE.plusMinutes(hasta), nodos);
+    }
+
+    static boolean bloqueado(List<Bloqueo> bloqueos, int x, int y, int minuto) {
+        LocalDateTime t = RelojSimulacion.instante(minuto);
+        Point p = new Point(x, y);
+        for (Bloqueo b : bloqueos) {
+            if (b.isActiveAt(t) && b.estaBloqueado(t, p)) return true;
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------------
+    // Búsqueda original, tal como estaba en PathfindingService
+
+    private static final class Nodo {
+        final Point posicion;
+        Nodo padre;
+        int g = Integer.MAX_VALUE, f;
+
+        Nodo(Point posicion) {
+            this.posicion = posicion;
+        }
+    }
+
+    static List<Point> busquedaOriginal(Point inicio, Point fin, int minutoInicio, List<Bloqueo> bloqueos) {
+        PriorityQueue<Nodo> abiertos = new PriorityQueue<>(Comparator.comparingInt(n -> n.f));
+        Set<Point> cerrados = new HashSet<>();
+        Map<Point, Nodo> nodos = new HashMap<>();
+        Nodo primero = new Nodo(inicio);
+        primero.g = 0;
+        primero.f = manhattan(inicio, fin);
+        abiertos.add(primero);
+        nodos.put(inicio, primero);
+
+        while (!abiertos.isEmpty()) {
+            Nodo actual = abiertos.poll();
+            if (actual.posicion.equals(fin)) {
+                LinkedList<Point> ruta = new LinkedList<>();
+                for (Nodo n = actual; n.padre != null; n = n.padre) ruta.addFirst(n.posicion);
+                return ruta;
+            }
+            cerrados.add(actual.posicion);
+            for (int[] d : new int[][]{{0, 1}, {0, -1}, {1, 0}, {-1, 0}}) {
+                Point vecino = new Point(actual.posicion.x + d[0], actual.posicion.y + d[1]);
+                if (!Mapa.dentro(vecino.x, vecino.y)) continue;
+                int llegada = minutoInicio + actual.g + 1;
+                boolean bloqueadoMovimiento = bloqueado(bloqueos, vecino.x, vecino.y, llegada)
+                        || (bloqueado(bloqueos, actual.posicion.x, actual.posicion.y, llegada) && !actual.posicion.equals(inicio));
+                if (cerrados.contains(vecino) || (bloqueadoMovimiento && !vecino.equals(fin))) continue;
+                Nodo n = nodos.getOrDefault(vecino, new Nodo(vecino));
+                if (actual.g + 1 < n.g) {
+                    n.padre = actual;
+                    n.g = actual.g + 1;
+                    n.f = n.g + manhattan(vecino, fin);
+                    if (!abiertos.contains(n)) abiertos.add(n);
+                    nodos.put(vecino, n);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int manhattan(Point a, Point b) {
+        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
+    }
+
+    // ------------------------------------------------------------------
+
+    /**
+     * Valida una ruta (sin el origen) con las reglas de movimiento, consultando los objetos.
+     * El paso j entra a su celda en el minuto minutoInicio + j y no vale si esa celda, o la
+     * que deja, está bloqueada en ese minuto; salvo que entre al destino o deje el origen.
+     */
+    static void validar(int[] ruta, int sx, int sy, int ex, int ey, int minutoInicio, List<Bloqueo> bloqueos) {
+        int x = sx, y = sy;
+        for (int j = 1; j <= ruta.length; j++) {
+            int nx = Mapa.x(ruta[j - 1]), ny = Mapa.y(ruta[j - 1]);
+            String paso = "paso " + j + " a (" + nx + "," + ny + ")";
+            assertEquals(1, Math.abs(nx - x) + Math.abs(ny - y), paso + " no es vecino");
+            int minuto = minutoInicio + j;
+            if (j < ruta.length) {
+                assertTrue(!bloqueado(bloqueos, nx, ny, minuto), paso + ": entra a una celda bloqueada");
+                assertTrue(j == 1 || !bloqueado(bloqueos, x, y, minuto), paso + ": sale de una celda bloqueada");
+            }
+            x = nx;
+            y = ny;
+        }
+        assertEquals(ex, x);
+        assertEquals(ey, y);
+    }
+
+    private static int[] celdas(List<Point> ruta) {
+        int[] r = new int[ruta.size()];
+        for (int i = 0; i < r.length; i++) r[i] = Mapa.celda(ruta.get(i).x, ruta.get(i).y);
+        return r;
+    }
+
+    /** Mismo alcance que la búsqueda original, nunca más larga y siempre válida. */
+    @Test
+    void coincideConLaBusquedaOriginalEnLosBloqueosReales() {
+        assertTrue(REALES.size() > 20, "bloqueos cargados: " + REALES.size());
+        Random r = new Random(17);
+        int rodeos = 0, sinRuta = 0;
+        for (int i = 0; i < 500; i++) {
+            int sx = r.nextInt(Mapa.COLUMNAS), sy = r.nextInt(Mapa.FILAS);
+            int ex = r.nextInt(Mapa.COLUMNAS), ey = r.nextInt(Mapa.FILAS);
+            int minuto = T0 + r.nextInt(3 * 24 * 60);
+            List<Point> original = busquedaOriginal(new Point(sx, sy), new Point(ex, ey), minuto, REALES);
+            int[] ruta = GridAStar.buscar(sx, sy, ex, ey, minuto, INDICE_REAL);
+            String consulta = "(" + sx + "," + sy + ")->(" + ex + "," + ey + ") en " + minuto;
+            if (original == null) {
+                assertNull(ruta, consulta);
+                sinRuta++;
+                continue;
+            }
+            assertNotNull(ruta, consulta);
+            assertTrue(ruta.length <= original.size(), consulta + ": " + ruta.length + " > " + original.size());
+            validar(ruta, sx, sy, ex, ey, minuto, REALES);
+            validar(celdas(original), sx, sy, ex, ey, minuto, REALES);
+            if (ruta.length > Math.abs(ex - sx) + Math.abs(ey - sy)) rodeos++;
+        }
+        assertTrue(rodeos > 20, "consultas con rodeo: " + rodeos + ", sin ruta: " + sinRuta);
+    }
+
+    @Test
+    void laCeldaDePartidaPuedeEstarBloqueada() {
+        // (5,5) bloqueada todo el día, igual que toda la columna x = 5 salvo los extremos
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(bloqueo(0, 1440, 5, 1, 5, 49)));
+
+        int[] ruta = GridAStar.buscar(5, 5, 8, 5, T0 + 60, indice);
+
+        assertNotNull(ruta);
+        assertEquals(3, ruta.length);
+        // Pero una celda bloqueada en medio no se atraviesa: hay que rodear la columna
+        int[] cruce = GridAStar.buscar(3, 5, 8, 5, T0 + 60, indice);
+        assertNotNull(cruce);
+        assertEquals(5 + 2 * 5, cruce.length);
+    }
+
+    @Test
+    void elDestinoSiempreSePuedeOcupar() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(bloqueo(0, 1440, 10, 10, 10, 10)));
+
+        int[] ruta = GridAStar.buscar(4, 10, 10, 10, T0 + 60, indice);
+        assertNotNull(ruta);
+        assertEquals(6, ruta.length);
+        assertEquals(Mapa.celda(10, 10), ruta[5]);
+
+        // Rodeado por un anillo bloqueado: el destino se puede ocupar pero no alcanzar
+        List<Bloqueo> anillo = List.of(bloqueo(0, 1440, 9, 9, 11, 9, 11, 11, 9, 11, 9, 9));
+        IndiceBloqueos indiceAnillo = IndiceBloqueos.construir(anillo);
+        assertNull(GridAStar.buscar(4, 10, 10, 10, T0 + 60, indiceAnillo));
+        assertNull(busquedaOriginal(new Point(4, 10), new Point(10, 10), T0 + 60, anillo));
+        // Una celda del propio anillo sí, por ser el destino
+        int[] alAnillo = GridAStar.buscar(4, 10, 9, 10, T0 + 60, indiceAnillo);
+        assertNotNull(alAnillo);
+        assertEquals(5, alAnillo.length);
+    }
+
+    /**
+     * (5,0) bloqueada sólo en el minuto t0+5 de la ruta recta de (0,0) a (10,0): la celda del
+     * paso 5 se alcanza en inicio+5 y se deja en inicio+6.
+     */
+    @Test
+    void seBloqueaSegunElMinutoDeLlegadaYDeSalida() {
+        List<Bloqueo> bloqueos = List.of(bloqueo(5, 6, 5, 0, 5, 0));
+        IndiceBloqueos indice = IndiceBloqueos.construir(bloqueos);
+        int[][] casos = {
+                // {inicio relativo, largo esperado}
+                {-2, 10},  // llega en t0+3, sale en t0+4
+                {-1, 12},  // llega en t0+4, pero sale en t0+5: bloqueada
+                {0, 12},   // llega justo en t0+5
+                {1, 10},   // llega en t0+6, ya libre
+        };
+        for (int[] caso : casos) {
+            int minuto = T0 + caso[0];
+            int[] ruta = GridAStar.buscar(0, 0, 10, 0, minuto, indice);
+            assertNotNull(ruta, "inicio " + caso[0]);
+            assertEquals(caso[1], ruta.length, "inicio " + caso[0]);
+            assertEquals(caso[1], busquedaOriginal(new Point(0, 0), new Point(10, 0), minuto, bloqueos).size());
+            validar(ruta, 0, 0, 10, 0, minuto, bloqueos);
+        }
+    }
+
+    /** Si rutaDirecta da una ruta, es una L de largo Manhattan que respeta los bloqueos. */
+    @Test
+    void laRutaDirectaNuncaAceptaUnaLBloqueada() {
+        Random r = new Random(23);
+        int directas = 0, rechazadas = 0;
+        for (int i = 0; i < 2_000; i++) {
+            int sx = r.nextInt(Mapa.COLUMNAS), sy = r.nextInt(Mapa.FILAS);
+            int ex = r.nextInt(Mapa.COLUMNAS), ey = r.nextInt(Mapa.FILAS);
+            int minuto = T0 + r.nextInt(3 * 24 * 60);
+            int[] ruta = GridAStar.rutaDirecta(sx, sy, ex, ey, minuto, INDICE_REAL);
+            if (ruta == null) {
+                rechazadas++;
+                continue;
+            }
+            assertEquals(Math.abs(ex - sx) + Math.abs(ey - sy), ruta.length);
+            validar(ruta, sx, sy, ex, ey, minuto, REALES);
+            directas++;
+        }
+        assertTrue(directas > 500 && rechazadas > 100, directas + " directas, " + rechazadas + " rechazadas");
+    }
+
+    @Test
+    void laRutaDirectaPruebaLasDosL() {
+        // (5,0) cierra la L que va primero en x; (0,5) la que va primero en y
+        List<Bloqueo> enX = List.of(bloqueo(0, 1440, 5, 0, 5, 0));
+        List<Bloqueo> ambas = List.of(bloqueo(0, 1440, 5, 0, 5, 0), bloqueo(0, 1440, 0, 5, 0, 5));
+
+        int[] libre = GridAStar.rutaDirecta(0, 0, 10, 10, T0, IndiceBloqueos.VACIO);
+        assertEquals(20, libre.length);
+        assertEquals(Mapa.celda(1, 0), libre[0]);
+
+        int[] segunda = GridAStar.rutaDirecta(0, 0, 10, 10, T0, IndiceBloqueos.construir(enX));
+        assertNotNull(segunda);
+        assertEquals(Mapa.celda(0, 1), segunda[0]);
+        validar(segunda, 0, 0, 10, 10, T0, enX);
+
+        IndiceBloqueos cerradas = IndiceBloqueos.construir(ambas);
+        assertNull(GridAStar.rutaDirecta(0, 0, 10, 10, T0, cerradas));
+        assertEquals(20, GridAStar.buscar(0, 0, 10, 10, T0, cerradas).length);
+
+        // El origen y el destino bloqueados no cierran la L
+        IndiceBloqueos extremos = IndiceBloqueos.construir(List.of(
+                bloqueo(0, 1440, 0, 0, 0, 0), bloqueo(0, 1440, 10, 10, 10, 10)));
+        assertEquals(Mapa.celda(1, 0), GridAStar.rutaDirecta(0, 0, 10, 10, T0, extremos)[0]);
+    }
+
+    /** Misma regla de minutos que el A*: ver seBloqueaSegunElMinutoDeLlegadaYDeSalida. */
+    @Test
+    void laRutaDirectaConsideraElMinutoDeCadaPaso() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(bloqueo(5, 6, 5, 0, 5, 0)));
+        assertNotNull(GridAStar.rutaDirecta(0, 0, 10, 0, T0 - 2, indice));
+        assertNull(GridAStar.rutaDirecta(0, 0, 10, 0, T0 - 1, indice));
+        assertNull(GridAStar.rutaDirecta(0, 0, 10, 0, T0, indice));
+        assertNotNull(GridAStar.rutaDirecta(0, 0, 10, 0, T0 + 1, indice));
+    }
+
+    private static int[] tiemposPorBusqueda(int sx, int sy, int minuto, IndiceBloqueos indice, int[] objetivos) {
+        int[] tiempos = new int[objetivos.length];
+        for (int i = 0; i < objetivos.length; i++) {
+            int[] ruta = GridAStar.buscar(sx, sy, Mapa.x(objetivos[i]), Mapa.y(objetivos[i]), minuto, indice);
+            tiempos[i] = ruta == null ? -1 : ruta.length;
+        }
+        return tiempos;
+    }
+
+    /** Los bloqueos activos en el minuto dado, pero vigentes todo el tiempo. */
+    private static IndiceBloqueos congelar(List<Bloqueo> bloqueos, int minuto) {
+        LocalDateTime t = RelojSimulacion.instante(minuto);
+        List<Bloqueo> fijos = new ArrayList<>();
+        for (Bloqueo b : bloqueos) {
+            if (b.isActiveAt(t)) fijos.add(new Bloqueo(BASE.minusDays(30), BASE.plusDays(30), b.getNodes()));
+        }
+        return IndiceBloqueos.construir(fijos);
+    }
+
+    /**
+     * Hacia adelante, la búsqueda en anchura da el mismo tiempo que el A* a cada objetivo; en la
+     * variante congelada, el mismo que el A* con los bloqueos fijos en el minuto de salida.
+     */
+    @Test
+    void lasDistanciasCoincidenConLaBusquedaPuntoAPunto() {
+        Random r = new Random(31);
+        int distintas = 0;
+        for (int i = 0; i < 40; i++) {
+            int sx = r.nextInt(Mapa.COLUMNAS), sy = r.nextInt(Mapa.FILAS);
+            int minuto = T0 + r.nextInt(3 * 24 * 60);
+            int[] objetivos = new int[25];
+            for (int k = 0; k < objetivos.length; k++) objetivos[k] = r.nextInt(Mapa.TOTAL_CELDAS);
+            String consulta = "desde (" + sx + "," + sy + ") en " + minuto;
+
+            int[] adelante = new int[objetivos.length];
+            GridAStar.distancias(sx, sy, minuto, false, INDICE_REAL, objetivos, adelante);
+            assertArrayIgual(tiemposPorBusqueda(sx, sy, minuto, INDICE_REAL, objetivos), adelante, consulta);
+
+            int[] congelado = new int[objetivos.length];
+            GridAStar.distancias(sx, sy, minuto, true, INDICE_REAL, objetivos, congelado);
+            assertArrayIgual(tiemposPorBusqueda(sx, sy, minuto, congelar(REALES, minuto), objetivos), congelado,
+                    consulta + " (congelado)");
+
+            for (int k = 0; k < objetivos.length; k++) {
+                if (adelante[k] != congelado[k]) distintas++;
+            }
+        }
+        assertTrue(distintas > 0, "objetivos con tiempos distintos: " + distintas);
+    }
+
+    private static void assertArrayIgual(int[] esperado, int[] real, String mensaje) {
+        for (int k = 0; k < esperado.length; k++) {
+            assertEquals(esperado[k], real[k], mensaje + ", objetivo " + k);
+        }
+    }
+
+    /** Un bloqueo que empieza después de salir cuenta hacia adelante, pero no congelado. */
+    @Test
+    void lasDistanciasCongeladasUsanLosBloqueosDeLaSalida() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(
+                bloqueo(5, 60, 5, 0, 5, 3),
+                bloqueo(0, 1440, 19, 19, 21, 19, 21, 21, 19, 21, 19, 19)));
+        int[] objetivos = {Mapa.celda(10, 0), Mapa.celda(0, 0), Mapa.celda(20, 20)};
+        int[] tiempos = new int[3];
+
+        GridAStar.distancias(0, 0, T0, false, indice, objetivos, tiempos);
+        assertEquals(18, tiempos[0]);
+        assertEquals(0, tiempos[1]);
+        assertEquals(-1, tiempos[2]);
+
+        GridAStar.distancias(0, 0, T0, true, indice, objetivos, tiempos);
+        assertEquals(10, tiempos[0]);
+        assertEquals(-1, tiempos[2]);
+
+        // Y al revés: uno activo al salir que termina por el camino sigue cerrando el paso
+        GridAStar.distancias(0, 0, T0 + 58, true, indice, objetivos, tiempos);
+        assertEquals(18, tiempos[0]);
+        GridAStar.distancias(0, 0, T0 + 58, false, indice, objetivos, tiempos);
+        assertEquals(10, tiempos[0]);
+    }
+
+    /** Hacia adelante, mismos minutos que seBloqueaSegunElMinutoDeLlegadaYDeSalida. */
+    @Test
+    void lasDistanciasConsideranElMinutoDeCadaPaso() {
+        IndiceBloqueos indice = IndiceBloqueos.construir(List.of(bloqueo(5, 6, 5, 0, 5, 0)));
+        int[] objetivos = {Mapa.celda(10, 0)};
+        int[] tiempos = new int[1];
+        int[][] casos = {{-2, 10}, {-1, 12}, {0, 12}, {1, 10}};
+        for (int[] caso : casos) {
+            GridAStar.distancias(0, 0, T0 + caso[0], false, indice, objetivos, tiempos);
+            assertEquals(caso[1], tiempos[0], "inicio " + caso[0]);
+        }
+    }
+
+    @Test
+    void sinMovimientoDevuelveUnaRutaVacia() {
+        assertEquals(0, GridAStar.buscar(7, 7, 7, 7, T0, INDICE_REAL).length);
+    }
+}
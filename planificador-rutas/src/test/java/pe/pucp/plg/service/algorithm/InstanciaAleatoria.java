@@ -0,0 +1,142 @@
+package pe.pucp.plg.service.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.Ruta;
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.template.CamionTemplate;
+
+/**
+ * Instancia aleatoria para las pruebas de los planificadores: la flota de la planta (2 TA,
+ * 4 TB, 4 TC, 10 TD) en posiciones al azar, pedidos al azar y sin bloqueos. Incluye una
+ * "hormiga" sin feromonas y la validación de rutas (tramos, capacidad, combustible y coste).
+ */
+final class InstanciaAleatoria {
+
+    static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 5, 8, 0);
+    private static final double EPS = 1e-6;
+
+    final List<CamionEstado> flota = new ArrayList<>();
+    final List<Pedido> pedidos = new ArrayList<>();
+    final MatrizTiempos matriz;
+    final DatosACO datos;
+    final String[] ids;
+    final double[] tara, capacidad, combustible;
+
+    InstanciaAleatoria(long semilla, int n) {
+        Random r = new Random(semilla);
+        String[] tipos = {"TA", "TB", "TC", "TD"};
+        double[] cap = {25, 15, 10, 5}, taras = {2500, 2000, 1500, 1000};
+        int[] cantidad = {2, 4, 4, 10};
+        for (int t = 0; t < tipos.length; t++) {
+            for (int k = 1; k <= cantidad[t]; k++) {
+                CamionTemplate plantilla = new CamionTemplate(tipos[t] + String.format("%02d", k), cap[t], taras[t], 25);
+                flota.add(new CamionEstado(plantilla, r.nextInt(71), r.nextInt(51)));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            pedidos.add(new Pedido("P" + i, BASE.minusMinutes(10), r.nextInt(71), r.nextInt(51),
+                    1 + r.nextInt(8), BASE.plusHours(4 + r.nextInt(20))));
+        }
+        matriz = MatrizTiempos.construir(flota, pedidos, BASE, IndiceBloqueos.construir(List.of()));
+        datos = DatosACO.construir(pedidos, flota, BASE, matriz, 2.0);
+        int V = flota.size();
+        ids = new String[V];
+        tara = new double[V];
+        capacidad = new double[V];
+        combustible = new double[V];
+        for (int v = 0; v < V; v++) {
+            ids[v] = flota.get(v).getPlantilla().getId();
+            tara[v] = flota.get(v).getPlantilla().getTara() / 1000.0;
+            capacidad[v] = flota.get(v).getCapacidadDisponible();
+            combustible[v] = flota.get(v).getCombustibleActual();
+        }
+    }
+
+    double arco(int v, int desde, int j) {
+        return datos.distancia[desde * datos.N + j] * (tara[v] + datos.volumen[j] * 0.5) / 180.0;
+    }
+
+    List<Ruta> solucionAleatoria(long semilla) {
+        Random r = new Random(semilla);
+        int V = datos.V;
+        List<Ruta> rutas = new ArrayList<>(V);
+        int[] nodo = new int[V];
+        double[] carga = new double[V], gastado = new double[V];
+        for (int v = 0; v < V; v++) {
+            rutas.add(new Ruta(ids[v]));
+            nodo[v] = v;
+        }
+        List<Integer> orden = new ArrayList<>();
+        for (int j = 0; j < datos.N; j++) orden.add(j);
+        Collections.shuffle(orden, r);
+        for (int j : orden) {
+            List<Integer> candidatos = new ArrayList<>();
+            for (int v = 0; v < V; v++) {
+                if (datos.factible(nodo[v], j) && carga[v] + datos.volumen[j] <= capacidad[v]
+                        && gastado[v] + arco(v, nodo[v], j) <= combustible[v]) {
+                    candidatos.add(v);
+                }
+            }
+            if (candidatos.isEmpty()) continue;
+            int v = candidatos.get(r.nextInt(candidatos.size()));
+            Ruta ruta = rutas.get(v);
+            ruta.addPedidoId(j);
+            ruta.distancia += datos.distancia[nodo[v] * datos.N + j];
+            ruta.consumo += arco(v, nodo[v], j);
+            carga[v] += datos.volumen[j];
+            gastado[v] += arco(v, nodo[v], j);
+            nodo[v] = datos.nodoPedido(j);
+        }
+        return rutas;
+    }
+
+    /** Comprueba tramos factibles, capacidad, combustible y que el coste informado sea el real. */
+    void validar(List<Ruta> rutas) {
+        assertEquals(datos.V, rutas.size());
+        Set<Integer> vistos = new HashSet<>();
+        for (int v = 0; v < datos.V; v++) {
+            Ruta ruta = rutas.get(v);
+            assertEquals(ids[v], ruta.getCamionId());
+            int desde = v, distancia = 0;
+            double carga = 0, consumo = 0;
+            for (int j : ruta.getPedidoIds()) {
+                assertTrue(vistos.add(j), "pedido " + j + " repetido");
+                assertTrue(datos.factible(desde, j), "tramo infactible hacia " + j + " en " + ids[v]);
+                distancia += datos.distancia[desde * datos.N + j];
+                consumo += arco(v, desde, j);
+                carga += datos.volumen[j];
+                desde = datos.nodoPedido(j);
+            }
+            assertTrue(carga <= capacidad[v] + EPS, "capacidad excedida en " + ids[v]);
+            assertTrue(consumo <= combustible[v] + EPS, "combustible excedido en " + ids[v]);
+            assertEquals(distancia, ruta.distancia, EPS);
+            assertEquals(consumo, ruta.consumo, EPS);
+        }
+    }
+
+    BusquedaLocal busquedaLocal() {
+        return new BusquedaLocal(datos, ids, tara, capacidad, combustible);
+    }
+
+    static double coste(List<Ruta> rutas) {
+        return rutas.stream().mapToDouble(r -> r.consumo).sum();
+    }
+
+    static Set<Integer> asignados(List<Ruta> rutas) {
+        Set<Integer> s = new HashSet<>();
+        for (Ruta r : rutas) s.addAll(r.getPedidoIds());
+        return s;
+    }
+}
@@ -0,0 +1,138 @@
+package pe.pucp.plg.service.algorithm;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.template.CamionTemplate;
+
+/**
+ * Kernel escalar contra vectorial en lo que hace cada hormiga: los pesos de un camión
+ * contra todos los pedidos, tau^alpha de la matriz de feromonas, y la carga de una fila en
+ * el árbol de sumas (tramo contra pesos uno a uno).
+ *
+ * No corre con los tests; se lanza con el perfil que genera el código de JMH:
+ * {@code mvn -Pbenchmark test-compile exec:exec}, o sin Maven, con las clases de test ya
+ * generadas por ese perfil,
+ * {@code java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes:<dependencias de test> pe.pucp.plg.service.algorithm.KernelPesosBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KernelPesosBenchmark {
+
+    private static final int CAMIONES = 20;
+
+    @Param({"150", "600"})
+    int pedidos;
+
+    private DatosACO datos;
+    private KernelPesos escalar;
+    private KernelPesos vectorial;
+    private double[][] tau;
+    private double[] tauAlpha;
+    private boolean[] asignado;
+    private double[] fila;
+    private ArbolSumas arbol;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom rng = new SplittableRandom(7);
+        LocalDateTime ahora = LocalDateTime.of(2025, 1, 5, 8, 0);
+        List<CamionEstado> flota = new ArrayList<>(CAMIONES);
+        for (int v = 0; v < CAMIONES; v++) {
+            flota.add(new CamionEstado(new CamionTemplate("TD" + v, 5, 1000, 25), rng.nextInt(71), rng.nextInt(51)));
+        }
+        List<Pedido> lista = new ArrayList<>(pedidos);
+        for (int i = 0; i < pedidos; i++) {
+            lista.add(new Pedido("P" + i, ahora.minusMinutes(10), rng.nextInt(71), rng.nextInt(51),
+                    1 + rng.nextInt(8), ahora.plusHours(4 + rng.nextInt(20))));
+        }
+        MatrizTiempos matriz = MatrizTiempos.construir(flota, lista, ahora, IndiceBloqueos.VACIO);
+        datos = DatosACO.construir(lista, flota, ahora, matriz, 2.0);
+
+        escalar = new KernelPesos();
+        vectorial = KernelPesos.crear(true);
+        tau = new double[CAMIONES][pedidos];
+        for (double[] t : tau)
+            for (int i = 0; i < pedidos; i++) t[i] = 0.5 + rng.nextDouble();
+        tauAlpha = new double[CAMIONES * pedidos];
+        for (int v = 0; v < CAMIONES; v++) escalar.potencia(tau[v], 1.0, tauAlpha, v * pedidos, pedidos);
+        asignado = new boolean[pedidos];
+        for (int i = 0; i < pedidos; i += 5) asignado[i] = true;
+        fila = new double[pedidos];
+        escalar.pesosFila(datos, 0, 5, 25, 1.0, 0.5, asignado, tauAlpha, 0, fila);
+        arbol = new ArbolSumas(CAMIONES * pedidos);
+    }
+
+    @Benchmark
+    public double[] pesosEscalar() {
+        return pesos(escalar);
+    }
+
+    @Benchmark
+    public double[] pesosVectorial() {
+        return pesos(vectorial);
+    }
+
+    @Benchmark
+    public double[] potenciaEscalar() {
+        for (int v = 0; v < CAMIONES; v++) escalar.potencia(tau[v], 1.5, tauAlpha, v * pedidos, pedidos);
+        return tauAlpha;
+    }
+
+    @Benchmark
+    public double[] potenciaVectorial() {
+        for (int v = 0; v < CAMIONES; v++) vectorial.potencia(tau[v], 1.5, tauAlpha, v * pedidos, pedidos);
+        return tauAlpha;
+    }
+
+    @Benchmark
+    public double arbolUnoAUno() {
+        for (int i = 0; i < pedidos; i++) arbol.fijar(i, fila[i]);
+        return arbol.total();
+    }
+
+    @Benchmark
+    public double arbolTramo() {
+        arbol.fijarTramo(0, fila, pedidos);
+        return arbol.total();
+    }
+
+    /** Los pesos de la fila de cada camión, como al arrancar una hormiga. */
+    private double[] pesos(KernelPesos kernel) {
+        for (int v = 0; v < CAMIONES; v++) {
+            kernel.pesosFila(datos, v, 5, 25, 1.0, 0.5, asignado, tauAlpha, v * pedidos, fila);
+        }
+        return fila;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(KernelPesosBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package pe.pucp.plg.service.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pe.pucp.plg.service.algorithm.InstanciaAleatoria.BASE;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import pe.pucp.plg.model.common.IndiceBloqueos;
+import pe.pucp.plg.model.common.Pedido;
+import pe.pucp.plg.model.common.Ruta;
+import pe.pucp.plg.model.context.MemoriaFeromonas;
+import pe.pucp.plg.model.state.CamionEstado;
+import pe.pucp.plg.model.template.CamionTemplate;
+import pe.pucp.plg.repository.TanqueTemplateRepository;
+
+/**
+ * Con los tanques de la planta: Almacen Central (12,8), Tanque Norte (42,42) y Tanque Este
+ * (63,3). Todos los camiones arrancan junto al central y la flota no alcanza para la demanda.
+ */
+class PlanificadorPorRegionesTest {
+
+    private final PlanificadorPorRegiones regiones;
+    private final ALNSPlanner motor = new ALNSPlanner(2_000, 0, 7L);
+
+    PlanificadorPorRegionesTest() {
+        TanqueTemplateRepository tanques = new TanqueTemplateRepository();
+        tanques.init();
+        regiones = new PlanificadorPorRegiones(tanques, 1);
+    }
+
+    @AfterEach
+    void cerrar() {
+        regiones.cerrar();
+    }
+
+    private static CamionEstado camion(String id, double capacidad) {
+        return new CamionEstado(new CamionTemplate(id, capacidad, 1000, 25), 12, 8);
+    }
+
+    private static Pedido pedido(String id, int x, int y, double volumen) {
+        return new Pedido(id, BASE.minusMinutes(10), x, y, volumen, BASE.plusHours(24));
+    }
+
+    private List<Ruta> planificar(List<Pedido> pedidos, List<CamionEstado> flota) {
+        MatrizTiempos matriz = MatrizTiempos.construir(flota, pedidos, BASE, IndiceBloqueos.construir(List.of()));
+        return regiones.planificar(motor, new ProblemaPlanificacion(pedidos, flota, BASE, matriz, new MemoriaFeromonas(), Map.of()));
+    }
+
+    private static Set<String> servidos(List<Ruta> rutas, List<Pedido> pedidos) {
+        Set<String> ids = new HashSet<>();
+        for (Ruta r : rutas)
+            for (int idx : r.getPedidoIds()) assertTrue(ids.add(pedidos.get(idx).getId()), "pedido repetido");
+        return ids;
+    }
+
+    /** El central tiene más demanda que capacidad, pero el norte igual recibe uno de sus dos camiones. */
+    @Test
+    void unaRegionConPedidosNoQuedaSinCamionesAunqueFalteFlota() {
+        List<Pedido> pedidos = new ArrayList<>();
+        for (int i = 0; i < 4; i++) pedidos.add(pedido("C" + i, 10 + i, 10, 3));
+        pedidos.add(pedido("N0", 40, 40, 2));
+        pedidos.add(pedido("N1", 44, 41, 2));
+        List<CamionEstado> flota = List.of(camion("TD01", 5), camion("TD02", 5));
+
+        Set<String> ids = servidos(planificar(pedidos, flota), pedidos);
+
+        assertTrue(ids.contains("N0") && ids.contains("N1"), "servidos: " + ids);
+        assertTrue(ids.stream().anyMatch(id -> id.startsWith("C")), "servidos: " + ids);
+    }
+
+    /** Con un solo camión, los pedidos de las regiones sin camión se le ofrecen en la frontera. */
+    @Test
+    void conMenosCamionesQueRegionesLosPedidosSinCamionPasanPorLaFrontera() {
+        List<Pedido> pedidos = List.of(
+                pedido("C0", 10, 10, 3), pedido("C1", 14, 6, 3),
+                pedido("N0", 40, 40, 3), pedido("E0", 60, 5, 3));
+        List<CamionEstado> flota = List.of(camion("TA01", 25));
+
+        Set<String> ids = servidos(planificar(pedidos, flota), pedidos);
+
+        assertEquals(Set.of("C0", "C1", "N0", "E0"), ids);
+    }
+}